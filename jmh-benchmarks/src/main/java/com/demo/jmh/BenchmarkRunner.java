@@ -0,0 +1,51 @@
+package com.demo.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: the JMH command line, with the GC profiler always on and the
+ * forked JVMs given the module opens Chronicle needs.
+ * <p>
+ * The GC profiler reports allocation per operation ({@code gc.alloc.rate.norm}) next to the
+ * collection counts and times, so each result shows what the operation allocates on the heap.
+ * Examples: {@code java -jar benchmarks.jar ChronicleMapBenchmark},
+ * {@code java -jar benchmarks.jar -bm thrpt -p entries=10000 Queue}, {@code java -jar benchmarks.jar -h}.
+ */
+public class BenchmarkRunner {
+
+    static final String[] JVM_ARGS = {
+        "--add-opens", "java.base/java.lang.reflect=ALL-UNNAMED",
+        "--add-opens", "java.base/java.nio=ALL-UNNAMED",
+        "--add-opens", "java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-opens", "java.base/java.lang=ALL-UNNAMED",
+        "--add-opens", "java.base/java.util=ALL-UNNAMED",
+        "--add-opens", "java.base/sun.misc=ALL-UNNAMED",
+        "--add-exports", "java.base/jdk.internal.ref=ALL-UNNAMED",
+        "--add-exports", "java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-exports", "jdk.unsupported/sun.misc=ALL-UNNAMED",
+        // ChronicleMap compiles generated classes at runtime
+        "--add-opens", "jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+        "--add-opens", "jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+        "--add-opens", "jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+        "--add-exports", "jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+        "-Dchronicle.analytics.disable=true",
+        "-Xms1g", "-Xmx1g"
+    };
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .parent(commandLine)
+            .addProfiler(GCProfiler.class);
+        if (!commandLine.getJvmArgsAppend().hasValue()) {
+            options.jvmArgsAppend(JVM_ARGS);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+package com.demo.jmh;
+
+import net.openhft.chronicle.bytes.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The access patterns of {@code ByteBufferInternals.PerformanceAnalysis}: write a byte, an int
+ * and a long, then read them back, through a byte array, heap and direct ByteBuffers, Unsafe and
+ * Chronicle Bytes.
+ * <p>
+ * {@code offset} moves the int and long off or onto their natural alignment. The value written
+ * changes every call and what is read goes to the blackhole, so none of it can be folded away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferAccessBenchmark {
+
+    private static final int SIZE = 1_024;
+    private static final Unsafe UNSAFE = unsafe();
+
+    @Param({"1", "8"})
+    public int offset;
+
+    private byte[] array;
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+    private ByteBuffer directNative;
+    private long address;
+    private Bytes<?> bytes;
+    private int value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        array = new byte[SIZE];
+        heap = ByteBuffer.allocate(SIZE);
+        direct = ByteBuffer.allocateDirect(SIZE);
+        directNative = ByteBuffer.allocateDirect(SIZE).order(ByteOrder.nativeOrder());
+        address = UNSAFE.allocateMemory(SIZE);
+        bytes = Bytes.allocateDirect(SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        UNSAFE.freeMemory(address);
+        bytes.releaseLast();
+    }
+
+    @Benchmark
+    public void byteArray(Blackhole blackhole) {
+        int i = value++;
+        array[0] = (byte) i;
+        array[offset] = (byte) (i >> 8);
+        array[offset + 8] = (byte) (i >> 16);
+        blackhole.consume(array[0]);
+        blackhole.consume(array[offset]);
+        blackhole.consume(array[offset + 8]);
+    }
+
+    /**
+     * Relative put/get, moving the position, as the old analysis did
+     */
+    @Benchmark
+    public void heapBufferRelative(Blackhole blackhole) {
+        relative(heap, blackhole);
+    }
+
+    @Benchmark
+    public void directBufferRelative(Blackhole blackhole) {
+        relative(direct, blackhole);
+    }
+
+    @Benchmark
+    public void directBufferAbsolute(Blackhole blackhole) {
+        absolute(direct, blackhole);
+    }
+
+    @Benchmark
+    public void directNativeOrderAbsolute(Blackhole blackhole) {
+        absolute(directNative, blackhole);
+    }
+
+    @Benchmark
+    public void unsafe(Blackhole blackhole) {
+        int i = value++;
+        UNSAFE.putByte(address, (byte) i);
+        UNSAFE.putInt(address + offset, i);
+        UNSAFE.putLong(address + offset + 8, i);
+        blackhole.consume(UNSAFE.getByte(address));
+        blackhole.consume(UNSAFE.getInt(address + offset));
+        blackhole.consume(UNSAFE.getLong(address + offset + 8));
+    }
+
+    @Benchmark
+    public void chronicleBytes(Blackhole blackhole) {
+        int i = value++;
+        bytes.writeByte(0, (byte) i);
+        bytes.writeInt(offset, i);
+        bytes.writeLong(offset + 8, i);
+        blackhole.consume(bytes.readByte(0));
+        blackhole.consume(bytes.readInt(offset));
+        blackhole.consume(bytes.readLong(offset + 8));
+    }
+
+    private void relative(ByteBuffer buffer, Blackhole blackhole) {
+        int i = value++;
+        buffer.position(0);
+        buffer.put((byte) i);
+        buffer.position(offset);
+        buffer.putInt(i);
+        buffer.position(offset + 8);
+        buffer.putLong(i);
+
+        buffer.position(0);
+        blackhole.consume(buffer.get());
+        buffer.position(offset);
+        blackhole.consume(buffer.getInt());
+        buffer.position(offset + 8);
+        blackhole.consume(buffer.getLong());
+    }
+
+    private void absolute(ByteBuffer buffer, Blackhole blackhole) {
+        int i = value++;
+        buffer.put(0, (byte) i);
+        buffer.putInt(offset, i);
+        buffer.putLong(offset + 8, i);
+        blackhole.consume(buffer.get(0));
+        blackhole.consume(buffer.getInt(offset));
+        blackhole.consume(buffer.getLong(offset + 8));
+    }
+
+    private static Unsafe unsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.demo.jmh;
+
+import com.demo.map.UserFieldUpdater;
+import com.demo.model.User;
+import com.demo.util.DataGenerator;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChronicleMap get, getUsing, put, compute and in-place update on a pre-filled map of {@link User}s.
+ * <p>
+ * Keys and values are generated in setup, so {@link DataGenerator} stays out of the measured
+ * path; each operation takes the next key of a shuffled sequence, so the map sees random access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChronicleMapBenchmark {
+
+    private static final int VALUES = 1_024;
+
+    @Param({"10000", "1000000"})
+    public int entries;
+
+    @Param({"false", "true"})
+    public boolean persisted;
+
+    private File file;
+    private ChronicleMap<Long, User> map;
+    private long[] keys;
+    private User[] values;
+    private UserFieldUpdater updater;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ChronicleMapBuilder<Long, User> builder = ChronicleMap.of(Long.class, User.class)
+            .name("jmh-users")
+            .entries(entries)
+            .averageValueSize(256);
+        if (persisted) {
+            file = Files.createTempFile("jmh-users", ".dat").toFile();
+            file.delete();
+            map = builder.createPersistedTo(file);
+        } else {
+            map = builder.create();
+        }
+
+        values = new User[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = DataGenerator.generateUser((long) i);
+        }
+        keys = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = i;
+            map.put((long) i, values[i % VALUES]);
+        }
+        updater = new UserFieldUpdater(map);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = entries - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        map.close();
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Per-thread position in the key sequence, and a value to read into
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+        final User using = new User();
+
+        long nextKey(ChronicleMapBenchmark benchmark) {
+            long[] keys = benchmark.keys;
+            if (++next == keys.length) {
+                next = 0;
+            }
+            return keys[next];
+        }
+    }
+
+    @Benchmark
+    public User get(Cursor cursor) {
+        return map.get(cursor.nextKey(this));
+    }
+
+    @Benchmark
+    public User getUsing(Cursor cursor) {
+        return map.getUsing(cursor.nextKey(this), cursor.using);
+    }
+
+    @Benchmark
+    public User put(Cursor cursor) {
+        long key = cursor.nextKey(this);
+        return map.put(key, values[(int) (key % VALUES)]);
+    }
+
+    /**
+     * Read-modify-write under the segment lock, as the login path does
+     */
+    @Benchmark
+    public User compute(Cursor cursor) {
+        return map.compute(cursor.nextKey(this), (key, user) -> {
+            user.setAccountBalance(user.getAccountBalance() + 1);
+            return user;
+        });
+    }
+
+    /**
+     * The same update written into the stored bytes by {@link UserFieldUpdater}
+     */
+    @Benchmark
+    public boolean updateInPlace(Cursor cursor) {
+        long key = cursor.nextKey(this);
+        return updater.updateAccountBalance(key, key);
+    }
+}
@@ -0,0 +1,166 @@
+package com.demo.jmh;
+
+import com.demo.model.Trade;
+import com.demo.util.DataGenerator;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appending to and reading from a Chronicle Queue, as {@link Trade} documents or as a few raw
+ * fields written straight to the excerpt bytes.
+ * <p>
+ * Appends go to a fresh queue every iteration, deleted afterwards, so disk use stays bounded by
+ * one iteration's worth. Reads cycle through a queue filled once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChronicleQueueBenchmark {
+
+    private static final int TRADES = 1_024;
+    private static final int READ_MESSAGES = 200_000;
+
+    @Param({"trade", "bytes"})
+    public String payload;
+
+    private Trade[] trades;
+    private double[] prices;
+    private Trade readInto;
+    private int next;
+
+    private File readDir;
+    private ChronicleQueue readQueue;
+    private ExcerptTailer tailer;
+
+    private File appendDir;
+    private ChronicleQueue appendQueue;
+    private ExcerptAppender appender;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        trades = new Trade[TRADES];
+        prices = new double[TRADES];
+        for (int i = 0; i < TRADES; i++) {
+            trades[i] = DataGenerator.generateTrade((long) i, DataGenerator.getRandomSymbol());
+            prices[i] = trades[i].getPrice().doubleValue();
+        }
+        readInto = new Trade();
+
+        readDir = Files.createTempDirectory("jmh-queue-read").toFile();
+        readQueue = SingleChronicleQueueBuilder.single(readDir).build();
+        try (ExcerptAppender filler = readQueue.createAppender()) {
+            for (int i = 0; i < READ_MESSAGES; i++) {
+                write(filler, trades[i % TRADES]);
+            }
+        }
+        tailer = readQueue.createTailer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        tailer.close();
+        readQueue.close();
+        deleteDirectory(readDir);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws IOException {
+        appendDir = Files.createTempDirectory("jmh-queue-append").toFile();
+        appendQueue = SingleChronicleQueueBuilder.single(appendDir).build();
+        appender = appendQueue.createAppender();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        appender.close();
+        appendQueue.close();
+        deleteDirectory(appendDir);
+    }
+
+    @Benchmark
+    public void append() {
+        Trade trade = trades[next++ & (TRADES - 1)];
+        write(appender, trade);
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        if (!readOne(blackhole)) {
+            tailer.toStart();
+            readOne(blackhole);
+        }
+    }
+
+    private void write(ExcerptAppender appender, Trade trade) {
+        if ("trade".equals(payload)) {
+            appender.writeDocument(trade);
+            return;
+        }
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(trade.getTradeId());
+            bytes.writeLong(trade.getQuantity());
+            bytes.writeDouble(prices[(int) (trade.getTradeId() & (TRADES - 1))]);
+        }
+    }
+
+    private boolean readOne(Blackhole blackhole) {
+        if ("trade".equals(payload)) {
+            if (!tailer.readDocument(readInto)) {
+                return false;
+            }
+            blackhole.consume(readInto);
+            return true;
+        }
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return false;
+            }
+            Bytes<?> bytes = dc.wire().bytes();
+            blackhole.consume(bytes.readLong());
+            blackhole.consume(bytes.readLong());
+            blackhole.consume(bytes.readDouble());
+            return true;
+        }
+    }
+
+    static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        directory.delete();
+    }
+}
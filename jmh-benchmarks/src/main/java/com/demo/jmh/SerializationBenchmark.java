@@ -0,0 +1,96 @@
+package com.demo.jmh;
+
+import com.demo.util.DataGenerator;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writing and reading the demo models with Chronicle Wire, in binary and text form, to and from
+ * a reused direct buffer
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"trade", "marketData", "user", "order"})
+    public String model;
+
+    @Param({"BINARY", "TEXT"})
+    public String wireType;
+
+    private Marshallable source;
+    private Marshallable target;
+    private Bytes<?> bytes;
+    private Wire wire;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Supplier<Marshallable> generator;
+        switch (model) {
+            case "trade":
+                generator = () -> DataGenerator.generateTrade(1L, "AAPL");
+                break;
+            case "marketData":
+                generator = () -> DataGenerator.generateMarketData("AAPL");
+                break;
+            case "user":
+                generator = () -> DataGenerator.generateUser(1L);
+                break;
+            case "order":
+                generator = () -> DataGenerator.generateOrder(1L);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+        source = generator.get();
+        target = generator.get();
+
+        bytes = Bytes.allocateElasticDirect(4_096);
+        wire = WireType.valueOf(wireType).apply(bytes);
+        source.writeMarshallable(wire);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bytes.releaseLast();
+    }
+
+    @Benchmark
+    public long write() {
+        bytes.clear();
+        source.writeMarshallable(wire);
+        return bytes.writePosition();
+    }
+
+    /**
+     * Read into an existing instance, from the bytes written in setup
+     */
+    @Benchmark
+    public Marshallable read() {
+        bytes.readPosition(0);
+        target.readMarshallable(wire);
+        return target;
+    }
+}
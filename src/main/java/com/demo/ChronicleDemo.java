@@ -3,6 +3,7 @@ package com.demo;
 import com.demo.benchmark.PerformanceBenchmark;
 import com.demo.map.ChronicleMapDemo;
 import com.demo.queue.ChronicleQueueDemo;
+import com.demo.stream.StreamingDemo;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -22,6 +23,7 @@ public class ChronicleDemo {
             log.info("Available demo types:");
             log.info("  map        - Chronicle Map demonstrations");
             log.info("  queue      - Chronicle Queue demonstrations"); 
+            log.info("  stream     - Streaming aggregation and pipeline demonstrations");
             log.info("  benchmark  - Performance benchmarks vs standard Java collections");
             log.info("  all        - Run all demonstrations (default)");
             log.info("");
@@ -37,6 +39,9 @@ public class ChronicleDemo {
                 case "queue":
                     ChronicleQueueDemo.main(new String[]{});
                     break;
+                case "stream":
+                    StreamingDemo.main(new String[]{});
+                    break;
                 case "benchmark":
                     PerformanceBenchmark.main(new String[]{});
                     break;
@@ -69,6 +74,13 @@ public class ChronicleDemo {
             
             Thread.sleep(1000);
             
+            // Run streaming demo
+            log.info("");
+            log.info("🌊 Starting Streaming Demo...");
+            StreamingDemo.main(new String[]{});
+            
+            Thread.sleep(1000);
+            
             // Run performance benchmark
             log.info("");
             log.info("⚡ Starting Performance Benchmark...");
@@ -0,0 +1,123 @@
+package com.demo.benchmark;
+
+import com.demo.util.LatencyHistogram;
+import com.demo.util.ThreadAffinity;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.affinity.AffinityLock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a spinning thread is kept off its CPU, unpinned and pinned.
+ * <p>
+ * The thread does nothing but read {@code System.nanoTime()}; any gap between two reads longer
+ * than {@value #STALL_THRESHOLD_NANOS} ns is time it was interrupted, descheduled or migrated.
+ * Optional background threads load the other CPUs, as busy neighbours on a shared host would.
+ * <p>
+ * Usage: {@code JitterBenchmark [seconds] [placement] [loadThreads]}; the placement is in
+ * {@link ThreadAffinity} form and defaults to the {@code jitter} role of {@value ThreadAffinity#PROPERTY},
+ * or else {@code isolated}.
+ */
+@Slf4j
+public class JitterBenchmark {
+
+    private static final long STALL_THRESHOLD_NANOS = 1_000;
+    private static final int WORST_STALLS = 5;
+    private static final long[] STALL_LIMITS = {10_000, 100_000, 1_000_000};
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        log.info("Spinning Thread Jitter Benchmark");
+        log.info("================================");
+
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        ThreadAffinity configured = ThreadAffinity.fromSystemProperty();
+        ThreadAffinity pinned = args.length > 1 ? ThreadAffinity.parse("jitter=" + args[1])
+            : configured.isEnabled() ? configured : ThreadAffinity.parse("jitter=isolated");
+        int loadThreads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        log.info("Layout: {}", ThreadAffinity.describeLayout());
+        log.info("Each run spins for {} s with {} background load threads", seconds, loadThreads);
+
+        JitterBenchmark benchmark = new JitterBenchmark();
+        benchmark.run("unpinned", new ThreadAffinity(Map.of()), seconds, loadThreads);
+        benchmark.run("pinned", pinned, seconds, loadThreads);
+
+        log.info("Jitter Benchmark completed");
+    }
+
+    private void run(String name, ThreadAffinity affinity, int seconds, int loadThreads) throws InterruptedException {
+        List<Thread> load = new ArrayList<>();
+        for (int i = 0; i < loadThreads; i++) {
+            Thread thread = new Thread(JitterBenchmark::burn, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            load.add(thread);
+        }
+
+        LatencyHistogram stalls = new LatencyHistogram();
+        long[] worst = new long[WORST_STALLS];
+        long[] over = new long[STALL_LIMITS.length];
+        int[] cpu = {-1};
+        Thread spinner = new Thread(() -> {
+            try (AffinityLock lock = affinity.acquire("jitter")) {
+                cpu[0] = lock == null ? -1 : lock.cpuId();
+                spin(TimeUnit.SECONDS.toNanos(seconds), stalls, worst, over);
+            }
+        }, "jitter-" + name);
+        spinner.start();
+        spinner.join();
+
+        load.forEach(Thread::interrupt);
+        for (Thread thread : load) {
+            thread.join();
+        }
+
+        long stalledNanos = (long) (stalls.getMean() * stalls.getTotalCount());
+        log.info("{} ({}):", name, cpu[0] < 0 ? "OS scheduled" : "CPU " + cpu[0]);
+        log.info("  Stalls over 1 us: {}, over 10 us: {}, over 100 us: {}, over 1 ms: {}",
+            stalls.getTotalCount(), over[0], over[1], over[2]);
+        log.info("  Stall lengths: {}", stalls.toSummaryString());
+        log.info("  Worst stalls: {} us", Arrays.toString(Arrays.stream(worst).map(n -> n / 1_000).toArray()));
+        log.info("  Time stalled: {}%", String.format("%.3f", 100.0 * stalledNanos / TimeUnit.SECONDS.toNanos(seconds)));
+    }
+
+    private static void spin(long durationNanos, LatencyHistogram stalls, long[] worst, long[] over) {
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        long previous = start;
+        while (previous < end) {
+            long now = System.nanoTime();
+            long gap = now - previous;
+            if (gap > STALL_THRESHOLD_NANOS) {
+                stalls.recordValue(gap);
+                for (int i = 0; i < STALL_LIMITS.length && gap > STALL_LIMITS[i]; i++) {
+                    over[i]++;
+                }
+                if (gap > worst[WORST_STALLS - 1]) {
+                    // Keep the largest few, descending
+                    int i = WORST_STALLS - 1;
+                    while (i > 0 && worst[i - 1] < gap) {
+                        worst[i] = worst[i - 1];
+                        i--;
+                    }
+                    worst[i] = gap;
+                }
+            }
+            previous = now;
+        }
+    }
+
+    private static void burn() {
+        long x = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            x += System.nanoTime() & 1;
+        }
+        sink = x;
+    }
+}
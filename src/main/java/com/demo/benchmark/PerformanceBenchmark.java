@@ -1,20 +1,39 @@
 package com.demo.benchmark;
 
+import com.demo.map.UserFieldUpdater;
 import com.demo.model.User;
 import com.demo.model.MarketData;
+import com.demo.model.Trade;
+import com.demo.queue.MarketEvents;
+import com.demo.queue.MergingTailer;
+import com.demo.queue.TimestampSeek;
 import com.demo.util.DataGenerator;
 import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.MethodReader;
+import net.openhft.chronicle.core.time.SetTimeProvider;
 import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Comprehensive performance comparison between Chronicle and standard Java collections
@@ -37,7 +56,11 @@ public class PerformanceBenchmark {
             
             // Run benchmarks
             benchmark.mapPerformanceComparison();
+            benchmark.loginUpdateComparison();
             benchmark.queuePerformanceComparison();
+            benchmark.eventDispatchComparison();
+            benchmark.timestampSeekComparison();
+            benchmark.mergeTailerThroughput();
             benchmark.memoryUsageComparison();
             benchmark.persistenceComparison();
             
@@ -157,6 +180,63 @@ public class PerformanceBenchmark {
                 .build();
     }
     
+    /**
+     * Compare get/mutate/put against in-place field updates for the login path
+     */
+    public void loginUpdateComparison() throws IOException {
+        log.info("\n=== Login Update Comparison ===");
+        
+        int userCount = 10_000;
+        
+        try (ChronicleMap<Long, User> map = ChronicleMap
+                .of(Long.class, User.class)
+                .entries(userCount * 2)
+                .averageValueSize(256)
+                .createPersistedTo(new File(DATA_DIR, "login-update-benchmark.dat"))) {
+            
+            for (long i = 0; i < userCount; i++) {
+                map.put(i, DataGenerator.generateUser(i));
+            }
+            
+            // Whole-entry round trip, as in ChronicleMapDemo.basicUsageDemo
+            User reusable = new User();
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                long key = i % userCount;
+                User user = map.getUsing(key, reusable);
+                user.setLastLoginAt(LocalDateTime.now());
+                map.put(key, user);
+            }
+            long fullStart = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                long key = ThreadLocalRandom.current().nextLong(userCount);
+                User user = map.getUsing(key, reusable);
+                user.setLastLoginAt(LocalDateTime.now());
+                map.put(key, user);
+            }
+            long fullDuration = System.nanoTime() - fullStart;
+            
+            // Field-level update under the entry lock
+            UserFieldUpdater updater = new UserFieldUpdater(map);
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                updater.updateLastLoginAt(i % userCount, LocalDateTime.now());
+            }
+            long fieldStart = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                long key = ThreadLocalRandom.current().nextLong(userCount);
+                updater.updateLastLoginAt(key, LocalDateTime.now());
+            }
+            long fieldDuration = System.nanoTime() - fieldStart;
+            
+            log.info("Login Update Results:");
+            log.info("  get/mutate/put: {} updates/sec ({} ns/update)",
+                (BENCHMARK_ITERATIONS * 1_000_000_000L) / fullDuration, fullDuration / BENCHMARK_ITERATIONS);
+            log.info("  Field update: {} updates/sec ({} ns/update)",
+                (BENCHMARK_ITERATIONS * 1_000_000_000L) / fieldDuration, fieldDuration / BENCHMARK_ITERATIONS);
+            log.info("  In-place writes: {}", updater.getInPlaceUpdates());
+            log.info("  Full rewrites (size changed): {}", updater.getFullRewrites());
+        }
+    }
+    
     /**
      * Compare Chronicle Queue vs LinkedBlockingQueue performance
      */
@@ -276,6 +356,259 @@ public class PerformanceBenchmark {
                 .build();
     }
     
+    /**
+     * Compare object documents polled by hand against method writer / method reader dispatch
+     */
+    public void eventDispatchComparison() {
+        log.info("\n=== Event Dispatch Comparison ===");
+        
+        // Pre-generate messages so only queue work is timed
+        MarketData[] messages = new MarketData[1_000];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = DataGenerator.generateMarketData("EVT_" + (i % 100));
+        }
+        
+        // Object documents: writeDocument(Object) / readDocument(reused instance)
+        File documentDir = new File(DATA_DIR, "dispatch-documents");
+        deleteDirectory(documentDir);
+        long documentWrite;
+        long documentRead;
+        long documentAllocated;
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(documentDir.getPath()).build();
+             ExcerptAppender appender = queue.createAppender();
+             ExcerptTailer tailer = queue.createTailer()) {
+            
+            MarketData data = new MarketData();
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                appender.writeDocument(messages[i % messages.length]);
+                tailer.readDocument(data);
+            }
+            
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                appender.writeDocument(messages[i % messages.length]);
+            }
+            documentWrite = System.nanoTime() - start;
+            
+            long allocatedBefore = currentThreadAllocatedBytes();
+            start = System.nanoTime();
+            int readCount = 0;
+            while (tailer.readDocument(data)) {
+                readCount++;
+            }
+            documentRead = System.nanoTime() - start;
+            documentAllocated = (currentThreadAllocatedBytes() - allocatedBefore) / Math.max(1, readCount);
+        }
+        
+        // Typed events: MarketEvents proxy / MethodReader dispatching to a listener
+        File eventDir = new File(DATA_DIR, "dispatch-events");
+        deleteDirectory(eventDir);
+        long eventWrite;
+        long eventRead;
+        long eventAllocated;
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(eventDir.getPath()).build();
+             ExcerptTailer tailer = queue.createTailer()) {
+            
+            MarketEvents events = queue.methodWriter(MarketEvents.class);
+            long[] received = new long[1];
+            MethodReader reader = tailer.methodReader(new MarketEvents() {
+                @Override
+                public void onTrade(Trade trade) {
+                }
+                
+                @Override
+                public void onMarketData(MarketData marketData) {
+                    received[0]++;
+                }
+            });
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                events.onMarketData(messages[i % messages.length]);
+                reader.readOne();
+            }
+            
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                events.onMarketData(messages[i % messages.length]);
+            }
+            eventWrite = System.nanoTime() - start;
+            
+            received[0] = 0;
+            long allocatedBefore = currentThreadAllocatedBytes();
+            start = System.nanoTime();
+            while (reader.readOne()) {
+                // dispatches one event per call
+            }
+            eventRead = System.nanoTime() - start;
+            eventAllocated = (currentThreadAllocatedBytes() - allocatedBefore) / Math.max(1, received[0]);
+        }
+        
+        log.info("Event Dispatch Results ({} messages):", BENCHMARK_ITERATIONS);
+        log.info("  Object documents: write {} ns/msg, read {} ns/msg, {} bytes allocated/msg",
+            documentWrite / BENCHMARK_ITERATIONS, documentRead / BENCHMARK_ITERATIONS, documentAllocated);
+        log.info("  Method writer/reader: write {} ns/msg, read {} ns/msg, {} bytes allocated/msg",
+            eventWrite / BENCHMARK_ITERATIONS, eventRead / BENCHMARK_ITERATIONS, eventAllocated);
+    }
+    
+    /**
+     * Compare a linear scan against a binary-search seek to a timestamp, across queue sizes
+     */
+    public void timestampSeekComparison() {
+        log.info("\n=== Timestamp Seek Comparison ===");
+        
+        // Pre-generate trades so only queue work is timed
+        Trade[] trades = new Trade[1_000];
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = DataGenerator.generateTrade((long) i, "SEEK_" + (i % 100));
+        }
+        long sessionStart = LocalDateTime.of(2024, 1, 2, 8, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        long sessionLength = TimeUnit.HOURS.toMillis(8);
+        
+        for (int messageCount : new int[] {10_000, 100_000, 1_000_000}) {
+            File queueDir = new File(DATA_DIR, "timestamp-seek-" + messageCount);
+            deleteDirectory(queueDir);
+            
+            // An hourly roll cycle over an eight hour session, driven by the message timestamps
+            SetTimeProvider clock = new SetTimeProvider(sessionStart * 1_000_000L);
+            try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath())
+                    .rollCycle(RollCycles.FAST_HOURLY)
+                    .timeProvider(clock)
+                    .build()) {
+                
+                try (ExcerptAppender appender = queue.createAppender()) {
+                    for (int i = 0; i < messageCount; i++) {
+                        long timestamp = sessionStart + sessionLength * i / messageCount;
+                        clock.currentTimeMillis(timestamp);
+                        try (DocumentContext dc = appender.writingDocument()) {
+                            Bytes<?> bytes = dc.wire().bytes();
+                            bytes.writeLong(timestamp);
+                            trades[i % trades.length].writeMarshallable((BytesOut<?>) bytes);
+                        }
+                    }
+                }
+                
+                // Replay from 70% of the way through the session
+                long target = sessionStart + sessionLength * 7 / 10 + 1;
+                
+                // Best of a few rounds, so JIT warm-up and first mapping of each cycle file are excluded
+                long scanDuration = Long.MAX_VALUE;
+                long seekDuration = Long.MAX_VALUE;
+                long scanIndex = -1;
+                long seekIndex = -1;
+                for (int round = 0; round < 3; round++) {
+                    long start = System.nanoTime();
+                    try (ExcerptTailer tailer = queue.createTailer()) {
+                        scanIndex = -1;
+                        while (scanIndex < 0) {
+                            try (DocumentContext dc = tailer.readingDocument()) {
+                                if (!dc.isPresent()) {
+                                    break;
+                                }
+                                if (dc.wire().bytes().readLong() >= target) {
+                                    scanIndex = dc.index();
+                                }
+                            }
+                        }
+                    }
+                    scanDuration = Math.min(scanDuration, System.nanoTime() - start);
+                    
+                    start = System.nanoTime();
+                    try (ExcerptTailer tailer = queue.createTailer()) {
+                        TimestampSeek.seek(queue, tailer, target, TimestampSeek.LEADING_LONG);
+                        seekIndex = tailer.index();
+                    }
+                    seekDuration = Math.min(seekDuration, System.nanoTime() - start);
+                }
+                
+                log.info("{} messages over {} cycles:", messageCount, queue.lastCycle() - queue.firstCycle() + 1);
+                log.info("  Linear scan: {} us", scanDuration / 1_000);
+                log.info("  Binary seek: {} us", seekDuration / 1_000);
+                log.info("  Same position: {}", scanIndex == seekIndex);
+            }
+        }
+    }
+    
+    /**
+     * Throughput of a timestamp-ordered merge over 2 to 32 queues
+     */
+    public void mergeTailerThroughput() {
+        log.info("\n=== Merge Tailer Throughput ===");
+        
+        int messageCount = 1_000_000;
+        Bytes<?> payload = Bytes.allocateElasticDirect(64);
+        payload.writeSkip(64);
+        
+        for (int queueCount : new int[] {2, 4, 8, 16, 32}) {
+            File baseDir = new File(DATA_DIR, "merge-" + queueCount);
+            deleteDirectory(baseDir);
+            
+            List<ChronicleQueue> queues = new ArrayList<>();
+            try {
+                List<ExcerptAppender> appenders = new ArrayList<>();
+                for (int q = 0; q < queueCount; q++) {
+                    ChronicleQueue queue = SingleChronicleQueueBuilder.single(new File(baseDir, "feed-" + q).getPath()).build();
+                    queues.add(queue);
+                    appenders.add(queue.createAppender());
+                }
+                
+                // Increasing timestamps spread randomly over the queues, several sharing each value
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < messageCount; i++) {
+                    try (DocumentContext dc = appenders.get(random.nextInt(queueCount)).writingDocument()) {
+                        Bytes<?> bytes = dc.wire().bytes();
+                        bytes.writeLong(i / 4);
+                        bytes.write(payload, 0, payload.readLimit());
+                    }
+                }
+                appenders.forEach(ExcerptAppender::close);
+                
+                // Best of a few rounds, so JIT warm-up and first mapping of each queue are excluded
+                long bestDuration = Long.MAX_VALUE;
+                long allocated = 0;
+                long read = 0;
+                boolean ordered = true;
+                for (int round = 0; round < 3; round++) {
+                    read = 0;
+                    long previous = Long.MIN_VALUE;
+                    long allocatedBefore = currentThreadAllocatedBytes();
+                    long start = System.nanoTime();
+                    try (MergingTailer tailer = new MergingTailer(queues, TimestampSeek.LEADING_LONG)) {
+                        while (true) {
+                            try (DocumentContext dc = tailer.readingDocument()) {
+                                if (!dc.isPresent()) {
+                                    break;
+                                }
+                                long timestamp = dc.wire().bytes().readLong();
+                                ordered &= timestamp >= previous;
+                                previous = timestamp;
+                                read++;
+                            }
+                        }
+                    }
+                    long duration = System.nanoTime() - start;
+                    if (duration < bestDuration) {
+                        bestDuration = duration;
+                        allocated = currentThreadAllocatedBytes() - allocatedBefore;
+                    }
+                }
+                
+                log.info("{} queues: {} msgs/sec, {} ns/msg, {} bytes allocated/msg, {} messages in order: {}",
+                    queueCount, (long) (read * 1e9 / bestDuration), bestDuration / Math.max(1, read),
+                    String.format("%.2f", (double) allocated / Math.max(1, read)), read, ordered);
+            } finally {
+                queues.forEach(ChronicleQueue::close);
+                deleteDirectory(baseDir);
+            }
+        }
+        payload.releaseLast();
+    }
+    
+    private static long currentThreadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads instanceof com.sun.management.ThreadMXBean
+            ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes()
+            : 0;
+    }
+    
     /**
      * Compare memory usage between Chronicle and standard collections
      */
@@ -404,6 +737,20 @@ public class PerformanceBenchmark {
         log.info("  Final size: {}", result.finalSize);
     }
     
+    private void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        directory.delete();
+    }
+    
     // Functional interfaces for benchmarking
     @FunctionalInterface
     interface MapWriter<K, V> {
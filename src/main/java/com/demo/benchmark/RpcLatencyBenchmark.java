@@ -0,0 +1,236 @@
+package com.demo.benchmark;
+
+import com.demo.queue.RpcClient;
+import com.demo.queue.RpcServer;
+import com.demo.queue.WaitStrategies;
+import com.demo.queue.WaitStrategy;
+import com.demo.util.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Round-trip latency of {@link RpcClient} calls to an {@link RpcServer}, with the server on a
+ * thread of this JVM and then in a second JVM on the same host.
+ * <p>
+ * The service doubles a number, so the cost measured is the queues and the wait strategies. Usage:
+ * {@code RpcLatencyBenchmark [calls] [spin|yield|backoff]}; {@code spin} gives the lowest latency
+ * but needs a free core for each side.
+ */
+@Slf4j
+public class RpcLatencyBenchmark {
+
+    private static final String DATA_DIR = "chronicle-demo-data/rpc";
+    private static final String SERVER = "server";
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int DEMUX_CALLERS = 4;
+    private static final int DEMUX_CALLS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(SERVER)) {
+            serve(new File(args[1]), args[2]);
+            return;
+        }
+
+        log.info("Queue RPC Latency Benchmark");
+        log.info("===========================");
+
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        String waitStrategy = args.length > 1 ? args[1] : "yield";
+        log.info("{} calls per run, '{}' waiting on both sides", calls, waitStrategy);
+
+        RpcLatencyBenchmark benchmark = new RpcLatencyBenchmark();
+        benchmark.run("In-process", calls, waitStrategy, false);
+        benchmark.run("Two processes", calls, waitStrategy, true);
+
+        log.info("RPC Latency Benchmark completed");
+    }
+
+    private void run(String name, int calls, String waitStrategy, boolean separateProcess) throws Exception {
+        log.info("\n=== {} ===", name);
+        File dir = new File(DATA_DIR, separateProcess ? "two-process" : "in-process");
+        deleteDirectory(dir);
+
+        Process serverProcess = null;
+        RpcServer server = null;
+        try (ChronicleQueue requests = SingleChronicleQueueBuilder.single(new File(dir, "requests").getPath()).build();
+             ChronicleQueue responses = SingleChronicleQueueBuilder.single(new File(dir, "responses").getPath()).build()) {
+            if (separateProcess) {
+                serverProcess = startServerProcess(dir, waitStrategy);
+            } else {
+                server = new RpcServer(requests, responses, "doubler", RpcLatencyBenchmark::doubler,
+                    waitStrategy(waitStrategy)).start();
+            }
+
+            try (RpcClient client = new RpcClient(requests, responses, 1, waitStrategy(waitStrategy).get())) {
+                long[] value = new long[1];
+                long[] result = new long[1];
+                Consumer<Bytes<?>> request = bytes -> bytes.writeLong(value[0]);
+                Consumer<Bytes<?>> response = bytes -> result[0] = bytes.readLong();
+
+                // The first call also waits for a server process to start
+                long startupDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (!client.call(request, response, 100, TimeUnit.MILLISECONDS)) {
+                    if (System.nanoTime() > startupDeadline) {
+                        throw new IllegalStateException("RPC server did not answer within 30 s");
+                    }
+                }
+                for (int i = 0; i < WARMUP_CALLS; i++) {
+                    value[0] = i;
+                    client.call(request, response, 1, TimeUnit.SECONDS);
+                }
+
+                LatencyHistogram roundTrips = new LatencyHistogram();
+                int wrong = 0;
+                int timedOut = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < calls; i++) {
+                    value[0] = i;
+                    long sent = System.nanoTime();
+                    if (!client.call(request, response, 1, TimeUnit.SECONDS)) {
+                        timedOut++;
+                        continue;
+                    }
+                    roundTrips.recordValue(System.nanoTime() - sent);
+                    if (result[0] != 2L * i) {
+                        wrong++;
+                    }
+                }
+                long duration = System.nanoTime() - start;
+
+                log.info("Round trip: {}", roundTrips.toSummaryString());
+                log.info("Calls: {} ({} calls/sec), timed out: {}, wrong results: {}",
+                    calls, (calls * 1_000_000_000L) / duration, timedOut, wrong);
+            }
+
+            demultiplexing(requests, responses, waitStrategy);
+
+            // With the server gone, calls give up at their timeout
+            if (separateProcess) {
+                serverProcess.destroy();
+                serverProcess.waitFor(10, TimeUnit.SECONDS);
+            } else {
+                server.close();
+            }
+            try (RpcClient client = new RpcClient(requests, responses, 99, waitStrategy(waitStrategy).get())) {
+                long sent = System.nanoTime();
+                boolean answered = client.call(bytes -> bytes.writeLong(1), bytes -> { }, 50, TimeUnit.MILLISECONDS);
+                log.info("Call with no server: answered={}, gave up after {} ms", answered,
+                    (System.nanoTime() - sent) / 1_000_000);
+            }
+        } finally {
+            if (serverProcess != null && serverProcess.isAlive()) {
+                serverProcess.destroyForcibly();
+            }
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Several callers at once over the same queue pair, each checking it only gets its own answers
+     */
+    private void demultiplexing(ChronicleQueue requests, ChronicleQueue responses, String waitStrategy)
+            throws InterruptedException {
+        AtomicLong answered = new AtomicLong();
+        AtomicLong wrong = new AtomicLong();
+        List<Thread> callers = new ArrayList<>();
+        for (int c = 0; c < DEMUX_CALLERS; c++) {
+            int callerId = 10 + c;
+            Thread thread = new Thread(() -> {
+                try (RpcClient client = new RpcClient(requests, responses, callerId, waitStrategy(waitStrategy).get())) {
+                    long[] result = new long[1];
+                    for (int i = 0; i < DEMUX_CALLS; i++) {
+                        long value = (long) callerId << 32 | i;
+                        if (client.call(bytes -> bytes.writeLong(value), bytes -> result[0] = bytes.readLong(),
+                                1, TimeUnit.SECONDS)) {
+                            answered.incrementAndGet();
+                            if (result[0] != 2 * value) {
+                                wrong.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            }, "rpc-caller-" + c);
+            thread.start();
+            callers.add(thread);
+        }
+        for (Thread thread : callers) {
+            thread.join();
+        }
+        log.info("{} concurrent callers: {} of {} calls answered, {} with another call's answer",
+            DEMUX_CALLERS, answered.get(), DEMUX_CALLERS * DEMUX_CALLS, wrong.get());
+    }
+
+    private static void doubler(Bytes<?> request, Bytes<?> response) {
+        response.writeLong(2 * request.readLong());
+    }
+
+    private static Supplier<WaitStrategy> waitStrategy(String name) {
+        switch (name) {
+            case "spin":
+                return WaitStrategies::busySpin;
+            case "yield":
+                return () -> WaitStrategies.spinThenYield(1_000);
+            case "backoff":
+                return () -> WaitStrategies.progressiveBackoff(1_000, 100, 100, TimeUnit.MICROSECONDS);
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+
+    private Process startServerProcess(File dir, String waitStrategy) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(RpcLatencyBenchmark.class.getName());
+        command.add(SERVER);
+        command.add(dir.getPath());
+        command.add(waitStrategy);
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /**
+     * Server side of the two-process run; stops when the process that started it exits
+     */
+    private static void serve(File dir, String waitStrategy) throws InterruptedException {
+        try (ChronicleQueue requests = SingleChronicleQueueBuilder.single(new File(dir, "requests").getPath()).build();
+             ChronicleQueue responses = SingleChronicleQueueBuilder.single(new File(dir, "responses").getPath()).build();
+             RpcServer server = new RpcServer(requests, responses, "doubler", RpcLatencyBenchmark::doubler,
+                 waitStrategy(waitStrategy)).start()) {
+            log.info("RPC server process {} serving {}", ProcessHandle.current().pid(), dir);
+            while (ProcessHandle.current().parent().map(ProcessHandle::isAlive).orElse(false)) {
+                TimeUnit.MILLISECONDS.sleep(200);
+            }
+        }
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        directory.delete();
+    }
+}
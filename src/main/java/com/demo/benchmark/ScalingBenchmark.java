@@ -0,0 +1,418 @@
+package com.demo.benchmark;
+
+import com.demo.model.User;
+import com.demo.util.DataGenerator;
+import com.demo.util.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * How throughput and latency of ChronicleMap, ConcurrentHashMap and Chronicle Queue change with
+ * the number of threads using them at once.
+ * <p>
+ * Each target runs a read-only, a mixed (80% reads) and a write-heavy (80% writes) workload at
+ * 1, 2, 4, ... threads up to the maximum, every thread running flat out for a fixed time. Map
+ * reads and writes hit random keys of a pre-filled map; queue writes append to one shared queue
+ * and queue reads go through a tailer of the thread's own, wrapping to the start at the end.
+ * Every {@value #SAMPLE_EVERY}th operation is timed, keeping the clock out of most of them.
+ * <p>
+ * Efficiency is aggregate throughput over that of one thread times the thread count: 1.0 is
+ * linear scaling. Results are logged and written as CSV. Usage:
+ * {@code ScalingBenchmark [maxThreads] [secondsPerRun] [csvFile]}; maxThreads defaults to the
+ * available processors.
+ */
+@Slf4j
+public class ScalingBenchmark {
+
+    private static final String DATA_DIR = "chronicle-demo-data/benchmark/scaling";
+    private static final int KEYS = 100_000;
+    private static final int VALUES = 1_024;
+    private static final int PREFILLED_MESSAGES = 1_000_000;
+    private static final int SAMPLE_EVERY = 8;
+    private static final long WARM_UP_MILLIS = 2_000;
+
+    private static final String[] WORKLOADS = {"read-only", "mixed", "write-heavy"};
+    private static final int[] READ_PERCENT = {100, 80, 20};
+
+    private final User[] values = new User[VALUES];
+
+    public static void main(String[] args) {
+        log.info("Thread Scaling Benchmark");
+        log.info("========================");
+
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long runMillis = TimeUnit.SECONDS.toMillis(args.length > 1 ? Long.parseLong(args[1]) : 3);
+        File csvFile = new File(args.length > 2 ? args[2] : DATA_DIR + "/scaling.csv");
+        List<Integer> threadCounts = threadCounts(maxThreads);
+        log.info("Threads {}, {} ms per run, {} processors available", threadCounts, runMillis,
+            Runtime.getRuntime().availableProcessors());
+
+        ScalingBenchmark benchmark = new ScalingBenchmark();
+        List<Result> results = new ArrayList<>();
+        try {
+            new File(DATA_DIR).mkdirs();
+            for (int i = 0; i < VALUES; i++) {
+                benchmark.values[i] = DataGenerator.generateUser((long) i);
+            }
+
+            try (Target target = benchmark.chronicleMap()) {
+                results.addAll(benchmark.scale(target, threadCounts, runMillis));
+            }
+            try (Target target = benchmark.concurrentHashMap()) {
+                results.addAll(benchmark.scale(target, threadCounts, runMillis));
+            }
+            try (Target target = benchmark.chronicleQueue()) {
+                results.addAll(benchmark.scale(target, threadCounts, runMillis));
+            }
+
+            writeCsv(results, csvFile);
+            log.info("\nResults written to {}", csvFile.getAbsolutePath());
+        } catch (Exception e) {
+            log.error("Benchmark failed", e);
+        }
+
+        log.info("Scaling Benchmark completed");
+    }
+
+    /**
+     * 1, 2, 4, ... below {@code maxThreads}, then {@code maxThreads} itself
+     */
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+
+    private List<Result> scale(Target target, List<Integer> threadCounts, long runMillis) throws InterruptedException {
+        log.info("\n=== {} ===", target.name);
+        log.info(String.format("%-12s %7s %14s %14s %9s %10s %10s %10s %10s %12s",
+            "workload", "threads", "total ops/s", "per-thread", "speedup", "efficiency",
+            "p50 ns", "p99 ns", "p99.9 ns", "max ns"));
+
+        List<Result> results = new ArrayList<>();
+        for (int w = 0; w < WORKLOADS.length; w++) {
+            // Compile the paths and settle the JIT before the single-thread baseline
+            run(target, WORKLOADS[w], READ_PERCENT[w], 1, WARM_UP_MILLIS);
+
+            Result baseline = null;
+            for (int threads : threadCounts) {
+                Result result = run(target, WORKLOADS[w], READ_PERCENT[w], threads, runMillis);
+                if (baseline == null) {
+                    baseline = result;
+                }
+                result.speedup = result.aggregateOpsPerSec / baseline.aggregateOpsPerSec;
+                result.efficiency = result.speedup / threads;
+                results.add(result);
+                log.info(String.format("%-12s %7d %,14.0f %,14.0f %8.2fx %10.2f %,10d %,10d %,10d %,12d",
+                    result.workload, threads, result.aggregateOpsPerSec, result.perThreadOpsPerSec,
+                    result.speedup, result.efficiency, result.latencies.getValueAtPercentile(50.0),
+                    result.latencies.getValueAtPercentile(99.0), result.latencies.getValueAtPercentile(99.9),
+                    result.latencies.getMax()));
+            }
+        }
+        return results;
+    }
+
+    private Result run(Target target, String workload, int readPercent, int threads, long runMillis)
+            throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean stop = new AtomicBoolean();
+        long[] operations = new long[threads];
+        long[] durations = new long[threads];
+        LatencyHistogram[] latencies = new LatencyHistogram[threads];
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            latencies[id] = new LatencyHistogram();
+            Thread thread = new Thread(() -> {
+                // Precomputed so the random number generator stays out of the loop
+                int[] keys = new int[4_096];
+                boolean[] reads = new boolean[keys.length];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = random.nextInt(KEYS);
+                    reads[i] = random.nextInt(100) < readPercent;
+                }
+                try (Worker worker = target.newWorker()) {
+                    ready.countDown();
+                    start.await();
+                    LatencyHistogram histogram = latencies[id];
+                    long ops = 0;
+                    long began = System.nanoTime();
+                    while (true) {
+                        int i = (int) (ops & (keys.length - 1));
+                        if ((ops & (SAMPLE_EVERY - 1)) == 0) {
+                            if (stop.get()) {
+                                break;
+                            }
+                            long opStart = System.nanoTime();
+                            operate(worker, reads[i], keys[i]);
+                            histogram.recordValue(System.nanoTime() - opStart);
+                        } else {
+                            operate(worker, reads[i], keys[i]);
+                        }
+                        ops++;
+                    }
+                    durations[id] = System.nanoTime() - began;
+                    operations[id] = ops;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "scaling-" + target.name + "-" + t);
+            workers.add(thread);
+            thread.start();
+        }
+
+        ready.await();
+        start.countDown();
+        TimeUnit.MILLISECONDS.sleep(runMillis);
+        stop.set(true);
+        for (Thread thread : workers) {
+            thread.join();
+        }
+
+        Result result = new Result(target.name, workload, threads);
+        for (int t = 0; t < threads; t++) {
+            double opsPerSec = operations[t] * 1e9 / Math.max(durations[t], 1);
+            result.aggregateOpsPerSec += opsPerSec;
+            result.minThreadOpsPerSec = t == 0 ? opsPerSec : Math.min(result.minThreadOpsPerSec, opsPerSec);
+            result.latencies.add(latencies[t]);
+        }
+        result.perThreadOpsPerSec = result.aggregateOpsPerSec / threads;
+        return result;
+    }
+
+    private void operate(Worker worker, boolean read, int key) {
+        if (read) {
+            worker.read(key);
+        } else {
+            worker.write(key, values[key & (VALUES - 1)]);
+        }
+    }
+
+    /**
+     * Reads deserialise into a User of the worker's own and puts skip returning the previous value,
+     * so neither allocates; ConcurrentHashMap hands out references, so the gap between the two is
+     * the cost of copying values in and out of off-heap memory
+     */
+    private Target chronicleMap() throws IOException {
+        File file = new File(DATA_DIR, "chronicle-map.dat");
+        file.delete();
+        ChronicleMap<Long, User> map = ChronicleMap
+                .of(Long.class, User.class)
+                .name("scaling-users")
+                .entries(KEYS)
+                .averageValueSize(256)
+                .putReturnsNull(true)
+                .createPersistedTo(file);
+        prefill(map);
+        return new Target("ChronicleMap", () -> new Worker() {
+            private final User reusable = new User();
+
+            @Override
+            public void read(long key) {
+                map.getUsing(key, reusable);
+            }
+
+            @Override
+            public void write(long key, User user) {
+                map.put(key, user);
+            }
+        }, map::close);
+    }
+
+    private Target concurrentHashMap() {
+        Map<Long, User> map = new ConcurrentHashMap<>(KEYS);
+        prefill(map);
+        return new Target("ConcurrentHashMap", () -> new Worker() {
+            @Override
+            public void read(long key) {
+                map.get(key);
+            }
+
+            @Override
+            public void write(long key, User user) {
+                map.put(key, user);
+            }
+        }, map::clear);
+    }
+
+    /**
+     * Reads are a tailer per thread over a pre-filled queue; writes are appends from every thread
+     * to the same queue, which serialises on its write lock
+     */
+    private Target chronicleQueue() {
+        File dir = new File(DATA_DIR, "queue");
+        deleteDirectory(dir);
+        ChronicleQueue queue = SingleChronicleQueueBuilder.single(dir.getPath()).build();
+        try (ExcerptAppender appender = queue.createAppender()) {
+            for (int i = 0; i < PREFILLED_MESSAGES; i++) {
+                append(appender, i, values[i & (VALUES - 1)]);
+            }
+        }
+        return new Target("ChronicleQueue", () -> new Worker() {
+            private final ExcerptAppender appender = queue.createAppender();
+            private final ExcerptTailer tailer = queue.createTailer();
+
+            @Override
+            public void read(long key) {
+                if (!readOne()) {
+                    tailer.toStart();
+                    readOne();
+                }
+            }
+
+            private boolean readOne() {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent()) {
+                        return false;
+                    }
+                    Bytes<?> bytes = dc.wire().bytes();
+                    bytes.readLong();
+                    bytes.readLong();
+                    return true;
+                }
+            }
+
+            @Override
+            public void write(long key, User user) {
+                append(appender, key, user);
+            }
+
+            @Override
+            public void close() {
+                tailer.close();
+                appender.close();
+            }
+        }, queue::close);
+    }
+
+    private void prefill(Map<Long, User> map) {
+        for (int key = 0; key < KEYS; key++) {
+            map.put((long) key, values[key & (VALUES - 1)]);
+        }
+    }
+
+    private static void append(ExcerptAppender appender, long key, User user) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(key);
+            bytes.writeLong(user.getUserId());
+        }
+    }
+
+    private static void writeCsv(List<Result> results, File csvFile) throws IOException {
+        csvFile.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csvFile.toPath()))) {
+            out.println("target,workload,threads,aggregate_ops_per_sec,per_thread_ops_per_sec,"
+                + "min_thread_ops_per_sec,speedup,efficiency,p50_ns,p90_ns,p99_ns,p99_9_ns,max_ns");
+            for (Result result : results) {
+                LatencyHistogram latencies = result.latencies;
+                out.printf("%s,%s,%d,%.0f,%.0f,%.0f,%.3f,%.3f,%d,%d,%d,%d,%d%n",
+                    result.target, result.workload, result.threads, result.aggregateOpsPerSec,
+                    result.perThreadOpsPerSec, result.minThreadOpsPerSec, result.speedup, result.efficiency,
+                    latencies.getValueAtPercentile(50.0), latencies.getValueAtPercentile(90.0),
+                    latencies.getValueAtPercentile(99.0), latencies.getValueAtPercentile(99.9),
+                    latencies.getMax());
+            }
+        }
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * One thread's handle on a target, created and used on that thread
+     */
+    private interface Worker extends AutoCloseable {
+
+        void read(long key);
+
+        void write(long key, User user);
+
+        @Override
+        default void close() {
+        }
+    }
+
+    private interface WorkerFactory {
+        Worker newWorker();
+    }
+
+    private static final class Target implements Closeable {
+
+        private final String name;
+        private final WorkerFactory workers;
+        private final Runnable onClose;
+
+        private Target(String name, WorkerFactory workers, Runnable onClose) {
+            this.name = name;
+            this.workers = workers;
+            this.onClose = onClose;
+        }
+
+        Worker newWorker() {
+            return workers.newWorker();
+        }
+
+        @Override
+        public void close() {
+            onClose.run();
+        }
+    }
+
+    private static final class Result {
+
+        private final String target;
+        private final String workload;
+        private final int threads;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private double aggregateOpsPerSec;
+        private double perThreadOpsPerSec;
+        private double minThreadOpsPerSec;
+        private double speedup;
+        private double efficiency;
+
+        private Result(String target, String workload, int threads) {
+            this.target = target;
+            this.workload = workload;
+            this.threads = threads;
+        }
+    }
+}
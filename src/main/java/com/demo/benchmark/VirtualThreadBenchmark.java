@@ -0,0 +1,184 @@
+package com.demo.benchmark;
+
+import com.demo.queue.TailerRuntime;
+import com.demo.queue.WaitStrategies;
+import com.demo.queue.WaitStrategy;
+import com.demo.util.LatencyHistogram;
+import com.demo.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Thousands of low-rate consumers, each tailing one of a set of queues, run by a
+ * {@link TailerRuntime} on virtual threads and on a small platform-thread pool.
+ * <p>
+ * Reports the heap, resident memory and OS threads the consumers add, and the delay from append to
+ * delivery when every queue gets one message per round. Usage:
+ * {@code VirtualThreadBenchmark [tailers] [queues] [rounds] [poolThreads]}; the virtual-thread run
+ * needs Java 21, e.g. {@code mvn -Pjava21 compile exec:java}.
+ */
+@Slf4j
+public class VirtualThreadBenchmark {
+
+    private static final String DATA_DIR = "chronicle-demo-data/benchmark/virtual-threads";
+    private static final long ROUND_INTERVAL_MILLIS = 20;
+    private static final long DELIVERY_TIMEOUT_SECONDS = 60;
+
+    public static void main(String[] args) {
+        log.info("Virtual Thread Consumer Benchmark");
+        log.info("=================================");
+
+        int tailers = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int queues = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int poolThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        log.info("{} tailers over {} queues, {} rounds of one message per queue, Java {}",
+            tailers, queues, rounds, System.getProperty("java.version"));
+
+        VirtualThreadBenchmark benchmark = new VirtualThreadBenchmark();
+        try {
+            benchmark.run("Platform pool (" + poolThreads + " threads)", tailers, queues, rounds,
+                () -> TailerRuntime.platformPool("tailer-pool", poolThreads,
+                    () -> WaitStrategies.progressiveBackoff(100, 10, 1, TimeUnit.MILLISECONDS)));
+
+            if (VirtualThreads.isSupported()) {
+                benchmark.run("Virtual threads", tailers, queues, rounds,
+                    () -> TailerRuntime.virtualThreads("tailer"));
+            } else {
+                log.info("\nVirtual threads need Java 21; build and run with -Pjava21 to compare");
+            }
+        } catch (Exception e) {
+            log.error("Benchmark failed", e);
+        }
+
+        log.info("Virtual Thread Benchmark completed");
+    }
+
+    private void run(String name, int tailers, int queueCount, int rounds,
+                     Supplier<TailerRuntime> runtimeFactory) throws Exception {
+        log.info("\n=== {} ===", name);
+        File dir = new File(DATA_DIR);
+        deleteDirectory(dir);
+
+        List<ChronicleQueue> queues = new ArrayList<>();
+        List<ExcerptAppender> appenders = new ArrayList<>();
+        List<WaitStrategy> wakeups = new ArrayList<>();
+        for (int q = 0; q < queueCount; q++) {
+            ChronicleQueue queue = SingleChronicleQueueBuilder.single(new File(dir, "q" + q).getPath()).build();
+            queues.add(queue);
+            appenders.add(queue.createAppender());
+            wakeups.add(WaitStrategies.parkWithWakeup(100, TimeUnit.MILLISECONDS));
+        }
+
+        // One histogram per consumer, so handlers never contend or pin a carrier on a shared lock;
+        // a compact layout (~3% precision up to the delivery timeout), allocated before the baseline
+        List<LatencyHistogram> deliveries = new ArrayList<>(tailers);
+        for (int t = 0; t < tailers; t++) {
+            deliveries.add(new LatencyHistogram(TimeUnit.SECONDS.toNanos(DELIVERY_TIMEOUT_SECONDS), 5));
+        }
+        long heapBefore = usedHeapAfterGc();
+        long rssBefore = residentMemory();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        TailerRuntime runtime = runtimeFactory.get();
+        try {
+            long start = System.nanoTime();
+            for (int t = 0; t < tailers; t++) {
+                int q = t % queueCount;
+                LatencyHistogram delivery = deliveries.get(t);
+                runtime.subscribe(queues.get(q), null, wakeups.get(q),
+                    bytes -> delivery.recordValue(System.nanoTime() - bytes.readLong()));
+            }
+            while (runtime.getActive() < tailers) {
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            log.info("Started {} consumers in {} ms", tailers, (System.nanoTime() - start) / 1_000_000);
+
+            long heapAfter = usedHeapAfterGc();
+            long rssAfter = residentMemory();
+            int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+            log.info(String.format("Heap: +%.1f MB (%d bytes per consumer), RSS: +%.1f MB (%d bytes per consumer), OS threads: +%d",
+                (heapAfter - heapBefore) / 1e6, (heapAfter - heapBefore) / tailers,
+                (rssAfter - rssBefore) / 1e6, (rssAfter - rssBefore) / tailers, threadsAfter - threadsBefore));
+
+            for (int round = 0; round < rounds; round++) {
+                for (int q = 0; q < queueCount; q++) {
+                    try (DocumentContext dc = appenders.get(q).writingDocument()) {
+                        dc.wire().bytes().writeLong(System.nanoTime());
+                    }
+                    wakeups.get(q).signal();
+                }
+                TimeUnit.MILLISECONDS.sleep(ROUND_INTERVAL_MILLIS);
+            }
+
+            long expected = (long) rounds * tailers;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DELIVERY_TIMEOUT_SECONDS);
+            while (runtime.getDelivered() < expected && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            log.info("Delivered {} of {} messages, {} handler errors", runtime.getDelivered(), expected,
+                runtime.getErrors());
+        } finally {
+            runtime.close();
+            appenders.forEach(ExcerptAppender::close);
+            queues.forEach(ChronicleQueue::close);
+        }
+
+        // Merged once the runtime has stopped its consumers
+        LatencyHistogram delivery = new LatencyHistogram(TimeUnit.SECONDS.toNanos(DELIVERY_TIMEOUT_SECONDS), 5);
+        deliveries.forEach(delivery::add);
+        log.info("Append to delivery: {}", delivery.toSummaryString());
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Resident set size in bytes, from /proc on Linux; 0 elsewhere
+     */
+    private static long residentMemory() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Could not read resident memory", e);
+        }
+        return 0;
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        directory.delete();
+    }
+}
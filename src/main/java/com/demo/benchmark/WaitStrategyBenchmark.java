@@ -0,0 +1,127 @@
+package com.demo.benchmark;
+
+import com.demo.queue.WaitStrategies;
+import com.demo.queue.WaitStrategy;
+import com.demo.util.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares consumer wait strategies: delivery latency of paced messages against the CPU
+ * time the consumer thread burns while waiting for them
+ */
+@Slf4j
+public class WaitStrategyBenchmark {
+
+    private static final String DATA_DIR = "chronicle-demo-data/benchmark/wait-strategies";
+    private static final int WARM_UP_MESSAGES = 2_000;
+    private static final int MESSAGE_COUNT = 20_000;
+    private static final long INTERVAL_NANOS = 100_000; // 10k messages/sec, idle between each
+
+    public static void main(String[] args) {
+        log.info("Consumer Wait Strategy Benchmark");
+        log.info("================================");
+
+        Map<String, Supplier<WaitStrategy>> strategies = new LinkedHashMap<>();
+        strategies.put("sleep(1)", () -> WaitStrategies.sleep(1));
+        strategies.put("busy-spin", WaitStrategies::busySpin);
+        strategies.put("spin-then-yield", () -> WaitStrategies.spinThenYield(1_000));
+        strategies.put("progressive-backoff", () -> WaitStrategies.progressiveBackoff(100, 10, 1, TimeUnit.MILLISECONDS));
+        strategies.put("park-with-wakeup", () -> WaitStrategies.parkWithWakeup(1, TimeUnit.MILLISECONDS));
+
+        WaitStrategyBenchmark benchmark = new WaitStrategyBenchmark();
+        try {
+            new File(DATA_DIR).mkdirs();
+
+            log.info(String.format("%-20s %10s %10s %10s %12s %8s", "strategy", "p50 ns", "p99 ns", "p99.9 ns", "max ns", "cpu %"));
+            for (Map.Entry<String, Supplier<WaitStrategy>> entry : strategies.entrySet()) {
+                benchmark.run(entry.getKey(), entry.getValue().get());
+            }
+        } catch (Exception e) {
+            log.error("Benchmark failed", e);
+        }
+
+        log.info("Wait Strategy Benchmark completed");
+    }
+
+    private void run(String name, WaitStrategy waitStrategy) throws InterruptedException {
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(DATA_DIR + "/" + name)
+                .build()) {
+
+            int totalMessages = WARM_UP_MESSAGES + MESSAGE_COUNT;
+            LatencyHistogram latencies = new LatencyHistogram();
+            long[] consumerCpu = new long[2];
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+            Thread consumer = new Thread(() -> {
+                try (ExcerptTailer tailer = queue.createTailer().toEnd()) {
+                    int received = 0;
+                    int idleCount = 0;
+                    long cpuStart = 0;
+                    long wallStart = 0;
+
+                    while (received < totalMessages) {
+                        try (DocumentContext dc = tailer.readingDocument()) {
+                            if (dc.isPresent()) {
+                                long latency = System.nanoTime() - dc.wire().bytes().readLong();
+                                if (received >= WARM_UP_MESSAGES) {
+                                    latencies.recordValue(latency);
+                                } else if (received == WARM_UP_MESSAGES - 1) {
+                                    cpuStart = threads.getCurrentThreadCpuTime();
+                                    wallStart = System.nanoTime();
+                                }
+                                received++;
+                                if (idleCount > 0) {
+                                    idleCount = 0;
+                                    waitStrategy.reset();
+                                }
+                                continue;
+                            }
+                        }
+                        waitStrategy.idle(++idleCount);
+                    }
+
+                    consumerCpu[0] = threads.getCurrentThreadCpuTime() - cpuStart;
+                    consumerCpu[1] = System.nanoTime() - wallStart;
+                }
+            }, "consumer-" + name);
+            consumer.start();
+            Thread.sleep(100); // Let the consumer reach its wait loop
+
+            try (ExcerptAppender appender = queue.createAppender()) {
+                long next = System.nanoTime();
+                for (int i = 0; i < totalMessages; i++) {
+                    // Pace the producer so the consumer really goes idle between messages
+                    next += INTERVAL_NANOS;
+                    while (System.nanoTime() < next) {
+                        Thread.onSpinWait();
+                    }
+                    try (DocumentContext dc = appender.writingDocument()) {
+                        dc.wire().bytes().writeLong(System.nanoTime());
+                    }
+                    waitStrategy.signal();
+                }
+            }
+            consumer.join();
+
+            log.info(String.format("%-20s %10d %10d %10d %12d %7.1f%%", name,
+                latencies.getValueAtPercentile(50.0),
+                latencies.getValueAtPercentile(99.0),
+                latencies.getValueAtPercentile(99.9),
+                latencies.getMax(),
+                100.0 * consumerCpu[0] / consumerCpu[1]));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.demo.map;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.map.ChronicleMap;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * ChronicleMap guarded by an {@link OffHeapBloomFilter}.
+ * <p>
+ * Definite misses are answered from the filter and never reach the map's hash lookup or its
+ * (possibly cold) segment pages. Writes go through this wrapper so the filter stays a superset
+ * of the map's keys; removals leave stale bits until {@link #rebuildFilter()}.
+ */
+@Slf4j
+public class BloomFilteredMap<K, V> implements Closeable {
+
+    @Getter
+    private final ChronicleMap<K, V> map;
+    @Getter
+    private final OffHeapBloomFilter filter;
+    private final ToLongFunction<K> keyHash;
+
+    // Bumped by every concurrent reader, summed only on demand
+    private final LongAdder filteredMisses = new LongAdder();
+    private final LongAdder mapLookups = new LongAdder();
+
+    public BloomFilteredMap(ChronicleMap<K, V> map, OffHeapBloomFilter filter, ToLongFunction<K> keyHash) {
+        this.map = map;
+        this.filter = filter;
+        this.keyHash = keyHash;
+
+        // A fresh filter next to an existing map file must learn the keys already stored
+        if (filter.approximateCount() == 0 && !map.isEmpty()) {
+            rebuildFilter();
+        }
+    }
+
+    /**
+     * Wrap a map with long keys
+     */
+    public static <V> BloomFilteredMap<Long, V> forLongKeys(ChronicleMap<Long, V> map, OffHeapBloomFilter filter) {
+        return new BloomFilteredMap<>(map, filter, OffHeapBloomFilter::mix);
+    }
+
+    /**
+     * Wrap a map with string keys
+     */
+    public static <V> BloomFilteredMap<String, V> forStringKeys(ChronicleMap<String, V> map, OffHeapBloomFilter filter) {
+        return new BloomFilteredMap<>(map, filter, OffHeapBloomFilter::hash);
+    }
+
+    public V put(K key, V value) {
+        filter.putHash(keyHash.applyAsLong(key));
+        return map.put(key, value);
+    }
+
+    public V get(K key) {
+        if (!filter.mightContainHash(keyHash.applyAsLong(key))) {
+            filteredMisses.increment();
+            return null;
+        }
+        mapLookups.increment();
+        return map.get(key);
+    }
+
+    public boolean containsKey(K key) {
+        if (!filter.mightContainHash(keyHash.applyAsLong(key))) {
+            filteredMisses.increment();
+            return false;
+        }
+        mapLookups.increment();
+        return map.containsKey(key);
+    }
+
+    public V remove(K key) {
+        return map.remove(key);
+    }
+
+    public long size() {
+        return map.longSize();
+    }
+
+    /**
+     * Clear the filter and re-add every key currently in the map
+     */
+    public void rebuildFilter() {
+        long start = System.nanoTime();
+        filter.clear();
+        map.forEachEntry(entry -> filter.putHash(keyHash.applyAsLong(entry.key().get())));
+        log.info("Rebuilt Bloom filter from {} map entries in {} ms",
+            map.longSize(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Lookups answered by the filter alone
+     */
+    public long getFilteredMisses() {
+        return filteredMisses.sum();
+    }
+
+    /**
+     * Lookups that had to go to the map (hits and false positives)
+     */
+    public long getMapLookups() {
+        return mapLookups.sum();
+    }
+
+    @Override
+    public void close() {
+        filter.close();
+        map.close();
+    }
+}
@@ -10,6 +10,9 @@ import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -33,10 +36,14 @@ public class ChronicleMapDemo {
             
             // Run different demos
             demo.basicUsageDemo();
+            demo.bloomFilterDemo();
             demo.performanceDemo();
+            demo.writeBehindDemo();
             demo.persistenceDemo();
             demo.concurrencyDemo();
             demo.memoryEfficiencyDemo();
+            demo.mapRegistryDemo();
+            demo.tieredStorageDemo();
             
         } catch (Exception e) {
             log.error("Demo failed", e);
@@ -85,6 +92,82 @@ public class ChronicleMapDemo {
         }
     }
     
+    /**
+     * Bloom filter guarded lookups for keys that mostly do not exist
+     */
+    public void bloomFilterDemo() throws IOException {
+        log.info("\n--- Bloom Filter Demo ---");
+        
+        int userCount = 50_000;
+        int probeCount = 500_000;
+        
+        File filterFile = new File(DATA_DIR, "users-bloom.dat");
+        filterFile.delete();
+        
+        try (BloomFilteredMap<Long, User> users = BloomFilteredMap.forLongKeys(
+                ChronicleMap
+                    .of(Long.class, User.class)
+                    .entries(userCount * 2L)
+                    .averageValueSize(256)
+                    .createPersistedTo(new File(DATA_DIR, "users-bloom-guarded.dat")),
+                OffHeapBloomFilter.createPersistedTo(filterFile, userCount * 2L, 0.01))) {
+            
+            for (long i = 1; i <= userCount; i++) {
+                users.put(i, DataGenerator.generateUser(i));
+            }
+            
+            OffHeapBloomFilter filter = users.getFilter();
+            log.info("Filter: {} bits, {} hashes, {} KB, expected FP rate {}",
+                filter.getNumBits(), filter.getNumHashes(), filter.sizeInBytes() / 1024,
+                String.format("%.4f%%", filter.expectedFalsePositiveRate() * 100));
+            
+            // Probe keys that are guaranteed to be absent
+            long missBase = 10_000_000L;
+            long found = 0;
+            
+            // Warm both paths on other absent keys first, so neither timed loop runs cold
+            long warmUpBase = missBase + probeCount;
+            for (long i = 0; i < probeCount; i++) {
+                users.getMap().containsKey(warmUpBase + i);
+                users.containsKey(warmUpBase + i);
+            }
+            long filteredMissesBefore = users.getFilteredMisses();
+            long mapLookupsBefore = users.getMapLookups();
+            
+            long startTime = System.nanoTime();
+            for (long i = 0; i < probeCount; i++) {
+                if (users.getMap().containsKey(missBase + i)) {
+                    found++;
+                }
+            }
+            long mapDuration = System.nanoTime() - startTime;
+            
+            startTime = System.nanoTime();
+            for (long i = 0; i < probeCount; i++) {
+                if (users.containsKey(missBase + i)) {
+                    found++;
+                }
+            }
+            long filteredDuration = System.nanoTime() - startTime;
+            
+            long filteredMisses = users.getFilteredMisses() - filteredMissesBefore;
+            long mapLookups = users.getMapLookups() - mapLookupsBefore;
+            double observedFpRate = (double) mapLookups / probeCount;
+            double mapLatency = (double) mapDuration / probeCount;
+            double filteredLatency = (double) filteredDuration / probeCount;
+            
+            log.info("Negative Lookup Results:");
+            log.info("  Probes (all misses): {}", probeCount);
+            log.info("  Unexpected hits: {}", found);
+            log.info("  Answered by filter: {}", filteredMisses);
+            log.info("  False positives (went to map): {}", mapLookups);
+            log.info("  Observed FP rate: {}", String.format("%.4f%%", observedFpRate * 100));
+            log.info("  Map containsKey latency: {} ns", String.format("%.1f", mapLatency));
+            log.info("  Filtered containsKey latency: {} ns", String.format("%.1f", filteredLatency));
+            log.info("  Latency saved per miss: {} ns", String.format("%.1f", mapLatency - filteredLatency));
+        }
+    }
+    
     /**
      * Performance benchmarking
      */
@@ -199,6 +282,61 @@ public class ChronicleMapDemo {
         log.info("  Average latency: {} nanoseconds", duration / updateCount);
     }
     
+    /**
+     * Write-behind coalescing of hot-key market data updates
+     */
+    public void writeBehindDemo() throws IOException {
+        log.info("\n--- Write-Behind Demo ---");
+        
+        int symbolCount = 1_000;
+        int tickCount = 200_000;
+        
+        // Pre-generate ticks so only map writes are timed
+        MarketData[] ticks = new MarketData[symbolCount];
+        String[] symbols = new String[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = "HOT_" + i;
+            ticks[i] = DataGenerator.generateMarketData(symbols[i]);
+        }
+        
+        try (ChronicleMap<String, MarketData> marketDataMap = ChronicleMap
+                .of(String.class, MarketData.class)
+                .entries(symbolCount * 2)
+                .averageKeySize(10)
+                .averageValueSize(200)
+                .createPersistedTo(new File(DATA_DIR, "market-data-hot.dat"))) {
+            
+            // Every tick goes straight to the map
+            long startTime = System.nanoTime();
+            for (int i = 0; i < tickCount; i++) {
+                int s = i % symbolCount;
+                marketDataMap.put(symbols[s], ticks[s]);
+            }
+            long directDuration = System.nanoTime() - startTime;
+            
+            // Ticks are coalesced and flushed every 10 ms
+            long bufferedDuration;
+            try (WriteBehindMap<String, MarketData> writeBehind =
+                         new WriteBehindMap<>(marketDataMap, 10, TimeUnit.MILLISECONDS, symbolCount)) {
+                startTime = System.nanoTime();
+                for (int i = 0; i < tickCount; i++) {
+                    int s = i % symbolCount;
+                    writeBehind.put(symbols[s], ticks[s]);
+                }
+                bufferedDuration = System.nanoTime() - startTime;
+                writeBehind.flush();
+                
+                log.info("Write-Behind Results:");
+                log.info("  Ticks: {} across {} symbols", tickCount, symbolCount);
+                log.info("  Direct put throughput: {} updates/sec", (tickCount * 1_000_000_000L) / directDuration);
+                log.info("  Write-behind throughput: {} updates/sec", (tickCount * 1_000_000_000L) / bufferedDuration);
+                log.info("  Map writes: {} in {} flushes", writeBehind.getEntriesFlushed(), writeBehind.getFlushCount());
+                log.info("  Coalescing ratio: {}", String.format("%.1f:1", writeBehind.getCoalescingRatio()));
+                log.info("  Max staleness: {} ms", writeBehind.getMaxStalenessNanos() / 1_000_000);
+            }
+        }
+    }
+    
     /**
      * Persistence demonstration
      */
@@ -342,4 +480,118 @@ public class ChronicleMapDemo {
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Lazily opened, LRU-bounded per-tenant maps
+     */
+    public void mapRegistryDemo() throws IOException, InterruptedException {
+        log.info("\n--- Map Registry Demo ---");
+        
+        int tenantCount = 100;
+        int maxOpenMaps = 16;
+        int accesses = 20_000;
+        
+        try (MapRegistry<Long, User> registry = new MapRegistry<>(
+                new File(DATA_DIR, "tenants"),
+                maxOpenMaps,
+                MapRegistry.opener(file -> ChronicleMap
+                        .of(Long.class, User.class)
+                        .entries(1_000)
+                        .averageValueSize(256)
+                        .createPersistedTo(file)))) {
+            
+            // Hot set opened up front, in parallel
+            List<String> hotTenants = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                hotTenants.add("tenant-" + i);
+            }
+            registry.preOpen(hotTenants, 4);
+            
+            long startTime = System.nanoTime();
+            for (int i = 0; i < accesses; i++) {
+                // 80% of traffic goes to the hot set
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int tenant = random.nextInt(10) < 8 ? random.nextInt(8) : random.nextInt(tenantCount);
+                
+                try (MapRegistry.Lease<Long, User> lease = registry.acquire("tenant-" + tenant)) {
+                    long userId = random.nextLong(100);
+                    if (lease.map().get(userId) == null) {
+                        lease.map().put(userId, DataGenerator.generateUser(userId));
+                    }
+                }
+            }
+            long duration = System.nanoTime() - startTime;
+            
+            log.info("Map Registry Results:");
+            log.info("  Tenants: {}, max open maps: {}", tenantCount, maxOpenMaps);
+            log.info("  Accesses: {} in {} ms", accesses, duration / 1_000_000);
+            log.info("  Registry hits: {}", registry.getHits());
+            log.info("  Map opens: {}", registry.getOpens());
+            log.info("  LRU evictions: {}", registry.getEvictions());
+            log.info("  Currently open: {}", registry.getOpenCount());
+        }
+    }
+    
+    /**
+     * Hot ChronicleMap tier with compressed cold segment files
+     */
+    public void tieredStorageDemo() throws IOException {
+        log.info("\n--- Tiered Storage Demo ---");
+        
+        int userCount = 50_000;
+        int maxHotEntries = 10_000;
+        int reads = 200_000;
+        
+        File hotFile = new File(DATA_DIR, "users-hot.dat");
+        File coldDir = new File(DATA_DIR, "users-cold");
+        hotFile.delete();
+        File[] oldSegments = coldDir.listFiles();
+        if (oldSegments != null) {
+            for (File segment : oldSegments) {
+                segment.delete();
+            }
+        }
+        
+        try (ChronicleMap<Long, User> hotMap = ChronicleMap
+                .of(Long.class, User.class)
+                .entries(maxHotEntries * 2)
+                .averageValueSize(256)
+                .createPersistedTo(hotFile);
+             TieredStore<User> store = new TieredStore<>(hotMap, coldDir, User::new)) {
+            
+            // Load in batches, demoting the least recently used entries as the hot tier fills
+            for (long i = 1; i <= userCount; i++) {
+                store.put(i, DataGenerator.generateUser(i));
+                if (i % maxHotEntries == 0) {
+                    store.demoteTo(maxHotEntries / 2);
+                }
+            }
+            store.demoteTo(maxHotEntries);
+            
+            // 90% of reads go to 2% of the users
+            long startTime = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long userId = random.nextInt(10) < 9 ? 1 + random.nextInt(1_000) : 1 + random.nextInt(userCount);
+                store.get(userId);
+                if (store.getHotCount() > maxHotEntries) {
+                    store.demoteTo(maxHotEntries * 9 / 10);
+                }
+            }
+            long duration = System.nanoTime() - startTime;
+            
+            long indexBytes = store.getColdCount() * 32L;
+            log.info("Tiered Storage Results:");
+            log.info("  Hot entries: {}, cold entries: {}", store.getHotCount(), store.getColdCount());
+            log.info("  Reads: {} in {} ms ({} ns/read)", reads, duration / 1_000_000, duration / reads);
+            log.info("  Hot hits: {}, cold hits (promoted): {}", store.getHotHits(), store.getColdHits());
+            log.info("  Hot hit rate: {}", String.format("%.2f%%", store.getHotHitRate() * 100));
+            log.info("  Demotions: {}", store.getDemotions());
+            log.info("  Cold data: {} KB raw, {} KB compressed, {} KB on disk",
+                store.getColdRawBytes() / 1024, store.getColdCompressedBytes() / 1024, store.getColdFileBytes() / 1024);
+            log.info("  Hot-tier memory saved: ~{} KB (index overhead {} KB)",
+                (store.getColdRawBytes() - indexBytes) / 1024, indexBytes / 1024);
+            log.info("  Hot map file size: {} MB", hotFile.length() / 1024 / 1024);
+        }
+    }
+}
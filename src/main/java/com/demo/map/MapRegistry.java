@@ -0,0 +1,291 @@
+package com.demo.map;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.map.ChronicleMap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Registry of per-tenant persisted ChronicleMaps that bounds how many are mapped at once.
+ * <p>
+ * Maps are opened lazily on first {@link #acquire(String)} and reference counted. When more
+ * than {@code maxOpenMaps} are open, idle maps (reference count zero) are closed in least
+ * recently used order; maps in use are never closed, so the limit can be exceeded temporarily
+ * while every open map is leased.
+ */
+@Slf4j
+public class MapRegistry<K, V> implements Closeable {
+
+    private final File directory;
+    private final int maxOpenMaps;
+    private final Function<File, ChronicleMap<K, V>> opener;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Slot<K, V>> open = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private boolean closed;
+
+    /**
+     * @param opener creates or reopens the map persisted to the given file,
+     *               typically {@code ChronicleMap.of(..)...createPersistedTo(file)}
+     */
+    public MapRegistry(File directory, int maxOpenMaps, Function<File, ChronicleMap<K, V>> opener) {
+        if (maxOpenMaps <= 0) {
+            throw new IllegalArgumentException("maxOpenMaps must be positive: " + maxOpenMaps);
+        }
+        directory.mkdirs();
+        this.directory = directory;
+        this.maxOpenMaps = maxOpenMaps;
+        this.opener = opener;
+    }
+
+    /**
+     * Adapt a builder call that throws IOException into an opener
+     */
+    public static <K, V> Function<File, ChronicleMap<K, V>> opener(IOOpener<K, V> opener) {
+        return file -> {
+            try {
+                return opener.open(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Lease the map for a tenant, opening it if needed. Must be paired with {@link Lease#close()}.
+     */
+    public Lease<K, V> acquire(String tenant) {
+        Slot<K, V> slot;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("MapRegistry is closed");
+            }
+            slot = open.get(tenant);
+            if (slot == null) {
+                slot = new Slot<>(tenant);
+                open.put(tenant, slot);
+            } else {
+                hits.incrementAndGet();
+            }
+            slot.refCount++;
+        }
+
+        // Open outside the registry lock so slow opens of different tenants run in parallel
+        try {
+            slot.ensureOpen(this);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                slot.refCount--;
+                if (slot.map == null && slot.refCount == 0) {
+                    open.remove(tenant, slot);
+                }
+            }
+            throw e;
+        }
+
+        List<Slot<K, V>> evicted;
+        synchronized (this) {
+            if (closed) {
+                // close() ran while the map was being opened and no longer knows about this slot
+                slot.refCount--;
+                evicted = null;
+            } else {
+                evicted = selectEvictions();
+            }
+        }
+        if (evicted == null) {
+            slot.close();
+            throw new IllegalStateException("MapRegistry is closed");
+        }
+        closeAll(evicted);
+        return new Lease<>(this, slot);
+    }
+
+    private void release(Slot<K, V> slot) {
+        List<Slot<K, V>> evicted;
+        synchronized (this) {
+            slot.refCount--;
+            evicted = selectEvictions();
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Unlink least recently used idle maps until the registry is back under its limit;
+     * the caller closes them after leaving the registry lock
+     */
+    private List<Slot<K, V>> selectEvictions() {
+        if (open.size() <= maxOpenMaps) {
+            return List.of();
+        }
+        List<Slot<K, V>> toClose = new ArrayList<>();
+        Iterator<Slot<K, V>> it = open.values().iterator();
+        while (open.size() - toClose.size() > maxOpenMaps && it.hasNext()) {
+            Slot<K, V> slot = it.next();
+            if (slot.refCount == 0 && slot.map != null) {
+                it.remove();
+                toClose.add(slot);
+            }
+        }
+        return toClose;
+    }
+
+    private void closeAll(List<Slot<K, V>> slots) {
+        for (Slot<K, V> slot : slots) {
+            slot.close();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Open a set of hot tenants in parallel, e.g. at startup, leaving them idle in the registry
+     */
+    public void preOpen(Collection<String> tenants, int parallelism) throws InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "map-registry-preopen");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String tenant : tenants) {
+                futures.add(executor.submit(() -> acquire(tenant).close()));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.warn("Failed to pre-open map", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        log.info("Pre-opened {} maps with {} threads in {} ms",
+            tenants.size(), parallelism, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    File fileFor(String tenant) {
+        return new File(directory, tenant + ".dat");
+    }
+
+    public synchronized int getOpenCount() {
+        int count = 0;
+        for (Slot<K, V> slot : open.values()) {
+            if (slot.map != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getOpens() {
+        return opens.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Slot<K, V> slot : open.values()) {
+            if (slot.refCount > 0) {
+                log.warn("Closing map for tenant {} with {} outstanding leases", slot.tenant, slot.refCount);
+            }
+            slot.close();
+        }
+        open.clear();
+    }
+
+    /**
+     * Reference-counted access to one tenant's map
+     */
+    public static final class Lease<K, V> implements AutoCloseable {
+
+        private final MapRegistry<K, V> registry;
+        private final Slot<K, V> slot;
+        private boolean released;
+
+        private Lease(MapRegistry<K, V> registry, Slot<K, V> slot) {
+            this.registry = registry;
+            this.slot = slot;
+        }
+
+        public ChronicleMap<K, V> map() {
+            if (released) {
+                throw new IllegalStateException("Lease already released");
+            }
+            return slot.map;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                registry.release(slot);
+            }
+        }
+    }
+
+    private static final class Slot<K, V> {
+
+        private final String tenant;
+        private volatile ChronicleMap<K, V> map;
+        private int refCount;
+
+        private Slot(String tenant) {
+            this.tenant = tenant;
+        }
+
+        private void ensureOpen(MapRegistry<K, V> registry) {
+            if (map != null) {
+                return;
+            }
+            synchronized (this) {
+                if (map == null) {
+                    map = registry.opener.apply(registry.fileFor(tenant));
+                    registry.opens.incrementAndGet();
+                }
+            }
+        }
+
+        // Waits for an open in progress to finish, so the map it opens is closed too
+        private synchronized void close() {
+            ChronicleMap<K, V> current = map;
+            if (current != null) {
+                current.close();
+                map = null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface IOOpener<K, V> {
+        ChronicleMap<K, V> open(File file) throws IOException;
+    }
+}
@@ -0,0 +1,252 @@
+package com.demo.map;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.MappedBytes;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persisted, off-heap Bloom filter backed by a memory-mapped file.
+ * <p>
+ * Answers "definitely absent" without touching the guarded map. The file is mapped once with
+ * Chronicle {@link MappedBytes}; bits are set with a CAS on the mapped words through its bytes
+ * store, so concurrent writers are safe and lookups never allocate.
+ * Bloom filters cannot forget keys: removed keys stay "maybe present" until {@link #clear()}
+ * and a rebuild.
+ */
+@Slf4j
+public class OffHeapBloomFilter implements Closeable {
+
+    private static final long MAGIC = 0x424C4F4F4D763031L; // "BLOOMv01"
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int BITS_OFFSET = 8;
+    private static final int HASHES_OFFSET = 16;
+    private static final int COUNT_OFFSET = 24;
+
+    private final File file;
+    private final MappedBytes bytes;
+    // The single mapping, shared by all threads; MappedBytes itself is confined to one thread
+    private final BytesStore<?, ?> words;
+    private final long size;
+    @Getter
+    private final long numBits;
+    @Getter
+    private final int numHashes;
+    private final long bitMask;
+
+    private OffHeapBloomFilter(File file, MappedBytes bytes, long size, long numBits, int numHashes) {
+        this.file = file;
+        this.bytes = bytes;
+        this.words = bytes.bytesStore();
+        this.size = size;
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        this.bitMask = numBits - 1;
+    }
+
+    /**
+     * Create a new filter file, or reopen an existing one, sized for the expected
+     * number of insertions at the target false-positive probability
+     */
+    public static OffHeapBloomFilter createPersistedTo(File file, long expectedInsertions,
+                                                      double falsePositiveRate) throws IOException {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+
+        // m = -n ln(p) / ln(2)^2, rounded up to a power of two so the bit index is a mask
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long numBits = Math.max(64, Long.highestOneBit((long) Math.ceil(optimalBits) - 1) << 1);
+        // k = -ln(p) / ln(2), taken from the unrounded size so extra bits only lower the FP rate
+        int numHashes = Math.max(1, (int) Math.round(-Math.log(falsePositiveRate) / Math.log(2)));
+
+        return open(file, numBits, numHashes);
+    }
+
+    private static OffHeapBloomFilter open(File file, long numBits, int numHashes) throws IOException {
+        boolean exists = file.exists() && file.length() >= HEADER_SIZE;
+
+        if (exists) {
+            // Trust the persisted geometry over the requested one; the header is read, not mapped
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                channel.read(header, 0);
+            }
+            if (header.getLong(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a Bloom filter file: " + file);
+            }
+            numBits = header.getLong(BITS_OFFSET);
+            numHashes = header.getInt(HASHES_OFFSET);
+            // A damaged header would otherwise give a bad mask or a mapping past the end of the bits
+            if (numBits < 64 || Long.bitCount(numBits) != 1 || numHashes <= 0
+                    || file.length() < HEADER_SIZE + numBits / 8) {
+                throw new IOException("Corrupt Bloom filter header in " + file
+                    + ": numBits=" + numBits + ", numHashes=" + numHashes + ", length=" + file.length());
+            }
+        }
+
+        long size = HEADER_SIZE + numBits / 8;
+        MappedBytes bytes = MappedBytes.singleMappedBytes(file, size);
+        if (!exists) {
+            bytes.writeLong(BITS_OFFSET, numBits);
+            bytes.writeInt(HASHES_OFFSET, numHashes);
+            bytes.writeLong(COUNT_OFFSET, 0L);
+            bytes.writeOrderedLong(MAGIC_OFFSET, MAGIC);
+        }
+
+        log.debug("Opened Bloom filter {} ({} bits, {} hashes, existing={})", file, numBits, numHashes, exists);
+        return new OffHeapBloomFilter(file, bytes, size, numBits, numHashes);
+    }
+
+    /**
+     * Record a long key
+     */
+    public void put(long key) {
+        putHash(mix(key));
+    }
+
+    /**
+     * Record a string key
+     */
+    public void put(CharSequence key) {
+        putHash(hash(key));
+    }
+
+    /**
+     * @return false if the key was definitely never added, true if it may have been
+     */
+    public boolean mightContain(long key) {
+        return mightContainHash(mix(key));
+    }
+
+    /**
+     * @return false if the key was definitely never added, true if it may have been
+     */
+    public boolean mightContain(CharSequence key) {
+        return mightContainHash(hash(key));
+    }
+
+    /**
+     * Record a pre-hashed key; the hash should be well mixed across all 64 bits
+     */
+    public void putHash(long hash) {
+        // Kirsch-Mitzenmacher double hashing: g_i = h1 + i * h2
+        long h1 = hash;
+        long h2 = (hash >>> 32) | (hash << 32) | 1;
+        boolean changed = false;
+        for (int i = 0; i < numHashes; i++) {
+            changed |= setBit((h1 + i * h2) & bitMask);
+        }
+        if (changed) {
+            words.addAndGetLong(COUNT_OFFSET, 1L);
+        }
+    }
+
+    /**
+     * Check a pre-hashed key produced the same way as for {@link #putHash(long)}
+     */
+    public boolean mightContainHash(long hash) {
+        long h1 = hash;
+        long h2 = (hash >>> 32) | (hash << 32) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            long word = words.readVolatileLong(wordOffset(bit));
+            if ((word & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean setBit(long bit) {
+        long offset = wordOffset(bit);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = words.readVolatileLong(offset);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSwapLong(offset, word, word | mask));
+        return true;
+    }
+
+    private static long wordOffset(long bit) {
+        return HEADER_SIZE + (bit >>> 6) * Long.BYTES;
+    }
+
+    /**
+     * Approximate number of distinct keys added (keys whose bits were all already set are not counted)
+     */
+    public long approximateCount() {
+        return words.readVolatileLong(COUNT_OFFSET);
+    }
+
+    /**
+     * Theoretical false-positive probability at the current fill level: (1 - e^(-kn/m))^k
+     */
+    public double expectedFalsePositiveRate() {
+        double n = approximateCount();
+        return Math.pow(1 - Math.exp(-numHashes * n / numBits), numHashes);
+    }
+
+    /**
+     * Reset every bit, e.g. before rebuilding from the map after many removals
+     */
+    public void clear() {
+        for (long offset = HEADER_SIZE; offset < size; offset += Long.BYTES) {
+            words.writeOrderedLong(offset, 0L);
+        }
+        words.writeVolatileLong(COUNT_OFFSET, 0L);
+    }
+
+    /**
+     * Size of the mapped filter in bytes
+     */
+    public long sizeInBytes() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        bytes.sync();
+        bytes.releaseLast();
+        log.debug("Closed Bloom filter {}", file);
+    }
+
+    /**
+     * Murmur3 fmix64 finalizer, spreads sequential ids across all bits
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, then mixed
+     */
+    static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+}
@@ -0,0 +1,432 @@
+package com.demo.map;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.map.ChronicleMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Two-tier key-value store: recently used entries live in a ChronicleMap, cold entries are
+ * demoted to Deflate-compressed, append-only segment files.
+ * <p>
+ * Cold entries are located through an in-memory primitive index (key to segment and offset),
+ * about 32 bytes per entry. A read that misses the hot tier but hits the index decompresses the
+ * record and promotes it back into the hot tier. Promotions and removals append a tombstone, so
+ * the index can be rebuilt by scanning the segments on restart.
+ * <p>
+ * Record layout: {@code [int payloadLength][int rawLength][long key][payload]}, rawLength -1 for
+ * a tombstone. All operations are synchronized; the store is meant for large, mostly idle data
+ * sets rather than contended hot paths.
+ */
+@Slf4j
+public class TieredStore<V extends BytesMarshallable> implements Closeable {
+
+    private static final int RECORD_HEADER = 16;
+    private static final int TOMBSTONE = -1;
+    private static final long SEGMENT_SIZE = 64L << 20;
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    private final ChronicleMap<Long, V> hot;
+    private final File coldDir;
+    private final Supplier<V> factory;
+
+    private final LongLongHashMap coldIndex = new LongLongHashMap();
+    private final LongLongHashMap lastAccess = new LongLongHashMap();
+    private long accessClock;
+
+    private final List<FileChannel> segments = new ArrayList<>();
+    private FileChannel activeSegment;
+    private long activeSize;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private final Bytes<?> scratch = Bytes.allocateElasticOnHeap(512);
+    private byte[] compressBuffer = new byte[1024];
+    private byte[] rawBuffer = new byte[1024];
+    private final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long hotHits;
+    private long coldHits;
+    private long misses;
+    private long demotions;
+    private long coldRawBytes;
+    private long coldCompressedBytes;
+
+    public TieredStore(ChronicleMap<Long, V> hot, File coldDir, Supplier<V> factory) throws IOException {
+        this.hot = hot;
+        this.coldDir = coldDir;
+        this.factory = factory;
+        coldDir.mkdirs();
+        openSegments();
+    }
+
+    /**
+     * Read a value from either tier, promoting cold entries
+     */
+    public synchronized V get(long key) {
+        V value = hot.get(key);
+        if (value != null) {
+            hotHits++;
+            touch(key);
+            return value;
+        }
+
+        long location = coldIndex.getIfAbsent(key, -1L);
+        if (location < 0) {
+            misses++;
+            return null;
+        }
+
+        value = readCold(location);
+        coldHits++;
+        hot.put(key, value);
+        dropCold(key, location);
+        touch(key);
+        return value;
+    }
+
+    /**
+     * Write to the hot tier; a cold copy, if any, is superseded
+     */
+    public synchronized void put(long key, V value) {
+        hot.put(key, value);
+        long location = coldIndex.getIfAbsent(key, -1L);
+        if (location >= 0) {
+            dropCold(key, location);
+        }
+        touch(key);
+    }
+
+    public synchronized void remove(long key) {
+        hot.remove(key);
+        lastAccess.remove(key);
+        long location = coldIndex.getIfAbsent(key, -1L);
+        if (location >= 0) {
+            dropCold(key, location);
+        }
+    }
+
+    private void touch(long key) {
+        lastAccess.put(key, ++accessClock);
+    }
+
+    /**
+     * Move the least recently used hot entries to the cold tier until at most
+     * {@code maxHotEntries} remain hot
+     *
+     * @return number of entries demoted
+     */
+    public synchronized int demoteTo(int maxHotEntries) {
+        int excess = lastAccess.size() - maxHotEntries;
+        if (excess <= 0) {
+            return 0;
+        }
+
+        // Find the access-clock cut-off below which entries are demoted
+        long[] ticks = lastAccess.values().toArray();
+        Arrays.sort(ticks);
+        long cutoff = ticks[excess - 1];
+
+        long[] keys = lastAccess.keySet().toArray();
+        int demoted = 0;
+        for (long key : keys) {
+            if (lastAccess.get(key) > cutoff) {
+                continue;
+            }
+            V value = hot.get(key);
+            if (value != null) {
+                coldIndex.put(key, appendRecord(key, value));
+                hot.remove(key);
+                demoted++;
+            }
+            lastAccess.remove(key);
+        }
+        demotions += demoted;
+        return demoted;
+    }
+
+    private long appendRecord(long key, V value) {
+        try {
+            scratch.clear();
+            value.writeMarshallable((BytesOut<?>) scratch);
+            int rawLength = (int) scratch.readRemaining();
+            if (rawBuffer.length < rawLength) {
+                rawBuffer = new byte[rawLength * 2];
+            }
+            scratch.read(rawBuffer, 0, rawLength);
+
+            deflater.reset();
+            deflater.setInput(rawBuffer, 0, rawLength);
+            deflater.finish();
+            int needed = rawLength + 64;
+            if (compressBuffer.length < needed) {
+                compressBuffer = new byte[needed * 2];
+            }
+            int compressedLength = deflater.deflate(compressBuffer);
+
+            long location = writeRecord(key, rawLength, compressBuffer, compressedLength);
+            coldRawBytes += rawLength;
+            coldCompressedBytes += compressedLength;
+            return location;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private V readCold(long location) {
+        int segment = (int) (location >>> OFFSET_BITS);
+        long offset = location & OFFSET_MASK;
+        try {
+            FileChannel channel = segments.get(segment);
+            header.clear();
+            readFully(channel, header, offset, segment, offset);
+            int payloadLength = header.getInt(0);
+            int rawLength = header.getInt(4);
+            if (payloadLength < 0 || rawLength < 0) {
+                throw corrupt(segment, offset, null);
+            }
+
+            if (compressBuffer.length < payloadLength) {
+                compressBuffer = new byte[payloadLength * 2];
+            }
+            ByteBuffer payload = ByteBuffer.wrap(compressBuffer, 0, payloadLength);
+            readFully(channel, payload, offset + RECORD_HEADER, segment, offset);
+
+            if (rawBuffer.length < rawLength) {
+                rawBuffer = new byte[rawLength * 2];
+            }
+            inflater.reset();
+            inflater.setInput(compressBuffer, 0, payloadLength);
+            if (inflater.inflate(rawBuffer, 0, rawLength) != rawLength || !inflater.finished()) {
+                throw corrupt(segment, offset, null);
+            }
+
+            scratch.clear();
+            scratch.write(rawBuffer, 0, rawLength);
+            V value = factory.get();
+            value.readMarshallable((BytesIn<?>) scratch);
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DataFormatException e) {
+            throw corrupt(segment, offset, e);
+        }
+    }
+
+    /**
+     * Fill the buffer, from its start, with the file from {@code position}; end of file means the
+     * record at {@code offset} is cut short
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int segment, long offset)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw corrupt(segment, offset, null);
+            }
+        }
+    }
+
+    private static IllegalStateException corrupt(int segment, long offset, Throwable cause) {
+        return new IllegalStateException("Corrupt cold record at segment " + segment + " offset " + offset, cause);
+    }
+
+    private void dropCold(long key, long location) {
+        try {
+            forgetSizes(location);
+            writeRecord(key, TOMBSTONE, compressBuffer, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        coldIndex.remove(key);
+    }
+
+    private void forgetSizes(long location) throws IOException {
+        int segment = (int) (location >>> OFFSET_BITS);
+        long offset = location & OFFSET_MASK;
+        header.clear();
+        readFully(segments.get(segment), header, offset, segment, offset);
+        coldCompressedBytes -= header.getInt(0);
+        coldRawBytes -= header.getInt(4);
+    }
+
+    private long writeRecord(long key, int rawLength, byte[] payload, int payloadLength) throws IOException {
+        if (activeSize + RECORD_HEADER + payloadLength > SEGMENT_SIZE) {
+            rollSegment();
+        }
+        long offset = activeSize;
+        header.clear();
+        header.putInt(payloadLength).putInt(rawLength).putLong(key).flip();
+        ByteBuffer body = ByteBuffer.wrap(payload, 0, payloadLength);
+        while (header.hasRemaining()) {
+            activeSegment.write(header, offset + header.position());
+        }
+        while (body.hasRemaining()) {
+            activeSegment.write(body, offset + RECORD_HEADER + body.position());
+        }
+        activeSize += RECORD_HEADER + payloadLength;
+        return ((long) (segments.size() - 1) << OFFSET_BITS) | offset;
+    }
+
+    private void rollSegment() throws IOException {
+        File file = new File(coldDir, String.format("segment-%05d.cold", segments.size()));
+        activeSegment = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSize = activeSegment.size();
+        segments.add(activeSegment);
+    }
+
+    /**
+     * Reopen existing segments and rebuild the cold index; the latest record for a key wins
+     */
+    private void openSegments() throws IOException {
+        File[] files = coldDir.listFiles((dir, name) -> name.endsWith(".cold"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                int segment = segments.size();
+                segments.add(channel);
+                scanSegment(channel, segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            rollSegment();
+        } else {
+            activeSegment = segments.get(segments.size() - 1);
+            activeSize = activeSegment.size();
+        }
+
+        // Entries that are still hot take precedence over any cold copy
+        hot.keySet().forEach(key -> {
+            long location = coldIndex.getIfAbsent(key, -1L);
+            if (location >= 0) {
+                dropCold(key, location);
+            }
+            touch(key);
+        });
+        log.info("Tiered store opened: {} hot, {} cold entries in {} segments",
+            hot.size(), coldIndex.size(), segments.size());
+    }
+
+    private void scanSegment(FileChannel channel, int segment) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        while (offset + RECORD_HEADER <= size) {
+            header.clear();
+            readFully(channel, header, offset, segment, offset);
+            int payloadLength = header.getInt(0);
+            int rawLength = header.getInt(4);
+            long key = header.getLong(8);
+            if (payloadLength < 0 || offset + RECORD_HEADER + payloadLength > size) {
+                log.warn("Truncated record in cold segment {} at offset {}, ignoring the tail", segment, offset);
+                break;
+            }
+            long previous = coldIndex.getIfAbsent(key, -1L);
+            if (previous >= 0) {
+                forgetSizes(previous);
+            }
+            if (rawLength == TOMBSTONE) {
+                coldIndex.remove(key);
+            } else {
+                coldIndex.put(key, ((long) segment << OFFSET_BITS) | offset);
+                coldRawBytes += rawLength;
+                coldCompressedBytes += payloadLength;
+            }
+            offset += RECORD_HEADER + payloadLength;
+        }
+    }
+
+    public synchronized int getHotCount() {
+        return hot.size();
+    }
+
+    public synchronized int getColdCount() {
+        return coldIndex.size();
+    }
+
+    public synchronized long getHotHits() {
+        return hotHits;
+    }
+
+    public synchronized long getColdHits() {
+        return coldHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getDemotions() {
+        return demotions;
+    }
+
+    /**
+     * Fraction of successful reads served by the hot tier
+     */
+    public synchronized double getHotHitRate() {
+        long hits = hotHits + coldHits;
+        return hits == 0 ? 0.0 : (double) hotHits / hits;
+    }
+
+    /**
+     * Serialized size of the entries currently in the cold tier, before and after compression
+     */
+    public synchronized long getColdRawBytes() {
+        return coldRawBytes;
+    }
+
+    public synchronized long getColdCompressedBytes() {
+        return coldCompressedBytes;
+    }
+
+    /**
+     * Total size of the cold segment files, including superseded records
+     */
+    public synchronized long getColdFileBytes() {
+        long total = 0;
+        for (FileChannel channel : segments) {
+            try {
+                total += channel.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel channel : segments) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close cold segment", e);
+            }
+        }
+        segments.clear();
+        deflater.end();
+        inflater.end();
+        scratch.releaseLast();
+    }
+}
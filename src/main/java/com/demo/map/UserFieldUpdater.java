@@ -0,0 +1,298 @@
+package com.demo.map;
+
+import com.demo.model.User;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.RandomDataInput;
+import net.openhft.chronicle.hash.ChecksumEntry;
+import net.openhft.chronicle.hash.Data;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ExternalMapQueryContext;
+import net.openhft.chronicle.map.MapEntry;
+
+import java.time.LocalDateTime;
+
+/**
+ * Field-level updates of {@link User} entries stored in a ChronicleMap.
+ * <p>
+ * ChronicleMap stores a User as its fields in declaration order, each one a stop-bit length
+ * followed by the UTF-8 text of the value. Under the entry's update lock this class skips to
+ * the requested field and, when the new text has the same length as the stored one, takes the
+ * write lock, so readers never see a half-written value, overwrites those bytes in place and
+ * updates the entry checksum. Anything else (a length change, a null field, an unexpected layout)
+ * falls back to a full get / mutate / replace of the entry.
+ * <p>
+ * {@code LocalDateTime.toString()} drops trailing zero seconds and fraction digits, so timestamps
+ * are 16 to 29 characters long. A new timestamp is padded with zeros to the stored width when it
+ * is the shorter one; it is only rewritten in full when it needs more digits than are stored.
+ * <p>
+ * Instances keep a reusable User for the fallback path and are not thread-safe; use one per thread.
+ */
+@Slf4j
+public class UserFieldUpdater {
+
+    /**
+     * Fields that can be updated, with their position in the serialized User
+     */
+    public enum Field {
+        ACCOUNT_BALANCE(8),
+        LAST_LOGIN_AT(6);
+
+        private final int position;
+
+        Field(int position) {
+            this.position = position;
+        }
+    }
+
+    private static final boolean LAYOUT_VERIFIED = verifyLayout();
+
+    private final ChronicleMap<Long, User> map;
+    private final User reusableUser = new User();
+
+    private boolean checksummed = true;
+    private long inPlaceUpdates;
+    private long fullRewrites;
+
+    public UserFieldUpdater(ChronicleMap<Long, User> map) {
+        this.map = map;
+        if (!LAYOUT_VERIFIED) {
+            log.warn("Serialized User layout not recognised; field updates will rewrite whole entries");
+        }
+    }
+
+    /**
+     * Record a login
+     *
+     * @return false if the user does not exist
+     */
+    public boolean updateLastLoginAt(long userId, LocalDateTime lastLoginAt) {
+        return update(userId, Field.LAST_LOGIN_AT, lastLoginAt);
+    }
+
+    /**
+     * Set the account balance
+     *
+     * @return false if the user does not exist
+     */
+    public boolean updateAccountBalance(long userId, double accountBalance) {
+        return update(userId, Field.ACCOUNT_BALANCE, accountBalance);
+    }
+
+    private boolean update(long userId, Field field, Object value) {
+        try (ExternalMapQueryContext<Long, User, ?> context = map.queryContext(userId)) {
+            context.updateLock().lock();
+            MapEntry<Long, User> entry = context.entry();
+            if (entry == null) {
+                return false;
+            }
+
+            if (LAYOUT_VERIFIED && tryOverwriteInPlace(context, entry, field, value)) {
+                inPlaceUpdates++;
+                return true;
+            }
+
+            User user = entry.value().getUsing(reusableUser);
+            switch (field) {
+                case LAST_LOGIN_AT:
+                    user.setLastLoginAt((LocalDateTime) value);
+                    break;
+                case ACCOUNT_BALANCE:
+                    user.setAccountBalance((Double) value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported field " + field);
+            }
+            entry.doReplaceValue(context.wrapValueAsData(user));
+            fullRewrites++;
+            return true;
+        }
+    }
+
+    private boolean tryOverwriteInPlace(ExternalMapQueryContext<Long, User, ?> context,
+                                        MapEntry<Long, User> entry, Field field, Object value) {
+        Data<User> data = entry.value();
+        RandomDataInput in = data.bytes();
+        if (!(in instanceof BytesStore)) {
+            return false;
+        }
+
+        long position = data.offset();
+        long limit = position + data.size();
+
+        // Skip the preceding fields
+        for (int i = 0; i < field.position; i++) {
+            long length = readStopBit(in, position);
+            position += stopBitSize(length);
+            if (length > 0) {
+                position += length;
+            }
+            if (position >= limit) {
+                return false;
+            }
+        }
+
+        long length = readStopBit(in, position);
+        String text = textOfLength(field, value, length);
+        if (text == null || !isAscii(text)) {
+            return false;
+        }
+        position += stopBitSize(length);
+        if (position + length > limit) {
+            return false;
+        }
+
+        // Readers only hold the read lock, which the update lock does not exclude
+        context.writeLock().lock();
+        BytesStore<?, ?> store = (BytesStore<?, ?>) in;
+        for (int i = 0; i < length; i++) {
+            store.writeByte(position + i, (byte) text.charAt(i));
+        }
+        updateChecksum(entry);
+        return true;
+    }
+
+    /**
+     * The field's new value as text of exactly {@code length} characters, or null if it has none
+     */
+    private static String textOfLength(Field field, Object value, long length) {
+        switch (field) {
+            case ACCOUNT_BALANCE:
+                String balance = Double.toString((Double) value);
+                return balance.length() == length ? balance : null;
+            case LAST_LOGIN_AT:
+                return padTimestamp(value.toString(), length);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Append zero seconds and fraction digits to an ISO local date-time until it is
+     * {@code length} long; null if it is longer or that length is not an ISO width
+     */
+    static String padTimestamp(String text, long length) {
+        if (text.length() == length) {
+            return text;
+        }
+        if (text.length() > length || !(length == 19 || length == 23 || length == 26 || length == 29)) {
+            return null;
+        }
+        StringBuilder padded = new StringBuilder(29).append(text);
+        if (padded.length() == 16) {
+            padded.append(":00");
+        }
+        if (padded.length() == 19 && length > 19) {
+            padded.append('.');
+        }
+        while (padded.length() < length) {
+            padded.append('0');
+        }
+        return padded.toString();
+    }
+
+    /**
+     * Persisted maps checksum entries by default and in-memory ones do not; the first update
+     * finds out which this map does
+     */
+    private void updateChecksum(MapEntry<Long, User> entry) {
+        if (!checksummed || !(entry instanceof ChecksumEntry)) {
+            return;
+        }
+        try {
+            ((ChecksumEntry) entry).updateChecksum();
+        } catch (UnsupportedOperationException e) {
+            checksummed = false;
+        }
+    }
+
+    /**
+     * Chronicle stop-bit decoding at an absolute offset; negative values end with an empty byte
+     */
+    private static long readStopBit(RandomDataInput in, long offset) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte(offset++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return b == 0 && shift > 7 ? ~value : value;
+    }
+
+    private static int stopBitSize(long value) {
+        if (value < 0) {
+            return stopBitSize(~value) + 1;
+        }
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serialize a probe User and check each updatable field sits where this class expects it
+     */
+    private static boolean verifyLayout() {
+        LocalDateTime lastLogin = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6);
+        User probe = User.builder()
+                .userId(1L)
+                .username("probe")
+                .email("probe@example.com")
+                .firstName("Probe")
+                .lastName("User")
+                .createdAt(lastLogin.minusDays(1))
+                .lastLoginAt(lastLogin)
+                .status(User.UserStatus.ACTIVE)
+                .accountBalance(1234.5)
+                .phoneNumber("+10000000000")
+                .build();
+
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap(256);
+        try {
+            probe.writeMarshallable((BytesOut<?>) bytes);
+            return fieldText(bytes, Field.LAST_LOGIN_AT).equals(lastLogin.toString())
+                && fieldText(bytes, Field.ACCOUNT_BALANCE).equals(Double.toString(1234.5));
+        } catch (RuntimeException e) {
+            log.debug("User layout verification failed", e);
+            return false;
+        } finally {
+            bytes.releaseLast();
+        }
+    }
+
+    private static String fieldText(Bytes<?> bytes, Field field) {
+        bytes.readPosition(0);
+        for (int i = 0; i < field.position; i++) {
+            bytes.readUtf8();
+        }
+        return bytes.readUtf8();
+    }
+
+    /**
+     * Updates applied by overwriting the field bytes
+     */
+    public long getInPlaceUpdates() {
+        return inPlaceUpdates;
+    }
+
+    /**
+     * Updates that needed a full entry rewrite
+     */
+    public long getFullRewrites() {
+        return fullRewrites;
+    }
+}
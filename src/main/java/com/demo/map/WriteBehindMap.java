@@ -0,0 +1,173 @@
+package com.demo.map;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.map.ChronicleMap;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind buffer in front of a ChronicleMap that coalesces hot-key updates.
+ * <p>
+ * Writers only replace the pending value for a key; a dedicated flush thread writes the
+ * latest value of each dirty key to the map once per flush interval, or sooner when the
+ * number of dirty keys reaches the batch size. An update is therefore visible in the map
+ * at most one interval (plus one flush) after it was made. Reads through this class see
+ * pending values immediately.
+ */
+@Slf4j
+public class WriteBehindMap<K, V> implements Closeable {
+
+    private final ChronicleMap<K, V> map;
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+    private final ConcurrentHashMap<K, V> pending = new ConcurrentHashMap<>();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    // Nanotime of the oldest unflushed update, 0 when nothing is pending
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+
+    private final AtomicLong updatesSubmitted = new AtomicLong();
+    private final AtomicLong entriesFlushed = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private volatile long maxStalenessNanos;
+
+    public WriteBehindMap(ChronicleMap<K, V> map, long flushInterval, TimeUnit unit, int maxBatchSize) {
+        if (flushInterval <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("flushInterval and maxBatchSize must be positive");
+        }
+        this.map = map;
+        this.flushIntervalNanos = unit.toNanos(flushInterval);
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = new Thread(this::flushLoop, "write-behind-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Buffer an update; an earlier unflushed value for the same key is replaced
+     */
+    public void put(K key, V value) {
+        if (!running) {
+            throw new IllegalStateException("WriteBehindMap is closed");
+        }
+        updatesSubmitted.incrementAndGet();
+        pending.put(key, value);
+        // Stamped after the put, so a flush that takes the stamp also finds the value
+        oldestPendingNanos.compareAndSet(0, System.nanoTime());
+
+        if (!running) {
+            // close() may have taken its final flush between the check above and the put
+            flush();
+        } else if (pending.size() >= maxBatchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /**
+     * Read-your-writes lookup: pending value first, then the map
+     */
+    public V get(K key) {
+        V value = pending.get(key);
+        return value != null ? value : map.get(key);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush failed", e);
+            }
+        }
+    }
+
+    /**
+     * Write the latest value of every dirty key to the map
+     */
+    public synchronized void flush() {
+        long oldest = oldestPendingNanos.getAndSet(0);
+        if (oldest == 0 && pending.isEmpty()) {
+            return;
+        }
+
+        int flushed = 0;
+        for (Map.Entry<K, V> entry : pending.entrySet()) {
+            K key = entry.getKey();
+            V value = entry.getValue();
+            // Written before it leaves pending, so get() never falls back to an older value;
+            // a value replaced meanwhile stays pending for the next flush
+            map.put(key, value);
+            pending.remove(key, value);
+            flushed++;
+        }
+        if (!pending.isEmpty()) {
+            // Never leave values pending without a stamp for the next flush to measure
+            oldestPendingNanos.compareAndSet(0, System.nanoTime());
+        }
+
+        // A stamp with nothing flushed belongs to values an earlier flush already wrote
+        if (oldest != 0 && flushed > 0) {
+            long staleness = System.nanoTime() - oldest;
+            if (staleness > maxStalenessNanos) {
+                maxStalenessNanos = staleness;
+            }
+        }
+        entriesFlushed.addAndGet(flushed);
+        flushCount.incrementAndGet();
+    }
+
+    public long getUpdatesSubmitted() {
+        return updatesSubmitted.get();
+    }
+
+    public long getEntriesFlushed() {
+        return entriesFlushed.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Updates submitted per map write; 1.0 means nothing was coalesced
+     */
+    public double getCoalescingRatio() {
+        long flushed = entriesFlushed.get();
+        return flushed == 0 ? 0.0 : (double) updatesSubmitted.get() / flushed;
+    }
+
+    /**
+     * Largest observed age of an update at the time it reached the map
+     */
+    public long getMaxStalenessNanos() {
+        return maxStalenessNanos;
+    }
+
+    /**
+     * Stop the flush thread and write out everything still pending; the map itself stays open
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.debug("Write-behind closed: {} updates, {} map writes, {} flushes",
+            updatesSubmitted.get(), entriesFlushed.get(), flushCount.get());
+    }
+}
@@ -0,0 +1,154 @@
+package com.demo.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tailer over a queue whose older cycles may have been archived by {@link QueueRetentionManager}.
+ * <p>
+ * Reads every archived cycle in order, each decompressed into a temporary single-cycle queue, and
+ * then continues with the live queue from its first remaining cycle. Callers use
+ * {@link #readingDocument()} exactly as with an {@link ExcerptTailer}. Archives are listed when the
+ * tailer is created, so the retention policy should keep more cycles uncompressed than readers lag.
+ * A cycle that is both archived and still in the queue, as while the manager is between publishing
+ * its archive and deleting it, is read once, from the queue.
+ */
+@Slf4j
+public class ArchiveAwareTailer implements Closeable {
+
+    private final SingleChronicleQueue queue;
+    private final Deque<File> archives = new ArrayDeque<>();
+
+    private File extractDirectory;
+    private SingleChronicleQueue archiveQueue;
+    private ExcerptTailer archiveTailer;
+    private ExcerptTailer liveTailer;
+
+    private long archivedExcerpts;
+    private long liveExcerpts;
+
+    public ArchiveAwareTailer(SingleChronicleQueue queue) {
+        this.queue = queue;
+        File[] files = QueueRetentionManager.archiveDirectory(queue)
+                .listFiles((dir, name) -> name.endsWith(QueueRetentionManager.ARCHIVE_SUFFIX));
+        if (files != null) {
+            // Cycle file names sort in cycle order
+            Arrays.sort(files);
+            archives.addAll(Arrays.asList(files));
+        }
+    }
+
+    /**
+     * Next excerpt, from the archives first and then the live queue; close it as usual
+     */
+    public DocumentContext readingDocument() {
+        while (liveTailer == null) {
+            if (archiveTailer == null && !openNextArchive()) {
+                closeArchive();
+                liveTailer = queue.createTailer();
+                break;
+            }
+            DocumentContext dc = archiveTailer.readingDocument();
+            if (dc.isPresent()) {
+                archivedExcerpts++;
+                return dc;
+            }
+            dc.close();
+            closeArchive();
+        }
+
+        DocumentContext dc = liveTailer.readingDocument();
+        if (dc.isPresent()) {
+            liveExcerpts++;
+        }
+        return dc;
+    }
+
+    private boolean openNextArchive() {
+        File archive = archives.pollFirst();
+        if (archive == null) {
+            return false;
+        }
+        String cycleFileName = archive.getName().substring(0, archive.getName().length() - ".gz".length());
+        if (new File(queue.file(), cycleFileName).exists()) {
+            // Archived but not yet deleted from the queue: read it, and any later cycles, live instead
+            log.debug("Cycle {} is still live, skipping its archive", cycleFileName);
+            archives.clear();
+            return false;
+        }
+        try {
+            extractDirectory = Files.createTempDirectory("archived-cycle").toFile();
+            try (InputStream in = new GZIPInputStream(new FileInputStream(archive), 1 << 16)) {
+                Files.copy(in, new File(extractDirectory, cycleFileName).toPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to extract " + archive, e);
+        }
+        archiveQueue = SingleChronicleQueueBuilder.single(extractDirectory.getPath())
+                .rollCycle(queue.rollCycle())
+                .epoch(queue.epoch())
+                .build();
+        archiveTailer = archiveQueue.createTailer();
+        log.debug("Reading archived cycle {}", cycleFileName);
+        return true;
+    }
+
+    private void closeArchive() {
+        if (archiveTailer != null) {
+            archiveTailer.close();
+            archiveTailer = null;
+        }
+        if (archiveQueue != null) {
+            archiveQueue.close();
+            archiveQueue = null;
+        }
+        if (extractDirectory != null) {
+            File[] files = extractDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            extractDirectory.delete();
+            extractDirectory = null;
+        }
+    }
+
+    /**
+     * True while excerpts are still coming from archived cycles
+     */
+    public boolean isReadingArchive() {
+        return liveTailer == null;
+    }
+
+    public long getArchivedExcerpts() {
+        return archivedExcerpts;
+    }
+
+    public long getLiveExcerpts() {
+        return liveExcerpts;
+    }
+
+    @Override
+    public void close() {
+        closeArchive();
+        if (liveTailer != null) {
+            liveTailer.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+
+/**
+ * Packs many small messages into a single queue excerpt.
+ * <p>
+ * Messages are serialized into a private buffer and written as one document, prefixed with the
+ * message count, once {@code maxBatchSize} messages are buffered or {@link #flush()} is called.
+ * Header, index and write-lock costs are paid once per batch instead of once per message; the
+ * price is that a message is not visible to tailers until its batch is flushed, so producers
+ * should flush when they go idle. Read batches back with {@link BatchingTailer}.
+ * <p>
+ * Not thread-safe, like the underlying appender.
+ */
+public class BatchingAppender<T extends BytesMarshallable> implements Closeable {
+
+    private final ExcerptAppender appender;
+    private final int maxBatchSize;
+    private final Bytes<?> buffer = Bytes.allocateElasticDirect(64 * 1024);
+    private int buffered;
+
+    private long messagesWritten;
+    private long batchesWritten;
+
+    public BatchingAppender(ExcerptAppender appender, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.appender = appender;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Buffer a message, flushing if the batch is full
+     *
+     * @return true if this call flushed a batch to the queue
+     */
+    public boolean append(T message) {
+        message.writeMarshallable((BytesOut<?>) buffer);
+        if (++buffered >= maxBatchSize) {
+            flush();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write any buffered messages as one excerpt
+     */
+    public void flush() {
+        if (buffered == 0) {
+            return;
+        }
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeStopBit(buffered);
+            bytes.write(buffer);
+        }
+        messagesWritten += buffered;
+        batchesWritten++;
+        buffered = 0;
+        buffer.clear();
+    }
+
+    public int getBuffered() {
+        return buffered;
+    }
+
+    public long getMessagesWritten() {
+        return messagesWritten;
+    }
+
+    public long getBatchesWritten() {
+        return batchesWritten;
+    }
+
+    /**
+     * Flush what is left; the underlying appender is not closed
+     */
+    @Override
+    public void close() {
+        flush();
+        buffer.releaseLast();
+    }
+}
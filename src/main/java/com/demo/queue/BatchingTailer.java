@@ -0,0 +1,63 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.util.function.Consumer;
+
+/**
+ * Reads excerpts written by {@link BatchingAppender} and hands each message to a handler.
+ * <p>
+ * A single message instance is reused for the whole stream, so handlers must copy anything
+ * they want to keep.
+ */
+public class BatchingTailer<T extends BytesMarshallable> {
+
+    private final ExcerptTailer tailer;
+    private final T message;
+
+    private long messagesRead;
+    private long batchesRead;
+
+    public BatchingTailer(ExcerptTailer tailer, T reusableMessage) {
+        this.tailer = tailer;
+        this.message = reusableMessage;
+    }
+
+    /**
+     * Deliver every message of the next batch
+     *
+     * @return number of messages delivered, 0 if no batch was available
+     */
+    public int readBatch(Consumer<T> handler) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return 0;
+            }
+            Bytes<?> bytes = dc.wire().bytes();
+            int count = (int) bytes.readStopBit();
+            for (int i = 0; i < count; i++) {
+                message.readMarshallable((BytesIn<?>) bytes);
+                handler.accept(message);
+            }
+            messagesRead += count;
+            batchesRead++;
+            return count;
+        }
+    }
+
+    public long getMessagesRead() {
+        return messagesRead;
+    }
+
+    public long getBatchesRead() {
+        return batchesRead;
+    }
+
+    public ExcerptTailer tailer() {
+        return tailer;
+    }
+}
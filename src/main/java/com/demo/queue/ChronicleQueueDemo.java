@@ -3,15 +3,41 @@ package com.demo.queue;
 import com.demo.model.Trade;
 import com.demo.model.MarketData;
 import com.demo.util.DataGenerator;
+import com.demo.util.LatencyHistogram;
+import com.demo.util.ThreadAffinity;
 import lombok.extern.slf4j.Slf4j;
+import net.openhft.affinity.AffinityLock;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.MethodReader;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.map.ChronicleMap;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.queue.rollcycles.TestRollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Chronicle Queue demonstration showing messaging patterns and performance
@@ -20,6 +46,25 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ChronicleQueueDemo {
     
     private static final String QUEUE_DIR = "chronicle-demo-data/queues";
+    private static final long NOT_READ = Long.MIN_VALUE;
+    
+    // Replaces the old Thread.sleep(1) polling in consumer loops
+    private final Supplier<WaitStrategy> waitStrategyFactory;
+    // CPU pinning of the producer and consumer threads, off unless -Ddemo.affinity is set
+    private final ThreadAffinity affinity;
+    
+    public ChronicleQueueDemo() {
+        this(() -> WaitStrategies.progressiveBackoff(100, 10, 1, TimeUnit.MILLISECONDS));
+    }
+    
+    public ChronicleQueueDemo(Supplier<WaitStrategy> waitStrategyFactory) {
+        this(waitStrategyFactory, ThreadAffinity.fromSystemProperty());
+    }
+    
+    public ChronicleQueueDemo(Supplier<WaitStrategy> waitStrategyFactory, ThreadAffinity affinity) {
+        this.waitStrategyFactory = waitStrategyFactory;
+        this.affinity = affinity;
+    }
     
     public static void main(String[] args) {
         log.info("Starting Chronicle Queue Performance Demo");
@@ -34,9 +79,18 @@ public class ChronicleQueueDemo {
             // Run different demos
             demo.basicUsageDemo();
             demo.producerConsumerDemo();
+            demo.latencyHistogramDemo();
             demo.highThroughputDemo();
+            demo.filteringTailerDemo();
+            demo.batchedAppenderDemo();
+            demo.methodWriterDemo();
+            demo.pretoucherDemo();
             demo.persistenceDemo();
+            demo.retentionDemo();
             demo.multipleConsumersDemo();
+            demo.mergedFeedsDemo();
+            demo.consumerGroupDemo();
+            demo.exactlyOnceDemo();
             
         } catch (Exception e) {
             log.error("Demo failed", e);
@@ -88,8 +142,13 @@ public class ChronicleQueueDemo {
      */
     public void producerConsumerDemo() throws InterruptedException {
         log.info("\n--- Producer-Consumer Demo ---");
+        log.info("Thread pinning: {}", affinity);
         
-        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(QUEUE_DIR + "/producer-consumer")
+        // Messages carry a send timestamp, so start from an empty queue rather than mixing formats
+        File queueDir = new File(QUEUE_DIR + "/producer-consumer");
+        deleteDirectory(queueDir);
+        
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath())
                 .build()) {
             
             int messageCount = 10_000;
@@ -97,16 +156,20 @@ public class ChronicleQueueDemo {
             CountDownLatch consumerLatch = new CountDownLatch(1);
             AtomicLong messagesProduced = new AtomicLong();
             AtomicLong messagesConsumed = new AtomicLong();
+            WaitStrategy waitStrategy = waitStrategyFactory.get();
+            LatencyHistogram latencies = new LatencyHistogram();
             
             // Producer thread
             Thread producer = new Thread(() -> {
-                try (ExcerptAppender appender = queue.acquireAppender()) {
+                try (AffinityLock cpu = affinity.acquire("producer");
+                     ExcerptAppender appender = queue.createAppender()) {
                     long startTime = System.nanoTime();
                     
                     for (int i = 1; i <= messageCount; i++) {
                         MarketData marketData = DataGenerator.generateMarketData("PROD_" + (i % 100));
-                        appender.writeDocument(marketData);
+                        writeStamped(appender, System.nanoTime(), marketData);
                         messagesProduced.incrementAndGet();
+                        waitStrategy.signal();
                     }
                     
                     long duration = System.nanoTime() - startTime;
@@ -118,29 +181,31 @@ public class ChronicleQueueDemo {
                 } finally {
                     producerLatch.countDown();
                 }
-            });
+            }, "producer");
             
             // Consumer thread
             Thread consumer = new Thread(() -> {
-                try (ExcerptTailer tailer = queue.createTailer("demo-consumer")) {
+                try (AffinityLock cpu = affinity.acquire("consumer");
+                     ExcerptTailer tailer = queue.createTailer("demo-consumer")) {
                     long startTime = System.nanoTime();
                     MarketData marketData = new MarketData();
+                    int idleCount = 0;
                     
-                    while (messagesConsumed.get() < messageCount) {
-                        if (tailer.readDocument(marketData)) {
+                    while (messagesConsumed.get() < messageCount && !Thread.currentThread().isInterrupted()) {
+                        long sentNanos = readStamped(tailer, marketData);
+                        if (sentNanos != NOT_READ) {
+                            latencies.recordValue(System.nanoTime() - sentNanos);
                             messagesConsumed.incrementAndGet();
+                            if (idleCount > 0) {
+                                idleCount = 0;
+                                waitStrategy.reset();
+                            }
                             // Simulate processing
                             if (marketData.getBidPrice() != null) {
                                 marketData.getMidPrice();
                             }
                         } else {
-                            // Small pause if no message available
-                            try {
-                                Thread.sleep(1);
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                                break;
-                            }
+                            waitStrategy.idle(++idleCount);
                         }
                     }
                     
@@ -153,7 +218,7 @@ public class ChronicleQueueDemo {
                 } finally {
                     consumerLatch.countDown();
                 }
-            });
+            }, "consumer");
             
             // Start both threads
             consumer.start();
@@ -167,6 +232,71 @@ public class ChronicleQueueDemo {
             log.info("Producer-Consumer Results:");
             log.info("  Messages produced: {}", messagesProduced.get());
             log.info("  Messages consumed: {}", messagesConsumed.get());
+            log.info("  One-way latency: {}", latencies.toSummaryString());
+        }
+    }
+    
+    /**
+     * Fixed-rate producer with end-to-end latency percentiles, raw and corrected for coordinated omission
+     */
+    public void latencyHistogramDemo() throws InterruptedException {
+        log.info("\n--- Latency Histogram Demo ---");
+        
+        File queueDir = new File(QUEUE_DIR + "/latency");
+        deleteDirectory(queueDir);
+        
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath())
+                .build()) {
+            
+            int messageCount = 20_000;
+            int messagesPerSecond = 5_000;
+            long intervalNanos = 1_000_000_000L / messagesPerSecond;
+            LatencyHistogram raw = new LatencyHistogram();
+            LatencyHistogram corrected = new LatencyHistogram();
+            WaitStrategy waitStrategy = waitStrategyFactory.get();
+            
+            Thread consumer = new Thread(() -> {
+                try (ExcerptTailer tailer = queue.createTailer()) {
+                    MarketData marketData = new MarketData();
+                    int received = 0;
+                    int idleCount = 0;
+                    
+                    while (received < messageCount && !Thread.currentThread().isInterrupted()) {
+                        long sentNanos = readStamped(tailer, marketData);
+                        if (sentNanos != NOT_READ) {
+                            long latency = System.nanoTime() - sentNanos;
+                            raw.recordValue(latency);
+                            corrected.recordValueWithExpectedInterval(latency, intervalNanos);
+                            received++;
+                            if (idleCount > 0) {
+                                idleCount = 0;
+                                waitStrategy.reset();
+                            }
+                        } else {
+                            waitStrategy.idle(++idleCount);
+                        }
+                    }
+                }
+            });
+            consumer.start();
+            
+            try (ExcerptAppender appender = queue.createAppender()) {
+                long next = System.nanoTime();
+                for (int i = 1; i <= messageCount; i++) {
+                    next += intervalNanos;
+                    while (System.nanoTime() < next) {
+                        Thread.onSpinWait();
+                    }
+                    MarketData marketData = DataGenerator.generateMarketData("LAT_" + (i % 100));
+                    writeStamped(appender, System.nanoTime(), marketData);
+                    waitStrategy.signal();
+                }
+            }
+            consumer.join();
+            
+            log.info("Latency at {} messages/sec:", messagesPerSecond);
+            log.info("  Raw:       {}", raw.toSummaryString());
+            log.info("  Corrected: {}", corrected.toSummaryString());
         }
     }
     
@@ -226,6 +356,286 @@ public class ChronicleQueueDemo {
         }
     }
     
+    /**
+     * Reading 1% of a trade queue: decoding everything versus filtering on raw bytes first
+     */
+    public void filteringTailerDemo() {
+        log.info("\n--- Filtering Tailer Demo ---");
+        
+        File wireDir = new File(QUEUE_DIR + "/filtering-wire");
+        File fixedDir = new File(QUEUE_DIR + "/filtering-fixed");
+        deleteDirectory(wireDir);
+        deleteDirectory(fixedDir);
+        
+        int messageCount = 500_000;
+        int symbolCount = 1_000;
+        String[] wanted = new String[symbolCount / 100];
+        for (int i = 0; i < wanted.length; i++) {
+            wanted[i] = "HFT_" + i * 100;
+        }
+        Set<String> wantedSet = new HashSet<>(Arrays.asList(wanted));
+        
+        try (ChronicleQueue wireQueue = SingleChronicleQueueBuilder.single(wireDir.getPath()).build();
+             ChronicleQueue fixedQueue = SingleChronicleQueueBuilder.single(fixedDir.getPath()).build()) {
+            
+            // The same trades, self-describing as in highThroughputDemo and in TradeLayout
+            try (ExcerptAppender wireAppender = wireQueue.createAppender();
+                 ExcerptAppender fixedAppender = fixedQueue.createAppender()) {
+                for (int i = 1; i <= messageCount; i++) {
+                    Trade trade = DataGenerator.generateTrade((long) i, "HFT_" + (i % symbolCount));
+                    wireAppender.writeDocument(trade);
+                    TradeLayout.write(fixedAppender, trade);
+                }
+            }
+            log.info("Wrote {} trades over {} symbols, looking for {} of them", messageCount, symbolCount, wanted.length);
+            
+            Trade trade = new Trade();
+            long[] matches = new long[3];
+            long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+            for (int round = 0; round < 3; round++) {
+                // Decode every trade, then check its symbol
+                long start = System.nanoTime();
+                long matched = 0;
+                try (ExcerptTailer tailer = wireQueue.createTailer()) {
+                    while (tailer.readDocument(trade)) {
+                        if (wantedSet.contains(trade.getSymbol())) {
+                            matched++;
+                        }
+                    }
+                }
+                best[0] = Math.min(best[0], System.nanoTime() - start);
+                matches[0] = matched;
+                
+                start = System.nanoTime();
+                matched = 0;
+                try (ExcerptTailer tailer = fixedQueue.createTailer()) {
+                    while (true) {
+                        try (DocumentContext dc = tailer.readingDocument()) {
+                            if (!dc.isPresent()) {
+                                break;
+                            }
+                            TradeLayout.read(dc.wire().bytes(), trade);
+                        }
+                        if (wantedSet.contains(trade.getSymbol())) {
+                            matched++;
+                        }
+                    }
+                }
+                best[1] = Math.min(best[1], System.nanoTime() - start);
+                matches[1] = matched;
+                
+                // Check the symbol in place, decode only the matches
+                start = System.nanoTime();
+                try (ExcerptTailer tailer = fixedQueue.createTailer()) {
+                    FilteringTailer filtering = new FilteringTailer(tailer, TradeLayout.symbolIn(wanted));
+                    Consumer<Bytes<?>> decode = bytes -> TradeLayout.read(bytes, trade);
+                    while (filtering.read(decode)) {
+                        trade.getNotionalValue();
+                    }
+                    matches[2] = filtering.getMatched();
+                }
+                best[2] = Math.min(best[2], System.nanoTime() - start);
+            }
+            
+            String[] names = {"Decode all (wire)", "Decode all (fixed layout)", "Filter raw bytes, decode matches"};
+            log.info("Filtering Results (best of 3, {} trades scanned each):", messageCount);
+            for (int i = 0; i < names.length; i++) {
+                log.info("  {}: {} ms, {} trades/sec scanned, {} matched, {}x the wire read",
+                    names[i], best[i] / 1_000_000, (messageCount * 1_000_000_000L) / best[i], matches[i],
+                    String.format("%.1f", (double) best[0] / best[i]));
+            }
+        }
+    }
+    
+    /**
+     * Batched appender: throughput and latency across batch sizes
+     */
+    public void batchedAppenderDemo() {
+        log.info("\n--- Batched Appender Demo ---");
+        
+        int messageCount = 200_000;
+        int[] batchSizes = {1, 10, 100, 1_000};
+        
+        // Pre-generate trades so only queue work is timed
+        Trade[] trades = new Trade[1_000];
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = DataGenerator.generateTrade((long) i, "HFT_" + i);
+        }
+        
+        for (int batchSize : batchSizes) {
+            File queueDir = new File(QUEUE_DIR + "/batched-" + batchSize);
+            deleteDirectory(queueDir);
+            
+            try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath())
+                    .build()) {
+                
+                // Latency = time from append() until the message's batch is committed
+                long[] latencies = new long[messageCount];
+                long[] appendTimes = new long[batchSize];
+                int pending = 0;
+                int recorded = 0;
+                
+                long writeStartTime = System.nanoTime();
+                try (ExcerptAppender rawAppender = queue.createAppender();
+                     BatchingAppender<Trade> appender = new BatchingAppender<>(rawAppender, batchSize)) {
+                    for (int i = 0; i < messageCount; i++) {
+                        appendTimes[pending++] = System.nanoTime();
+                        if (appender.append(trades[i % trades.length])) {
+                            long committed = System.nanoTime();
+                            for (int p = 0; p < pending; p++) {
+                                latencies[recorded++] = committed - appendTimes[p];
+                            }
+                            pending = 0;
+                        }
+                    }
+                    appender.flush();
+                    long committed = System.nanoTime();
+                    for (int p = 0; p < pending; p++) {
+                        latencies[recorded++] = committed - appendTimes[p];
+                    }
+                }
+                long writeDuration = System.nanoTime() - writeStartTime;
+                
+                long readStartTime = System.nanoTime();
+                long readCount = 0;
+                try (ExcerptTailer rawTailer = queue.createTailer()) {
+                    BatchingTailer<Trade> tailer = new BatchingTailer<>(rawTailer, new Trade());
+                    int read;
+                    while ((read = tailer.readBatch(trade -> trade.getQuantity())) > 0) {
+                        readCount += read;
+                    }
+                }
+                long readDuration = System.nanoTime() - readStartTime;
+                
+                Arrays.sort(latencies, 0, recorded);
+                log.info("Batch size {}:", batchSize);
+                log.info("  Write throughput: {} messages/sec", (messageCount * 1_000_000_000L) / writeDuration);
+                log.info("  Read throughput: {} messages/sec ({} read)", (readCount * 1_000_000_000L) / readDuration, readCount);
+                log.info("  Commit latency p50/p99/p99.9/max: {}/{}/{}/{} ns",
+                    percentile(latencies, recorded, 50),
+                    percentile(latencies, recorded, 99),
+                    percentile(latencies, recorded, 99.9),
+                    latencies[recorded - 1]);
+                log.info("  Queue size: {} KB", calculateDirectorySize(queueDir) / 1024);
+            }
+        }
+    }
+    
+    /**
+     * Typed events: producers call a MarketEvents proxy and a method reader dispatches to a listener
+     */
+    public void methodWriterDemo() {
+        log.info("\n--- Method Writer Demo ---");
+        
+        File queueDir = new File(QUEUE_DIR + "/method-writer");
+        deleteDirectory(queueDir);
+        
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath())
+                .build()) {
+            
+            int eventCount = 100_000;
+            
+            // Producer - every fourth event is a trade, the rest are quotes
+            MarketEvents events = queue.methodWriter(MarketEvents.class);
+            Trade trade = DataGenerator.generateTrade(1L, "EVT");
+            MarketData marketData = DataGenerator.generateMarketData("EVT");
+            
+            long writeStart = System.nanoTime();
+            for (int i = 1; i <= eventCount; i++) {
+                if (i % 4 == 0) {
+                    trade.setTradeId((long) i);
+                    events.onTrade(trade);
+                } else {
+                    marketData.setVolume((long) i);
+                    events.onMarketData(marketData);
+                }
+            }
+            long writeDuration = System.nanoTime() - writeStart;
+            
+            // Consumer - the handler sees reused instances, so it only aggregates
+            long[] tradeCount = new long[1];
+            long[] quoteCount = new long[1];
+            double[] notional = new double[1];
+            MarketEvents handler = new MarketEvents() {
+                @Override
+                public void onTrade(Trade trade) {
+                    tradeCount[0]++;
+                    notional[0] += trade.getNotionalValue().doubleValue();
+                }
+                
+                @Override
+                public void onMarketData(MarketData marketData) {
+                    quoteCount[0]++;
+                }
+            };
+            
+            long readStart = System.nanoTime();
+            try (ExcerptTailer tailer = queue.createTailer()) {
+                MethodReader reader = tailer.methodReader(handler);
+                while (reader.readOne()) {
+                    // dispatches one event per call
+                }
+            }
+            long readDuration = System.nanoTime() - readStart;
+            
+            log.info("Method Writer Results:");
+            log.info("  Events written: {} ({} ns/event)", eventCount, writeDuration / eventCount);
+            log.info("  Trades dispatched: {}", tradeCount[0]);
+            log.info("  Quotes dispatched: {}", quoteCount[0]);
+            log.info("  Dispatch: {} ns/event", readDuration / (tradeCount[0] + quoteCount[0]));
+            log.info("  Total notional: {}", String.format("%.2f", notional[0]));
+        }
+    }
+    
+    /**
+     * Write latency with and without a pretoucher faulting in pages and creating cycle files ahead of the appender
+     */
+    public void pretoucherDemo() {
+        log.info("\n--- Pretoucher Demo ---");
+        
+        int messageCount = 100_000;
+        int messagesPerSecond = 25_000;
+        long intervalNanos = 1_000_000_000L / messagesPerSecond;
+        
+        // Pre-generate trades so only queue work is timed
+        Trade[] trades = new Trade[1_000];
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = DataGenerator.generateTrade((long) i, "HFT_" + i);
+        }
+        
+        for (boolean pretouch : new boolean[] {false, true}) {
+            File queueDir = new File(QUEUE_DIR + "/pretouch-" + pretouch);
+            deleteDirectory(queueDir);
+            
+            // Secondly cycles so the four second run crosses several rolls
+            try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath())
+                    .rollCycle(TestRollCycles.TEST_SECONDLY)
+                    .build();
+                 QueuePretoucher pretoucher = pretouch ? QueuePretoucher.start(queue) : null;
+                 ExcerptAppender appender = queue.createAppender()) {
+                
+                LatencyHistogram writeLatency = new LatencyHistogram();
+                long next = System.nanoTime();
+                for (int i = 0; i < messageCount; i++) {
+                    next += intervalNanos;
+                    while (System.nanoTime() < next) {
+                        Thread.onSpinWait();
+                    }
+                    long start = System.nanoTime();
+                    appender.writeDocument(trades[i % trades.length]);
+                    writeLatency.recordValue(System.nanoTime() - start);
+                }
+                
+                log.info("{}:", pretouch ? "With pretoucher" : "Without pretoucher");
+                log.info("  Write latency: {}", writeLatency.toSummaryString());
+                if (pretoucher != null) {
+                    log.info("  Pages touched: {}, cycle files created ahead: {}",
+                        pretoucher.getPagesTouched(), pretoucher.getCyclesCreated());
+                }
+            }
+        }
+    }
+    
     /**
      * Persistence demonstration
      */
@@ -270,29 +680,111 @@ public class ChronicleQueueDemo {
         log.info("Queue directory size: {} KB", totalSize / 1024);
     }
     
+    /**
+     * Retention: old cycles are compressed or deleted, and archived cycles remain readable
+     */
+    public void retentionDemo() throws InterruptedException {
+        log.info("\n--- Retention Demo ---");
+        
+        File queueDir = new File(QUEUE_DIR + "/retention");
+        deleteDirectory(queueDir);
+        
+        // Hourly cycles driven by a test clock, so ten cycles can be written at once
+        SetTimeProvider clock = new SetTimeProvider(System.currentTimeMillis() * 1_000_000L);
+        int cycles = 10;
+        int tradesPerCycle = 1_000;
+        
+        // Archive anything older than three cycles, delete anything older than eight
+        QueueRetentionManager retention = new QueueRetentionManager(3, 8);
+        try (SingleChronicleQueue queue = retention.build(SingleChronicleQueueBuilder.single(queueDir.getPath())
+                .rollCycle(RollCycles.FAST_HOURLY)
+                .blockSize(1 << 20)
+                .timeProvider(clock))) {
+            
+            try (retention) {
+                // Each cycle the appender rolls away from is released to the retention manager
+                retention.start(1, TimeUnit.MINUTES);
+                try (ExcerptAppender appender = queue.createAppender()) {
+                    for (int c = 0; c < cycles; c++) {
+                        for (int i = 0; i < tradesPerCycle; i++) {
+                            appender.writeDocument(DataGenerator.generateTrade((long) (c * tradesPerCycle + i), "RET_" + (i % 20)));
+                        }
+                        clock.advanceMillis(TimeUnit.HOURS.toMillis(1));
+                    }
+                }
+                
+                // Releases arrive on the queue's background releaser; all but the three newest cycles go
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (queue.firstCycle() < queue.lastCycle() - 2 && System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+                
+                log.info("Retention Results:");
+                log.info("  Cycles compressed: {}", retention.getCyclesCompressed());
+                log.info("  Cycles deleted: {}", retention.getCyclesDeleted());
+                log.info("  Space reclaimed: {} KB, directory now {} KB", retention.getBytesReclaimed() / 1024,
+                    calculateDirectorySize(queueDir) / 1024);
+            }
+            
+            try (ArchiveAwareTailer tailer = new ArchiveAwareTailer(queue)) {
+                Trade trade = new Trade();
+                long firstTradeId = -1;
+                while (true) {
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        if (!dc.isPresent()) {
+                            break;
+                        }
+                        trade.readMarshallable(dc.wire());
+                        if (firstTradeId < 0) {
+                            firstTradeId = trade.getTradeId();
+                        }
+                    }
+                }
+                log.info("  Read {} trades from archives and {} from live cycles, starting at trade {}",
+                    tailer.getArchivedExcerpts(), tailer.getLiveExcerpts(), firstTradeId);
+            }
+        }
+    }
+    
     /**
      * Multiple consumers demonstration
      */
-    public void multipleConsumersDemo() throws InterruptedException {
+    public void multipleConsumersDemo() throws InterruptedException, IOException {
         log.info("\n--- Multiple Consumers Demo ---");
         
-        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(QUEUE_DIR + "/multi-consumer")
-                .build()) {
+        int messageCount = 10_000;
+        int consumerCount = 3;
+        String[] tailerNames = new String[consumerCount];
+        for (int c = 0; c < consumerCount; c++) {
+            tailerNames[c] = "consumer-" + c;
+        }
+        File lagMetrics = new File(QUEUE_DIR + "/multi-consumer-lag.dat");
+        
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.single(QUEUE_DIR + "/multi-consumer")
+                .build();
+             TailerLagMonitor lagMonitor = new TailerLagMonitor(queue, lagMetrics, tailerNames)
+                .backPressure(500, 100)
+                .start(1, TimeUnit.MILLISECONDS)) {
             
-            int messageCount = 10_000;
-            int consumerCount = 3;
             CountDownLatch producerLatch = new CountDownLatch(1);
             CountDownLatch consumerLatch = new CountDownLatch(consumerCount);
             AtomicLong totalMessagesConsumed = new AtomicLong();
+            WaitStrategy waitStrategy = waitStrategyFactory.get();
             
-            // Producer
+            // Producer, held back while the slowest consumer is too far behind
             Thread producer = new Thread(() -> {
                 try (ExcerptAppender appender = queue.acquireAppender()) {
                     for (int i = 1; i <= messageCount; i++) {
+                        if (!lagMonitor.awaitCapacity(1, TimeUnit.SECONDS)) {
+                            log.warn("Producer still throttled after 1 s, appending anyway");
+                        }
                         MarketData data = DataGenerator.generateMarketData("MULTI_" + (i % 50));
                         appender.writeDocument(data);
+                        waitStrategy.signal();
                     }
                     log.info("Producer wrote {} messages", messageCount);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 } finally {
                     producerLatch.countDown();
                 }
@@ -307,28 +799,39 @@ public class ChronicleQueueDemo {
                 final int consumerId = c;
                 
                 consumers[c] = new Thread(() -> {
-                    try (ExcerptTailer tailer = queue.createTailer("consumer-" + consumerId)) {
+                    try (ExcerptTailer tailer = queue.createTailer(tailerNames[consumerId])) {
                         MarketData data = new MarketData();
                         long messagesRead = 0;
                         
-                        // Each consumer reads until no more messages for a while
-                        int emptyReads = 0;
-                        while (emptyReads < 100) { // Stop after 100 consecutive empty reads
+                        // Each consumer reads until no more messages for a while once the producer is done;
+                        // a consumer that left early would hold the throttled producer back for good
+                        int idleCount = 0;
+                        long idleSince = 0;
+                        while (!Thread.currentThread().isInterrupted()) {
                             if (tailer.readDocument(data)) {
                                 messagesRead++;
-                                emptyReads = 0;
+                                if (idleCount > 0) {
+                                    idleCount = 0;
+                                    waitStrategy.reset();
+                                }
                                 // Simulate processing
                                 if (data.getBidPrice() != null) {
                                     data.getSpread();
                                 }
+                                if (consumerId == consumerCount - 1) {
+                                    // The last consumer is slow, so the producer outruns it
+                                    long busyUntil = System.nanoTime() + 20_000;
+                                    while (System.nanoTime() < busyUntil) {
+                                        Thread.onSpinWait();
+                                    }
+                                }
                             } else {
-                                emptyReads++;
-                                try {
-                                    Thread.sleep(1);
-                                } catch (InterruptedException e) {
-                                    Thread.currentThread().interrupt();
-                                    break;
+                                if (idleCount == 0) {
+                                    idleSince = System.nanoTime();
+                                } else if (producerLatch.getCount() == 0 && System.nanoTime() - idleSince > 100_000_000L) {
+                                    break; // Stop after 100 ms without messages
                                 }
+                                waitStrategy.idle(++idleCount);
                             }
                         }
                         
@@ -348,9 +851,17 @@ public class ChronicleQueueDemo {
                 consumer.start();
             }
             
-            // Wait for completion
+            // Wait for completion, reporting the slowest consumer's lag meanwhile
+            long peakLag = 0;
+            while (!consumerLatch.await(250, TimeUnit.MILLISECONDS)) {
+                TailerLag slowest = lagMonitor.getLag(tailerNames[consumerCount - 1]);
+                if (slowest != null) {
+                    peakLag = Math.max(peakLag, slowest.getMessages());
+                    log.info("  {} behind by {}", tailerNames[consumerCount - 1], slowest);
+                }
+            }
             producerLatch.await();
-            consumerLatch.await();
+            lagMonitor.sample();
             
             log.info("Multiple Consumers Results:");
             log.info("  Messages produced: {}", messageCount);
@@ -358,7 +869,383 @@ public class ChronicleQueueDemo {
             for (int i = 0; i < consumerCount; i++) {
                 log.info("  Consumer {} read: {}", i, consumerCounts[i].get());
             }
+            log.info("  Producer throttled {} times, slowest consumer peaked {} messages behind",
+                lagMonitor.getThrottleEvents(), peakLag);
+            
+            // What another process sees, e.g. java ... com.demo.queue.TailerLagMonitor <metrics file>
+            try (ChronicleMap<String, TailerLag> published = TailerLagMonitor.openMetrics(lagMetrics)) {
+                log.info("  Published lag in {}:", lagMetrics);
+                published.forEach((name, lag) -> log.info("    {}: {}", name, lag));
+            }
+        }
+    }
+    
+    /**
+     * One queue per exchange feed, read back as a single stream in timestamp order
+     */
+    public void mergedFeedsDemo() {
+        log.info("\n--- Merged Feeds Demo ---");
+        
+        String[] exchanges = DataGenerator.getExchanges();
+        int messagesPerExchange = 20_000;
+        List<ChronicleQueue> queues = new ArrayList<>();
+        try {
+            // Each feed is in time order on its own, with its own gaps between updates
+            long startNanos = System.nanoTime();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (String exchange : exchanges) {
+                File queueDir = new File(QUEUE_DIR + "/feed-" + exchange);
+                deleteDirectory(queueDir);
+                ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build();
+                queues.add(queue);
+                try (ExcerptAppender appender = queue.createAppender()) {
+                    long timestamp = startNanos;
+                    for (int i = 0; i < messagesPerExchange; i++) {
+                        timestamp += random.nextLong(1_000, 100_000);
+                        MarketData data = DataGenerator.generateMarketData(DataGenerator.getRandomSymbol());
+                        data.setExchange(exchange);
+                        writeStamped(appender, timestamp, data);
+                    }
+                }
+            }
+            
+            int[] perExchange = new int[exchanges.length];
+            int total = 0;
+            int outOfOrder = 0;
+            long previous = Long.MIN_VALUE;
+            MarketData data = new MarketData();
+            long start = System.nanoTime();
+            try (MergingTailer tailer = new MergingTailer(queues, TimestampSeek.LEADING_LONG)) {
+                while (true) {
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        if (!dc.isPresent()) {
+                            break;
+                        }
+                        Bytes<?> bytes = dc.wire().bytes();
+                        long timestamp = bytes.readLong();
+                        data.readMarshallable((BytesIn<?>) bytes);
+                        if (timestamp < previous) {
+                            outOfOrder++;
+                        }
+                        previous = timestamp;
+                        perExchange[tailer.getSource()]++;
+                        if (++total <= 5) {
+                            log.info("  +{} us {} {} {}", (timestamp - startNanos) / 1_000,
+                                data.getExchange(), data.getSymbol(), String.format("%.2f", data.getLastPrice()));
+                        }
+                    }
+                }
+            }
+            long duration = System.nanoTime() - start;
+            
+            log.info("Merged {} updates from {} feeds in {} ms, out of order: {}",
+                total, exchanges.length, duration / 1_000_000, outOfOrder);
+            for (int i = 0; i < exchanges.length; i++) {
+                log.info("  {}: {} updates", exchanges[i], perExchange[i]);
+            }
+        } finally {
+            queues.forEach(ChronicleQueue::close);
+        }
+    }
+    
+    /**
+     * Consumer groups: members split the work by symbol, and partitions move as members join and leave
+     */
+    public void consumerGroupDemo() throws InterruptedException {
+        log.info("\n--- Consumer Group Demo ---");
+        
+        File queueDir = new File(QUEUE_DIR + "/consumer-group");
+        deleteDirectory(queueDir);
+        
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath())
+                .build()) {
+            
+            int messageCount = 20_000;
+            try (ExcerptAppender appender = queue.createAppender()) {
+                for (int i = 0; i < messageCount; i++) {
+                    MarketData data = DataGenerator.generateMarketData("GROUP_" + (i % 50));
+                    data.setVolume((long) i); // sequence number, to check each message is seen once
+                    ConsumerGroup.append(appender, data.getSymbol(), data);
+                }
+            }
+            
+            // Scaling: a fresh group of each size processes the whole queue
+            for (int groupSize : new int[] {1, 2, 4}) {
+                try (ConsumerGroup<MarketData> group = new ConsumerGroup<>(queue, "scale-" + groupSize, 64)) {
+                    AtomicIntegerArray seen = new AtomicIntegerArray(messageCount);
+                    AtomicLong processed = new AtomicLong();
+                    Thread[] threads = new Thread[groupSize];
+                    for (int m = 0; m < groupSize; m++) {
+                        ConsumerGroup.Member<MarketData> member = group.join("member-" + m, new MarketData());
+                        threads[m] = new Thread(() -> consumeGroup(member, seen, processed, messageCount, () -> false));
+                    }
+                    
+                    long start = System.nanoTime();
+                    for (Thread thread : threads) {
+                        thread.start();
+                    }
+                    for (Thread thread : threads) {
+                        thread.join();
+                    }
+                    long duration = System.nanoTime() - start;
+                    
+                    log.info("Group of {}: {} messages in {} ms ({} messages/sec, {} duplicates)",
+                        groupSize, processed.get(), duration / 1_000_000,
+                        (processed.get() * 1_000_000_000L) / duration, countDuplicates(seen));
+                }
+            }
+            
+            // Rebalancing: start with two members, add a third, then remove the first
+            try (ConsumerGroup<MarketData> group = new ConsumerGroup<>(queue, "rebalance", 64)) {
+                AtomicIntegerArray seen = new AtomicIntegerArray(messageCount);
+                AtomicLong processed = new AtomicLong();
+                AtomicBoolean firstLeaves = new AtomicBoolean();
+                
+                ConsumerGroup.Member<MarketData> first = group.join("member-0", new MarketData());
+                ConsumerGroup.Member<MarketData> second = group.join("member-1", new MarketData());
+                Thread firstThread = new Thread(() -> consumeGroup(first, seen, processed, messageCount, firstLeaves::get));
+                Thread secondThread = new Thread(() -> consumeGroup(second, seen, processed, messageCount, () -> false));
+                firstThread.start();
+                secondThread.start();
+                
+                while (processed.get() < messageCount / 3) {
+                    Thread.sleep(1);
+                }
+                ConsumerGroup.Member<MarketData> third = group.join("member-2", new MarketData());
+                Thread thirdThread = new Thread(() -> consumeGroup(third, seen, processed, messageCount, () -> false));
+                thirdThread.start();
+                log.info("member-2 joined after {} messages (generation {})", processed.get(), group.getGeneration());
+                
+                while (processed.get() < 2 * messageCount / 3) {
+                    Thread.sleep(1);
+                }
+                firstLeaves.set(true);
+                firstThread.join();
+                log.info("member-0 left after {} messages (generation {})", processed.get(), group.getGeneration());
+                
+                secondThread.join();
+                thirdThread.join();
+                
+                log.info("Rebalance Results:");
+                log.info("  Messages processed: {} of {}", processed.get(), messageCount);
+                log.info("  Duplicates: {}", countDuplicates(seen));
+                log.info("  member-0: {}, member-1: {}, member-2: {}",
+                    first.getProcessed(), second.getProcessed(), third.getProcessed());
+            }
+        }
+    }
+    
+    /**
+     * Per-symbol net positions kept in a ChronicleMap exactly once, across a crash and restart
+     */
+    public void exactlyOnceDemo() throws IOException {
+        log.info("\n--- Exactly-Once Consumer Demo ---");
+        
+        File queueDir = new File(QUEUE_DIR + "/exactly-once");
+        File positionsFile = new File(QUEUE_DIR + "/exactly-once-positions.dat");
+        deleteDirectory(queueDir);
+        positionsFile.delete();
+        
+        int tradeCount = 100_000;
+        int symbolCount = 20;
+        int crashAfter = 61_500;
+        long[] expectedQuantity = new long[symbolCount];
+        
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build();
+             ExcerptAppender appender = queue.createAppender()) {
+            for (int i = 0; i < tradeCount; i++) {
+                int s = i % symbolCount;
+                Trade trade = DataGenerator.generateTrade((long) i, "POS_" + s);
+                appender.writeDocument(trade);
+                expectedQuantity[s] += trade.getSide() == Trade.Side.BUY ? trade.getQuantity() : -trade.getQuantity();
+            }
+        }
+        log.info("Wrote {} trades for {} symbols", tradeCount, symbolCount);
+        
+        // First run stops without closing, as a crash would: its last 500 trades are applied but not checkpointed
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build();
+             ChronicleMap<String, NetPosition> positions = createPositionMap(positionsFile, symbolCount)) {
+            NetPositionConsumer consumer = new NetPositionConsumer(queue, positions);
+            int read = consumer.drain(crashAfter);
+            log.info("First run: applied {} trades, checkpoint after trade {}, then crashed",
+                read, queue.rollCycle().toSequenceNumber(consumer.getCheckpointIndex()) + 1);
+        }
+        
+        // Second run resumes from the checkpoint committed in the same map as the positions
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build();
+             ChronicleMap<String, NetPosition> positions = createPositionMap(positionsFile, symbolCount);
+             NetPositionConsumer consumer = new NetPositionConsumer(queue, positions)) {
+            int read = consumer.drain(Integer.MAX_VALUE);
+            log.info("Second run: read {} trades, applied {}, skipped {} already applied",
+                read, consumer.getApplied(), consumer.getSkipped());
+            
+            NetPosition position = new NetPosition();
+            long totalTrades = 0;
+            int mismatches = 0;
+            for (int s = 0; s < symbolCount; s++) {
+                positions.getUsing("POS_" + s, position);
+                totalTrades += position.getTrades();
+                if (position.getQuantity() != expectedQuantity[s]) {
+                    mismatches++;
+                }
+            }
+            log.info("Trades in positions: {}/{}, symbols not matching expected quantity: {}",
+                totalTrades, tradeCount, mismatches);
+        }
+        
+        // Cost per trade against an at-least-once consumer whose only progress record is its named tailer
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build()) {
+            long atLeastOnce = Long.MAX_VALUE;
+            long exactlyOnce = Long.MAX_VALUE;
+            for (int round = 0; round < 2; round++) {
+                File mapFile = new File(QUEUE_DIR + "/exactly-once-bench.dat");
+                mapFile.delete();
+                try (ChronicleMap<String, NetPosition> positions = createPositionMap(mapFile, symbolCount);
+                     ExcerptTailer tailer = queue.createTailer("at-least-once-" + System.nanoTime())) {
+                    Trade trade = new Trade();
+                    NetPosition position = new NetPosition();
+                    long start = System.nanoTime();
+                    while (tailer.readDocument(trade)) {
+                        if (positions.getUsing(trade.getSymbol(), position) == null) {
+                            position.reset();
+                        }
+                        position.apply(trade.getSide(), trade.getPrice().doubleValue(), trade.getQuantity());
+                        positions.put(trade.getSymbol(), position);
+                    }
+                    atLeastOnce = Math.min(atLeastOnce, System.nanoTime() - start);
+                }
+                
+                mapFile.delete();
+                try (ChronicleMap<String, NetPosition> positions = createPositionMap(mapFile, symbolCount);
+                     NetPositionConsumer consumer = new NetPositionConsumer(queue, positions)) {
+                    long start = System.nanoTime();
+                    consumer.drain(Integer.MAX_VALUE);
+                    exactlyOnce = Math.min(exactlyOnce, System.nanoTime() - start);
+                }
+                mapFile.delete();
+            }
+            log.info("At-least-once (named tailer, get + put): {} ns/trade", atLeastOnce / tradeCount);
+            log.info("Exactly-once (indexed entry update, checkpoint every {}): {} ns/trade",
+                NetPositionConsumer.CHECKPOINT_INTERVAL, exactlyOnce / tradeCount);
+        }
+    }
+    
+    private static ChronicleMap<String, NetPosition> createPositionMap(File file, int symbols) throws IOException {
+        return ChronicleMap
+                .of(String.class, NetPosition.class)
+                .name("net-positions")
+                .entries(symbols + 1)
+                .averageKey(NetPositionConsumer.CHECKPOINT_KEY)
+                .constantValueSizeBySample(new NetPosition())
+                .createPersistedTo(file);
+    }
+    
+    /**
+     * Keeps one {@link NetPosition} per symbol
+     */
+    private static final class NetPositionConsumer extends ExactlyOnceConsumer<Trade, String, NetPosition> {
+        
+        static final String CHECKPOINT_KEY = "__checkpoint__";
+        static final int CHECKPOINT_INTERVAL = 1_000;
+        
+        NetPositionConsumer(ChronicleQueue queue, ChronicleMap<String, NetPosition> positions) {
+            super(queue, positions, CHECKPOINT_KEY, CHECKPOINT_INTERVAL, new Trade(), new NetPosition());
+        }
+        
+        @Override
+        protected String keyOf(Trade trade) {
+            return trade.getSymbol();
+        }
+        
+        @Override
+        protected void apply(Trade trade, long index, NetPosition position) {
+            position.apply(trade.getSide(), trade.getPrice().doubleValue(), trade.getQuantity());
+        }
+    }
+    
+    private void consumeGroup(ConsumerGroup.Member<MarketData> member, AtomicIntegerArray seen,
+                              AtomicLong processed, int messageCount, BooleanSupplier leave) {
+        WaitStrategy waitStrategy = waitStrategyFactory.get();
+        int idleCount = 0;
+        try {
+            while (processed.get() < messageCount && !leave.getAsBoolean()) {
+                boolean read = member.poll(data -> {
+                    seen.incrementAndGet(data.getVolume().intValue());
+                    simulateWork(20_000);
+                    processed.incrementAndGet();
+                });
+                if (read) {
+                    if (idleCount > 0) {
+                        idleCount = 0;
+                        waitStrategy.reset();
+                    }
+                } else {
+                    waitStrategy.idle(++idleCount);
+                }
+            }
+        } finally {
+            member.close();
+        }
+    }
+    
+    private static void simulateWork(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+    
+    private static int countDuplicates(AtomicIntegerArray seen) {
+        int duplicates = 0;
+        for (int i = 0; i < seen.length(); i++) {
+            duplicates += Math.max(0, seen.get(i) - 1);
+        }
+        return duplicates;
+    }
+    
+    /**
+     * Write a message prefixed with its send timestamp
+     */
+    private static void writeStamped(ExcerptAppender appender, long sentNanos, MarketData marketData) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(sentNanos);
+            marketData.writeMarshallable((BytesOut<?>) bytes);
+        }
+    }
+    
+    /**
+     * Read a message written by {@link #writeStamped}, returning its send timestamp or {@link #NOT_READ}
+     */
+    private static long readStamped(ExcerptTailer tailer, MarketData marketData) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return NOT_READ;
+            }
+            Bytes<?> bytes = dc.wire().bytes();
+            long sentNanos = bytes.readLong();
+            marketData.readMarshallable((BytesIn<?>) bytes);
+            return sentNanos;
+        }
+    }
+    
+    private static long percentile(long[] sorted, int count, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+    
+    private void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    file.delete();
+                }
+            }
         }
+        directory.delete();
     }
     
     private long calculateDirectorySize(File directory) {
@@ -0,0 +1,291 @@
+package com.demo.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * Consumer group that splits a queue between its members by partition key.
+ * <p>
+ * Producers write through {@link #append}, which prefixes each message with the hash of its key.
+ * Every member tails the whole queue but reads only that hash for messages outside its
+ * partitions, so processing work is divided while skipping stays cheap. For each partition the
+ * group commits the index of the last processed message into the queue's metadata, which
+ * persists across restarts like a named tailer's position.
+ * <p>
+ * Joining or leaving rebalances partitions round-robin over the members. A partition changes
+ * hands cooperatively: its old owner releases it between messages on its next poll, and the new
+ * owner then claims it and rewinds to the partition's committed index. A message is never
+ * processed by two members. Membership is coordinated in-process; each {@link Member} must be
+ * polled and closed by a single thread.
+ */
+@Slf4j
+public class ConsumerGroup<T extends BytesMarshallable> implements Closeable {
+
+    private static final int FREE = -1;
+
+    private final SingleChronicleQueue queue;
+    private final String name;
+    private final int partitionCount;
+    private final LongValue[] committed;
+    private final AtomicIntegerArray owner;
+    private final AtomicIntegerArray target;
+    private final List<Member<T>> members = new ArrayList<>();
+
+    private volatile int generation;
+    private int nextMemberNumber;
+
+    public ConsumerGroup(SingleChronicleQueue queue, String name, int partitionCount) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive: " + partitionCount);
+        }
+        this.queue = queue;
+        this.name = name;
+        this.partitionCount = partitionCount;
+        this.committed = new LongValue[partitionCount];
+        this.owner = new AtomicIntegerArray(partitionCount);
+        this.target = new AtomicIntegerArray(partitionCount);
+        for (int p = 0; p < partitionCount; p++) {
+            committed[p] = queue.indexForId("group." + name + "." + p);
+            owner.set(p, FREE);
+            target.set(p, FREE);
+        }
+    }
+
+    /**
+     * Append a message keyed for partitioning, e.g. by symbol
+     */
+    public static void append(ExcerptAppender appender, CharSequence key, BytesMarshallable message) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeInt(hash(key));
+            message.writeMarshallable((BytesOut<?>) bytes);
+        }
+    }
+
+    static int hash(CharSequence key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Add a member and rebalance; it starts consuming once the previous owners release its partitions
+     *
+     * @param reusableMessage instance every message is read into
+     */
+    public synchronized Member<T> join(String memberId, T reusableMessage) {
+        Member<T> member = new Member<>(this, memberId, nextMemberNumber++, reusableMessage);
+        members.add(member);
+        rebalance();
+        return member;
+    }
+
+    private synchronized void leave(Member<T> member) {
+        if (members.remove(member)) {
+            rebalance();
+        }
+    }
+
+    private void rebalance() {
+        int memberCount = members.size();
+        for (int p = 0; p < partitionCount; p++) {
+            target.set(p, memberCount == 0 ? FREE : members.get(p % memberCount).number);
+        }
+        generation++;
+        log.debug("Group {} rebalanced to {} members (generation {})", name, memberCount, generation);
+    }
+
+    /**
+     * Index of the last message processed in a partition, negative if none
+     */
+    public long getCommittedIndex(int partition) {
+        return committed[partition].getVolatileValue();
+    }
+
+    public synchronized int getMemberCount() {
+        return members.size();
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    @Override
+    public void close() {
+        for (LongValue value : committed) {
+            value.close();
+        }
+    }
+
+    /**
+     * One member of the group with its own tailer
+     */
+    public static final class Member<T extends BytesMarshallable> implements Closeable {
+
+        private final ConsumerGroup<T> group;
+        private final String memberId;
+        private final int number;
+        private final T message;
+        private final boolean[] owned;
+        private final BitSet pendingClaims = new BitSet();
+
+        private ExcerptTailer tailer;
+        private int ownedCount;
+        private int seenGeneration = -1;
+        private boolean positioned;
+        private long processed;
+        private long skipped;
+
+        private Member(ConsumerGroup<T> group, String memberId, int number, T message) {
+            this.group = group;
+            this.memberId = memberId;
+            this.number = number;
+            this.message = message;
+            this.owned = new boolean[group.partitionCount];
+        }
+
+        /**
+         * Read the next excerpt and hand it to the handler if it belongs to one of this member's partitions
+         *
+         * @return false if there was nothing to read, so the caller can back off
+         */
+        public boolean poll(Consumer<T> handler) {
+            if (seenGeneration != group.generation) {
+                syncAssignment();
+            }
+            if (!pendingClaims.isEmpty()) {
+                claimReleasedPartitions();
+            }
+            if (ownedCount == 0) {
+                return false;
+            }
+
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent()) {
+                    return false;
+                }
+                long index = dc.index();
+                Bytes<?> bytes = dc.wire().bytes();
+                int partition = Math.floorMod(bytes.readInt(), group.partitionCount);
+                LongValue partitionCommitted = group.committed[partition];
+
+                if (owned[partition] && index > partitionCommitted.getVolatileValue()) {
+                    message.readMarshallable((BytesIn<?>) bytes);
+                    handler.accept(message);
+                    partitionCommitted.setOrderedValue(index);
+                    processed++;
+                } else {
+                    skipped++;
+                }
+                return true;
+            }
+        }
+
+        private void syncAssignment() {
+            seenGeneration = group.generation;
+            for (int p = 0; p < owned.length; p++) {
+                boolean assigned = group.target.get(p) == number;
+                if (owned[p] && !assigned) {
+                    // Between messages, so nothing of this partition is in flight
+                    owned[p] = false;
+                    ownedCount--;
+                    group.owner.set(p, FREE);
+                } else if (!owned[p] && assigned) {
+                    pendingClaims.set(p);
+                }
+            }
+        }
+
+        private void claimReleasedPartitions() {
+            long resumeFrom = Long.MAX_VALUE;
+            boolean claimed = false;
+            for (int p = pendingClaims.nextSetBit(0); p >= 0; p = pendingClaims.nextSetBit(p + 1)) {
+                if (group.target.get(p) != number) {
+                    pendingClaims.clear(p);
+                } else if (group.owner.compareAndSet(p, FREE, number)) {
+                    pendingClaims.clear(p);
+                    owned[p] = true;
+                    ownedCount++;
+                    claimed = true;
+                    resumeFrom = Math.min(resumeFrom, group.committed[p].getVolatileValue());
+                }
+            }
+            if (claimed) {
+                rewindTo(resumeFrom);
+            }
+        }
+
+        /**
+         * Move back to the oldest committed index of the claimed partitions; messages of other
+         * owned partitions up to their own committed index are skipped on the way
+         */
+        private void rewindTo(long resumeFrom) {
+            if (tailer == null) {
+                tailer = group.queue.createTailer();
+            }
+            if (resumeFrom <= 0) {
+                tailer.toStart();
+            } else if (!positioned || resumeFrom < tailer.index()) {
+                if (!tailer.moveToIndex(resumeFrom)) {
+                    tailer.toStart();
+                }
+            }
+            positioned = true;
+        }
+
+        public String getMemberId() {
+            return memberId;
+        }
+
+        public int getOwnedPartitionCount() {
+            return ownedCount;
+        }
+
+        public long getProcessed() {
+            return processed;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Release this member's partitions and leave the group
+         */
+        @Override
+        public void close() {
+            for (int p = 0; p < owned.length; p++) {
+                if (owned[p]) {
+                    owned[p] = false;
+                    group.owner.set(p, FREE);
+                }
+            }
+            ownedCount = 0;
+            group.leave(this);
+            if (tailer != null) {
+                tailer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.demo.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.hash.Data;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ExternalMapQueryContext;
+import net.openhft.chronicle.map.MapEntry;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.ReadMarshallable;
+
+import java.io.Closeable;
+
+/**
+ * Tails a queue and applies each message to one ChronicleMap entry exactly once, across crashes and restarts.
+ * <p>
+ * A message changes at most one entry, chosen by {@link #keyOf}. The entry's new state and the
+ * message's queue index are written together, under the entry's lock, as one value; a message whose
+ * index is not after the entry's {@link IndexedState#getLastIndex()} has been applied before and is
+ * skipped. The consumer's position is kept in the same map under a reserved key, written every
+ * {@code checkpointInterval} messages and on close, so the per-message cost is the entry update
+ * alone. A restart resumes after the checkpoint; the messages between the checkpoint and a crash are
+ * read again and skipped by their entries' indexes.
+ * <p>
+ * The map must belong to this consumer: the indexes are only comparable for one queue. Message and
+ * value instances are reused, and instances are not thread-safe; poll from one thread.
+ */
+@Slf4j
+public abstract class ExactlyOnceConsumer<M extends ReadMarshallable, K, V extends IndexedState> implements Closeable {
+
+    private final ChronicleMap<K, V> state;
+    private final K checkpointKey;
+    private final int checkpointInterval;
+    private final ExcerptTailer tailer;
+    private final M message;
+    private final V value;
+
+    private long lastIndex = -1;
+    private long checkpointIndex;
+    private int sinceCheckpoint;
+    private long applied;
+    private long skipped;
+
+    /**
+     * @param checkpointKey key of the position entry, which no message may map to
+     * @param message       reused to read each message
+     * @param value         reused to read and write each entry
+     */
+    protected ExactlyOnceConsumer(ChronicleQueue queue, ChronicleMap<K, V> state, K checkpointKey,
+                                  int checkpointInterval, M message, V value) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("checkpointInterval must be positive: " + checkpointInterval);
+        }
+        this.state = state;
+        this.checkpointKey = checkpointKey;
+        this.checkpointInterval = checkpointInterval;
+        this.message = message;
+        this.value = value;
+        this.tailer = queue.createTailer();
+
+        V checkpoint = state.getUsing(checkpointKey, value);
+        checkpointIndex = checkpoint == null ? -1 : checkpoint.getLastIndex();
+        if (checkpointIndex >= 0) {
+            if (tailer.moveToIndex(checkpointIndex)) {
+                // The checkpointed message itself was applied; step past it
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    lastIndex = checkpointIndex;
+                }
+            } else {
+                log.warn("Checkpoint {} not found in {}, replaying from the start",
+                    Long.toHexString(checkpointIndex), queue.fileAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Key of the entry a message changes, or null to ignore the message
+     */
+    protected abstract K keyOf(M message);
+
+    /**
+     * Fold a message into an entry's state; a new entry arrives {@link IndexedState#reset() reset}
+     */
+    protected abstract void apply(M message, long index, V state);
+
+    /**
+     * Process the next message, if any
+     *
+     * @return false if the queue had nothing new
+     */
+    public boolean poll() {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return false;
+            }
+            lastIndex = dc.index();
+            message.readMarshallable(dc.wire());
+        }
+        K key = keyOf(message);
+        if (key != null) {
+            update(key);
+        }
+        if (++sinceCheckpoint >= checkpointInterval) {
+            checkpoint();
+        }
+        return true;
+    }
+
+    /**
+     * Process messages until the queue has nothing new or {@code maxMessages} were read
+     *
+     * @return the number of messages read
+     */
+    public int drain(int maxMessages) {
+        int read = 0;
+        while (read < maxMessages && poll()) {
+            read++;
+        }
+        return read;
+    }
+
+    private void update(K key) {
+        try (ExternalMapQueryContext<K, V, ?> context = state.queryContext(key)) {
+            context.updateLock().lock();
+            MapEntry<K, V> entry = context.entry();
+            if (entry == null) {
+                value.reset();
+            } else {
+                entry.value().getUsing(value);
+                if (lastIndex <= value.getLastIndex()) {
+                    skipped++;
+                    return;
+                }
+            }
+            apply(message, lastIndex, value);
+            value.setLastIndex(lastIndex);
+            store(context, entry);
+            applied++;
+        }
+    }
+
+    /**
+     * Record the last processed index in the map
+     */
+    public void checkpoint() {
+        sinceCheckpoint = 0;
+        if (lastIndex <= checkpointIndex) {
+            return;
+        }
+        try (ExternalMapQueryContext<K, V, ?> context = state.queryContext(checkpointKey)) {
+            context.updateLock().lock();
+            value.reset();
+            value.setLastIndex(lastIndex);
+            store(context, context.entry());
+        }
+        checkpointIndex = lastIndex;
+    }
+
+    private void store(ExternalMapQueryContext<K, V, ?> context, MapEntry<K, V> entry) {
+        Data<V> data = context.wrapValueAsData(value);
+        if (entry == null) {
+            context.insert(context.absentEntry(), data);
+        } else {
+            context.replaceValue(entry, data);
+        }
+    }
+
+    /**
+     * Queue index of the last checkpoint, negative if none
+     */
+    public long getCheckpointIndex() {
+        return checkpointIndex;
+    }
+
+    public long getApplied() {
+        return applied;
+    }
+
+    /**
+     * Messages read again after a restart that had already been applied
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Checkpoint and release the tailer; the queue and map stay open
+     */
+    @Override
+    public void close() {
+        checkpoint();
+        tailer.close();
+    }
+}
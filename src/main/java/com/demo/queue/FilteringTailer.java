@@ -0,0 +1,73 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Tailer that looks at each excerpt's raw bytes and only hands on the ones a filter accepts.
+ * <p>
+ * The filter sees the excerpt in place in the mapped queue file, positioned at its start, and should
+ * only use absolute reads at fixed offsets, such as the {@link TradeLayout} accessors; nothing is
+ * copied or decoded for excerpts it rejects. The reader then decodes the accepted excerpt from the
+ * same bytes. Neither may keep the bytes after returning.
+ */
+public class FilteringTailer {
+
+    private final ExcerptTailer tailer;
+    private final Predicate<Bytes<?>> filter;
+
+    private long scanned;
+    private long matched;
+
+    /**
+     * @param tailer read by this instance from now on; the caller still closes it
+     */
+    public FilteringTailer(ExcerptTailer tailer, Predicate<Bytes<?>> filter) {
+        this.tailer = tailer;
+        this.filter = filter;
+    }
+
+    /**
+     * Skip to the next excerpt the filter accepts and pass it to the reader
+     *
+     * @return false if no more excerpts were accepted
+     */
+    public boolean read(Consumer<Bytes<?>> reader) {
+        while (true) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent()) {
+                    return false;
+                }
+                scanned++;
+                Bytes<?> bytes = dc.wire().bytes();
+                if (filter.test(bytes)) {
+                    matched++;
+                    reader.accept(bytes);
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Index of the next excerpt to be looked at
+     */
+    public long index() {
+        return tailer.index();
+    }
+
+    /**
+     * Excerpts looked at, accepted or not
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+}
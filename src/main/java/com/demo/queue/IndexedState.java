@@ -0,0 +1,20 @@
+package com.demo.queue;
+
+/**
+ * Map value that remembers the queue index of the last message applied to it, so an
+ * {@link ExactlyOnceConsumer} can tell a replayed message from a new one.
+ */
+public interface IndexedState {
+
+    /**
+     * Index of the last message applied, negative if none
+     */
+    long getLastIndex();
+
+    void setLastIndex(long index);
+
+    /**
+     * Return to the state of a new entry, with a negative last index
+     */
+    void reset();
+}
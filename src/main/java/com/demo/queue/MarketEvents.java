@@ -0,0 +1,20 @@
+package com.demo.queue;
+
+import com.demo.model.MarketData;
+import com.demo.model.Trade;
+
+/**
+ * Typed market events carried over Chronicle Queue.
+ * <p>
+ * Producers call a proxy from {@code queue.methodWriter(MarketEvents.class)}, which writes the
+ * method name and argument as one document. Consumers implement this interface and pass it to
+ * {@code tailer.methodReader(handler)}; each {@code readOne()} dispatches the next event to the
+ * matching method. The reader deserializes into the same argument instance every time, so
+ * handlers must copy anything they need to keep beyond the call.
+ */
+public interface MarketEvents {
+
+    void onTrade(Trade trade);
+
+    void onMarketData(MarketData marketData);
+}
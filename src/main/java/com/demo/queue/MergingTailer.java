@@ -0,0 +1,161 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reads several queues as one stream ordered by a timestamp carried in each excerpt.
+ * <p>
+ * Each queue must be in timestamp order on its own, e.g. one queue per exchange feed. The tailer
+ * keeps the timestamp of every queue's next excerpt in a binary heap of primitive arrays and hands
+ * out the oldest, so each excerpt costs {@code O(log queues)} comparisons and no allocation. The
+ * next excerpt of a queue is peeked by reading its timestamp and rolling the read back, so callers
+ * see the whole excerpt through {@link #readingDocument()} as with an {@link ExcerptTailer}; ties
+ * go to the queue listed first.
+ * <p>
+ * A queue with nothing to read is checked again every {@value #RECHECK_INTERVAL} excerpts and
+ * whenever every queue is empty. Order across queues is therefore exact when replaying recorded
+ * queues; when tailing live queues, an excerpt appended to an idle queue may be handed out after
+ * slightly newer ones from the others. Instances are not thread-safe.
+ */
+public class MergingTailer implements Closeable {
+
+    static final int RECHECK_INTERVAL = 64;
+
+    private final ExcerptTailer[] tailers;
+    private final ToLongFunction<Bytes<?>> timestampReader;
+
+    // Binary min-heap of queue numbers ordered by the timestamp of their next excerpt
+    private final int[] heap;
+    private final long[] heads;
+    private final boolean[] inHeap;
+    private int size;
+
+    private int current = -1;
+    private int sinceRecheck = RECHECK_INTERVAL;
+
+    /**
+     * @param timestampReader reads the ordering timestamp from the start of an excerpt, e.g. {@link TimestampSeek#LEADING_LONG}
+     */
+    public MergingTailer(List<? extends ChronicleQueue> queues, ToLongFunction<Bytes<?>> timestampReader) {
+        if (queues.isEmpty()) {
+            throw new IllegalArgumentException("At least one queue is required");
+        }
+        this.tailers = new ExcerptTailer[queues.size()];
+        for (int i = 0; i < tailers.length; i++) {
+            tailers[i] = queues.get(i).createTailer();
+        }
+        this.timestampReader = timestampReader;
+        this.heap = new int[tailers.length];
+        this.heads = new long[tailers.length];
+        this.inHeap = new boolean[tailers.length];
+    }
+
+    /**
+     * Oldest excerpt across the queues; close it as usual
+     */
+    public DocumentContext readingDocument() {
+        if (current >= 0) {
+            // The previous excerpt came from this queue, so it has moved on to its next one
+            int source = current;
+            current = -1;
+            if (peek(source)) {
+                push(source);
+            }
+        }
+        if (size == 0 || ++sinceRecheck >= RECHECK_INTERVAL) {
+            recheckEmptyQueues();
+        }
+        if (size == 0) {
+            // Nothing else to order against, so whatever the first queue now has is next
+            current = 0;
+            return tailers[0].readingDocument();
+        }
+        current = pop();
+        return tailers[current].readingDocument();
+    }
+
+    /**
+     * Position in the list passed to the constructor of the queue the last excerpt came from
+     */
+    public int getSource() {
+        return current;
+    }
+
+    private void recheckEmptyQueues() {
+        sinceRecheck = 0;
+        for (int source = 0; source < tailers.length; source++) {
+            if (!inHeap[source] && peek(source)) {
+                push(source);
+            }
+        }
+    }
+
+    /**
+     * Read the timestamp of a queue's next excerpt without consuming it
+     */
+    private boolean peek(int source) {
+        try (DocumentContext dc = tailers[source].readingDocument()) {
+            if (!dc.isPresent()) {
+                return false;
+            }
+            heads[source] = timestampReader.applyAsLong(dc.wire().bytes());
+            dc.rollbackOnClose();
+            return true;
+        }
+    }
+
+    private boolean before(int a, int b) {
+        return heads[a] < heads[b] || (heads[a] == heads[b] && a < b);
+    }
+
+    private void push(int source) {
+        inHeap[source] = true;
+        int child = size++;
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (!before(source, heap[parent])) {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = source;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        inHeap[top] = false;
+        int last = heap[--size];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], last)) {
+                break;
+            }
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = last;
+        return top;
+    }
+
+    @Override
+    public void close() {
+        for (ExcerptTailer tailer : tailers) {
+            tailer.close();
+        }
+    }
+}
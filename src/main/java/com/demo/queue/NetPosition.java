@@ -0,0 +1,55 @@
+package com.demo.queue;
+
+import com.demo.model.Trade;
+import lombok.Data;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.bytes.BytesOut;
+
+/**
+ * Net traded quantity and cash of one symbol, stored in a ChronicleMap as four fixed-width fields
+ */
+@Data
+public class NetPosition implements BytesMarshallable, IndexedState {
+
+    private long trades;
+    /** Bought minus sold */
+    private long quantity;
+    /** Received for sales minus paid for purchases */
+    private double cash;
+    private long lastIndex = -1;
+
+    /**
+     * Fold one trade into the position
+     */
+    public void apply(Trade.Side side, double price, long tradeQuantity) {
+        long signed = side == Trade.Side.BUY ? tradeQuantity : -tradeQuantity;
+        trades++;
+        quantity += signed;
+        cash -= signed * price;
+    }
+
+    @Override
+    public void reset() {
+        trades = 0;
+        quantity = 0;
+        cash = 0;
+        lastIndex = -1;
+    }
+
+    @Override
+    public void readMarshallable(BytesIn<?> bytes) {
+        trades = bytes.readLong();
+        quantity = bytes.readLong();
+        cash = bytes.readDouble();
+        lastIndex = bytes.readLong();
+    }
+
+    @Override
+    public void writeMarshallable(BytesOut<?> bytes) {
+        bytes.writeLong(trades);
+        bytes.writeLong(quantity);
+        bytes.writeDouble(cash);
+        bytes.writeLong(lastIndex);
+    }
+}
@@ -0,0 +1,152 @@
+package com.demo.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueStore;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread that keeps the pages ahead of a queue's appenders mapped and faulted in,
+ * and creates the next cycle file before the queue rolls to it.
+ * <p>
+ * The open-source queue's own {@code pretouch()} is a no-op. This class opens the current cycle's
+ * store through the queue, which shares the appender's mapped file, so touching a chunk maps it
+ * for the appender as well. Each page between the write position and {@code aheadBytes} beyond it
+ * is touched with a compare-and-swap of 0 to 0, which allocates the page but can never overwrite
+ * data an appender is writing concurrently. Within {@code cycleLead} of a roll, the next cycle
+ * file is created, so the first write of a new cycle does not pay for file creation.
+ */
+@Slf4j
+public class QueuePretoucher implements Closeable {
+
+    private static final int PAGE_SIZE = 4096;
+
+    private final SingleChronicleQueue queue;
+    private final long aheadBytes;
+    private final long cycleLeadMillis;
+    private final long intervalNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Only touched by the pretoucher thread
+    private SingleChronicleQueueStore store;
+    private MappedBytes bytes;
+    private int currentCycle = Integer.MIN_VALUE;
+    private int lastCreatedCycle = Integer.MIN_VALUE;
+    private long touchedUpTo;
+
+    private volatile long pagesTouched;
+    private volatile long cyclesCreated;
+
+    public QueuePretoucher(SingleChronicleQueue queue, long aheadBytes, long cycleLead, TimeUnit cycleLeadUnit,
+                           long interval, TimeUnit intervalUnit) {
+        this.queue = queue;
+        this.aheadBytes = aheadBytes;
+        this.cycleLeadMillis = cycleLeadUnit.toMillis(cycleLead);
+        this.intervalNanos = intervalUnit.toNanos(interval);
+        this.thread = new Thread(this::run, "queue-pretoucher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Pretouch 4 MB ahead, create the next cycle 100 ms before the roll, every millisecond
+     */
+    public static QueuePretoucher start(SingleChronicleQueue queue) {
+        QueuePretoucher pretoucher = new QueuePretoucher(queue, 4 << 20, 100, TimeUnit.MILLISECONDS,
+            1, TimeUnit.MILLISECONDS);
+        pretoucher.thread.start();
+        return pretoucher;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                execute();
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+        } catch (RuntimeException e) {
+            if (running) {
+                log.warn("Pretoucher stopped", e);
+            }
+        } finally {
+            releaseStore();
+        }
+    }
+
+    /**
+     * One pretouch pass; also usable from an existing event loop instead of {@link #start}
+     */
+    public void execute() {
+        int cycle = queue.cycle();
+        if (cycle != currentCycle) {
+            releaseStore();
+            store = queue.storeForCycle(cycle, queue.epoch(), true, null);
+            bytes = MappedBytes.mappedBytes(store.bytes().mappedFile());
+            currentCycle = cycle;
+            touchedUpTo = 0;
+        }
+
+        long writePosition = store.writePosition();
+        long from = Math.max(touchedUpTo, writePosition) & ~(PAGE_SIZE - 1L);
+        long to = writePosition + aheadBytes;
+        long touched = 0;
+        for (long position = from; position < to; position += PAGE_SIZE) {
+            bytes.compareAndSwapInt(position, 0, 0);
+            touched++;
+        }
+        touchedUpTo = Math.max(touchedUpTo, to);
+        pagesTouched += touched;
+
+        // Cycles are whole roll lengths from the queue's epoch, so the next one starts at a fixed time
+        RollCycle rollCycle = queue.rollCycle();
+        int nextCycle = cycle + 1;
+        long nextCycleStart = queue.epoch() + (long) nextCycle * rollCycle.lengthInMillis();
+        if (queue.time().currentTimeMillis() + cycleLeadMillis >= nextCycleStart && nextCycle != lastCreatedCycle) {
+            SingleChronicleQueueStore next = queue.storeForCycle(nextCycle, queue.epoch(), true, null);
+            if (next != null) {
+                queue.closeStore(next);
+            }
+            lastCreatedCycle = nextCycle;
+            cyclesCreated++;
+        }
+    }
+
+    private void releaseStore() {
+        if (bytes != null) {
+            bytes.releaseLast();
+            bytes = null;
+        }
+        if (store != null) {
+            queue.closeStore(store);
+            store = null;
+        }
+    }
+
+    public long getPagesTouched() {
+        return pagesTouched;
+    }
+
+    public long getCyclesCreated() {
+        return cyclesCreated;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (thread.getState() == Thread.State.NEW) {
+            releaseStore(); // only ever driven through execute()
+            return;
+        }
+        try {
+            thread.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
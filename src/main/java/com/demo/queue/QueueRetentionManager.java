@@ -0,0 +1,269 @@
+package com.demo.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.queue.impl.RollingResourcesCache;
+import net.openhft.chronicle.queue.impl.StoreFileListener;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Applies a retention policy to the rolled cycle files of a queue.
+ * <p>
+ * Cycles more than {@code compressAfterCycles} behind the current cycle are gzipped into the
+ * queue's {@code archive} subdirectory and removed from the queue; cycles more than
+ * {@code deleteAfterCycles} behind are deleted, archived or not. The manager listens for the cycle
+ * files the queue releases, and only ever touches a cycle whose file the queue has released and not
+ * acquired again, so no appender or tailer of the queue still has it mapped; the current and newest
+ * cycles are never touched either. Once started, every release triggers a pass. Cycle files a
+ * process never opened, e.g. from an earlier run, are left alone. Archived cycles stay readable
+ * through {@link ArchiveAwareTailer}.
+ */
+@Slf4j
+public class QueueRetentionManager implements StoreFileListener, Closeable {
+
+    public static final int NEVER = Integer.MAX_VALUE;
+
+    static final String CYCLE_SUFFIX = ".cq4";
+    static final String ARCHIVE_SUFFIX = ".cq4.gz";
+    static final String ARCHIVE_DIRECTORY = "archive";
+
+    private final int compressAfterCycles;
+    private final int deleteAfterCycles;
+    private final Set<Integer> releasedCycles = ConcurrentHashMap.newKeySet();
+    private SingleChronicleQueue queue;
+    private RollingResourcesCache names;
+    private volatile ScheduledExecutorService scheduler;
+
+    private final AtomicLong cyclesCompressed = new AtomicLong();
+    private final AtomicLong cyclesDeleted = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+
+    /**
+     * @param compressAfterCycles age in cycles after which a cycle is archived, or {@link #NEVER}
+     * @param deleteAfterCycles   age in cycles after which a cycle is deleted, or {@link #NEVER}
+     */
+    public QueueRetentionManager(int compressAfterCycles, int deleteAfterCycles) {
+        if (compressAfterCycles < 1 || deleteAfterCycles < 1) {
+            throw new IllegalArgumentException("Retention ages must be at least one cycle");
+        }
+        this.compressAfterCycles = compressAfterCycles;
+        this.deleteAfterCycles = deleteAfterCycles;
+    }
+
+    /**
+     * Build the queue to manage, with this manager listening for the cycle files it acquires and releases
+     */
+    public synchronized SingleChronicleQueue build(SingleChronicleQueueBuilder builder) {
+        if (queue != null) {
+            throw new IllegalStateException("Already managing " + queue.fileAbsolutePath());
+        }
+        queue = builder.storeFileListener(this).build();
+        names = cycleNames(queue);
+        return queue;
+    }
+
+    static RollingResourcesCache cycleNames(SingleChronicleQueue queue) {
+        File directory = queue.file();
+        return new RollingResourcesCache(queue.rollCycle(), queue.epoch(),
+            name -> new File(directory, name + CYCLE_SUFFIX),
+            file -> file.getName().substring(0, file.getName().indexOf('.')));
+    }
+
+    static File archiveDirectory(SingleChronicleQueue queue) {
+        return new File(queue.file(), ARCHIVE_DIRECTORY);
+    }
+
+    /**
+     * Apply the policy periodically on a background thread
+     */
+    public synchronized QueueRetentionManager start(long interval, TimeUnit unit) {
+        requireQueue();
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "queue-retention");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Cycles also age while nothing is released
+            scheduler.scheduleWithFixedDelay(this::runQuietly, interval, interval, unit);
+        }
+        return this;
+    }
+
+    @Override
+    public void onAcquired(int cycle, File file) {
+        releasedCycles.remove(cycle);
+    }
+
+    /**
+     * Called by the queue, on its resource releaser thread, once nothing in it has the cycle's file mapped
+     */
+    @Override
+    public void onReleased(int cycle, File file) {
+        releasedCycles.add(cycle);
+        ScheduledExecutorService running = scheduler;
+        if (running != null) {
+            try {
+                running.execute(this::runQuietly);
+            } catch (RejectedExecutionException e) {
+                log.debug("Retention stopped; {} left for the next run", file.getName());
+            }
+        }
+    }
+
+    private void runQuietly() {
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            log.warn("Retention pass failed for {}", queue.fileAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Apply the policy once to every eligible cycle
+     */
+    public synchronized void runOnce() {
+        requireQueue();
+        int currentCycle = queue.cycle();
+        int protectedFrom = Math.min(currentCycle, queue.lastCycle());
+        boolean changed = false;
+
+        File[] cycleFiles = queue.file().listFiles((dir, name) -> name.endsWith(CYCLE_SUFFIX));
+        if (cycleFiles != null) {
+            for (File file : cycleFiles) {
+                int cycle = names.parseCount(file.getName().substring(0, file.getName().length() - CYCLE_SUFFIX.length()));
+                if (cycle >= protectedFrom || !releasedCycles.contains(cycle)) {
+                    continue;
+                }
+                int age = currentCycle - cycle;
+                boolean removed = false;
+                if (age > deleteAfterCycles) {
+                    removed = delete(file);
+                } else if (age > compressAfterCycles) {
+                    removed = compress(file);
+                }
+                if (removed) {
+                    releasedCycles.remove(cycle);
+                    changed = true;
+                }
+            }
+        }
+
+        File[] archives = archiveDirectory(queue).listFiles((dir, name) -> name.endsWith(ARCHIVE_SUFFIX));
+        if (archives != null) {
+            for (File archive : archives) {
+                int cycle = names.parseCount(archive.getName().substring(0, archive.getName().length() - ARCHIVE_SUFFIX.length()));
+                if (currentCycle - cycle > deleteAfterCycles) {
+                    changed |= delete(archive);
+                }
+            }
+        }
+
+        if (changed) {
+            queue.refreshDirectoryListing();
+        }
+    }
+
+    private void requireQueue() {
+        if (queue == null) {
+            throw new IllegalStateException("No queue built to manage");
+        }
+    }
+
+    private boolean compress(File file) {
+        File archiveDirectory = archiveDirectory(queue);
+        archiveDirectory.mkdirs();
+        File archive = new File(archiveDirectory, file.getName() + ".gz");
+        File partial = new File(archiveDirectory, file.getName() + ".gz.tmp");
+        long originalSize = file.length();
+
+        try (InputStream in = new FileInputStream(file);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(partial), 1 << 16)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            log.warn("Failed to archive {}", file, e);
+            partial.delete();
+            return false;
+        }
+
+        try {
+            // Publish the archive before removing the cycle, so it is readable from one or the other at all
+            // times; ArchiveAwareTailer reads a cycle found in both from the queue only
+            Files.move(partial.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to publish archive {}", archive, e);
+            partial.delete();
+            return false;
+        }
+        if (!file.delete()) {
+            log.warn("Archived {} but could not delete it", file);
+            return false;
+        }
+        cyclesCompressed.incrementAndGet();
+        bytesReclaimed.addAndGet(originalSize - archive.length());
+        log.debug("Archived {} ({} KB -> {} KB)", file.getName(), originalSize / 1024, archive.length() / 1024);
+        return true;
+    }
+
+    private boolean delete(File file) {
+        long size = file.length();
+        if (!file.delete()) {
+            log.warn("Could not delete {}", file);
+            return false;
+        }
+        cyclesDeleted.incrementAndGet();
+        bytesReclaimed.addAndGet(size);
+        log.debug("Deleted {}", file.getName());
+        return true;
+    }
+
+    public long getCyclesCompressed() {
+        return cyclesCompressed.get();
+    }
+
+    public long getCyclesDeleted() {
+        return cyclesDeleted.get();
+    }
+
+    public long getBytesReclaimed() {
+        return bytesReclaimed.get();
+    }
+
+    /**
+     * Stop the background passes, if started; the queue stays open, and releases no longer trigger a pass
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Calls an {@link RpcServer} through its request and response queues.
+ * <p>
+ * Every caller of a server tails the whole response queue from where it stood when the client was
+ * created, and keeps only the responses bearing its caller id: other callers' responses are
+ * recognised from the header in place and skipped without decoding. A call waits for the response
+ * with its own correlation id; responses to earlier calls that timed out are dropped when they
+ * arrive. Correlation ids start from the wall-clock milliseconds shifted up 20 bits, so a restarted
+ * caller does not take a response meant for its previous run unless that run averaged over a million
+ * calls a millisecond.
+ * <p>
+ * Caller ids must be unique among the clients of a server. A client is not thread-safe: create it on
+ * the thread that makes the calls, as its appender and tailer belong to that thread, and give each
+ * calling thread its own, with its own caller id.
+ */
+public class RpcClient implements Closeable {
+
+    private final int callerId;
+    private final ExcerptAppender appender;
+    private final ExcerptTailer tailer;
+    private final WaitStrategy waitStrategy;
+
+    private long nextCorrelationId = System.currentTimeMillis() << 20;
+    private long timeouts;
+    private long staleResponses;
+
+    public RpcClient(ChronicleQueue requests, ChronicleQueue responses, int callerId, WaitStrategy waitStrategy) {
+        this.callerId = callerId;
+        this.waitStrategy = waitStrategy;
+        this.appender = requests.createAppender();
+        this.tailer = responses.createTailer().toEnd();
+    }
+
+    /**
+     * Send a request and wait for its response
+     *
+     * @param request  writes the request payload
+     * @param response reads the response payload, positioned at its start
+     * @return false if no response came within the timeout; the server drops the request if it has
+     * not started on it by then
+     * @throws IllegalStateException if the server's handler failed
+     */
+    public boolean call(Consumer<Bytes<?>> request, Consumer<Bytes<?>> response, long timeout, TimeUnit unit) {
+        long timeoutNanos = unit.toNanos(timeout);
+        long deadlineNanos = System.nanoTime() + timeoutNanos;
+        long correlationId = nextCorrelationId++;
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(correlationId);
+            bytes.writeInt(callerId);
+            bytes.writeLong(System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + 1);
+            request.accept(bytes);
+        }
+
+        int idleCount = 0;
+        while (true) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (dc.isPresent()) {
+                    Bytes<?> bytes = dc.wire().bytes();
+                    long start = bytes.readPosition();
+                    if (bytes.readInt(start + RpcServer.CALLER_ID) != callerId) {
+                        continue;
+                    }
+                    if (bytes.readLong(start + RpcServer.CORRELATION_ID) != correlationId) {
+                        staleResponses++;
+                        continue;
+                    }
+                    byte status = bytes.readByte(start + RpcServer.STATUS);
+                    bytes.readPosition(start + RpcServer.RESPONSE_HEADER);
+                    if (status != RpcServer.OK) {
+                        throw new IllegalStateException("RPC call failed: " + bytes.readUtf8());
+                    }
+                    response.accept(bytes);
+                    waitStrategy.reset();
+                    return true;
+                }
+            }
+            if (System.nanoTime() - deadlineNanos > 0) {
+                timeouts++;
+                waitStrategy.reset();
+                return false;
+            }
+            waitStrategy.idle(++idleCount);
+        }
+    }
+
+    public int getCallerId() {
+        return callerId;
+    }
+
+    /**
+     * Calls that gave up waiting
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Responses that arrived after their call had timed out
+     */
+    public long getStaleResponses() {
+        return staleResponses;
+    }
+
+    /**
+     * Release the appender and tailer; the queues stay open
+     */
+    @Override
+    public void close() {
+        appender.close();
+        tailer.close();
+    }
+}
@@ -0,0 +1,19 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+
+/**
+ * Service logic behind an {@link RpcServer}
+ */
+@FunctionalInterface
+public interface RpcHandler {
+
+    /**
+     * Handle one request
+     *
+     * @param request  the request payload, positioned at its start
+     * @param response where to write the response payload; a handler that throws sends the caller
+     *                 an error instead
+     */
+    void handle(Bytes<?> request, Bytes<?> response);
+}
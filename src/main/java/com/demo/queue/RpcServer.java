@@ -0,0 +1,164 @@
+package com.demo.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.util.function.Supplier;
+
+/**
+ * Serves requests from one queue, appending each response to another, for {@link RpcClient}s in
+ * this or other processes.
+ * <p>
+ * A request excerpt is the caller's correlation id, caller id and deadline followed by the payload;
+ * the response carries the same correlation and caller ids and a status before its payload, so each
+ * caller can pick out its own responses. Requests are read with a named tailer, so a restarted
+ * server carries on where it stopped; requests whose deadline has passed are dropped unanswered,
+ * since their caller has already given up. Run the server on its own thread with {@link #start()},
+ * or on the current one with {@link #run()}.
+ */
+@Slf4j
+public class RpcServer implements Runnable, Closeable {
+
+    static final int CORRELATION_ID = 0;
+    static final int CALLER_ID = 8;
+    // Requests: deadline in epoch millis, 0 for none
+    static final int DEADLINE = 12;
+    static final int REQUEST_HEADER = 20;
+    // Responses: status, then the payload or an error message
+    static final int STATUS = 12;
+    static final int RESPONSE_HEADER = 13;
+
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+
+    private final ChronicleQueue requests;
+    private final ChronicleQueue responses;
+    private final String name;
+    private final RpcHandler handler;
+    private final Supplier<WaitStrategy> waitStrategyFactory;
+
+    private volatile boolean running = true;
+    private Thread thread;
+    private volatile long handled;
+    private volatile long expired;
+    private volatile long failed;
+
+    public RpcServer(ChronicleQueue requests, ChronicleQueue responses, String name, RpcHandler handler,
+                     Supplier<WaitStrategy> waitStrategyFactory) {
+        this.requests = requests;
+        this.responses = responses;
+        this.name = name;
+        this.handler = handler;
+        this.waitStrategyFactory = waitStrategyFactory;
+    }
+
+    /**
+     * Serve on a new thread until closed
+     */
+    public synchronized RpcServer start() {
+        if (thread == null) {
+            thread = new Thread(this, "rpc-server-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return this;
+    }
+
+    /**
+     * Serve on the current thread until closed
+     */
+    @Override
+    public void run() {
+        WaitStrategy waitStrategy = waitStrategyFactory.get();
+        try (ExcerptTailer tailer = requests.createTailer("rpc-server-" + name);
+             ExcerptAppender appender = responses.createAppender()) {
+            int idleCount = 0;
+            while (running) {
+                if (poll(tailer, appender)) {
+                    idleCount = 0;
+                    waitStrategy.reset();
+                } else {
+                    waitStrategy.idle(++idleCount);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("RPC server {} failed", name, e);
+        }
+    }
+
+    private boolean poll(ExcerptTailer tailer, ExcerptAppender appender) {
+        try (DocumentContext request = tailer.readingDocument()) {
+            if (!request.isPresent()) {
+                return false;
+            }
+            Bytes<?> in = request.wire().bytes();
+            long start = in.readPosition();
+            long deadline = in.readLong(start + DEADLINE);
+            if (deadline != 0 && System.currentTimeMillis() > deadline) {
+                expired++;
+                return true;
+            }
+            in.readPosition(start + REQUEST_HEADER);
+            try (DocumentContext response = appender.writingDocument()) {
+                Bytes<?> out = response.wire().bytes();
+                long header = out.writePosition();
+                out.writeLong(in.readLong(start + CORRELATION_ID));
+                out.writeInt(in.readInt(start + CALLER_ID));
+                out.writeByte(OK);
+                try {
+                    handler.handle(in, out);
+                    handled++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    out.writePosition(header + STATUS);
+                    out.writeByte(FAILED);
+                    out.writeUtf8(String.valueOf(e.getMessage()));
+                    log.debug("RPC server {} handler failed", name, e);
+                }
+            }
+            return true;
+        }
+    }
+
+    public long getHandled() {
+        return handled;
+    }
+
+    /**
+     * Requests dropped because their deadline had passed
+     */
+    public long getExpired() {
+        return expired;
+    }
+
+    /**
+     * Requests whose handler threw
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Stop serving after the current request; the queues stay open
+     */
+    @Override
+    public void close() {
+        running = false;
+        Thread serving;
+        synchronized (this) {
+            serving = thread;
+        }
+        if (serving != null) {
+            try {
+                serving.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.demo.queue;
+
+import lombok.Data;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.bytes.BytesOut;
+
+/**
+ * How far one named tailer is behind the end of its queue, as last sampled by a {@link TailerLagMonitor}.
+ * <p>
+ * Stored in the monitor's ChronicleMap as fixed-width fields, so any process mapping the same file
+ * sees each sample as soon as it is written.
+ */
+@Data
+public class TailerLag implements BytesMarshallable {
+
+    /** Index of the next excerpt the tailer will read */
+    private long nextIndex;
+    /** Excerpts appended that the tailer has not read yet */
+    private long messages;
+    /** Queue bytes, headers included, between the tailer and the end of the queue */
+    private long bytes;
+    /** How long ago the oldest unread excerpt was appended, to within one sampling interval */
+    private long timeLagNanos;
+    /** Wall-clock time of the sample, epoch millis */
+    private long sampledMillis;
+    /** Whether this tailer's lag is currently holding producers back */
+    private boolean throttling;
+
+    @Override
+    public void readMarshallable(BytesIn<?> bytes) {
+        nextIndex = bytes.readLong();
+        messages = bytes.readLong();
+        this.bytes = bytes.readLong();
+        timeLagNanos = bytes.readLong();
+        sampledMillis = bytes.readLong();
+        throttling = bytes.readBoolean();
+    }
+
+    @Override
+    public void writeMarshallable(BytesOut<?> bytes) {
+        bytes.writeLong(nextIndex);
+        bytes.writeLong(messages);
+        bytes.writeLong(this.bytes);
+        bytes.writeLong(timeLagNanos);
+        bytes.writeLong(sampledMillis);
+        bytes.writeBoolean(throttling);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("messages=%d bytes=%d time=%.3f ms%s", messages, bytes, timeLagNanos / 1e6,
+            throttling ? " THROTTLING" : "");
+    }
+}
@@ -0,0 +1,383 @@
+package com.demo.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples how far each named tailer of a queue is behind its end and publishes the figures to a
+ * persisted ChronicleMap, which other processes can map to watch the consumers.
+ * <p>
+ * Named tailers keep their position in the queue's metadata, so the monitor reads them without the
+ * consumers' help and without affecting them. Each sample gives the lag in excerpts, in queue bytes
+ * and in time; the queue does not record append times, so the time lag is taken from the monitor's
+ * own history of the queue's last index and is accurate to one sampling interval.
+ * <p>
+ * With {@link #backPressure} set, producers that call {@link #awaitCapacity} before appending are
+ * held back while the slowest tailer is more than the pause threshold behind, until it gets back
+ * under the resume threshold. Producers in other processes can check {@link #isThrottled(Map)} on
+ * the published metrics instead.
+ */
+@Slf4j
+public class TailerLagMonitor implements Closeable {
+
+    private static final int HISTORY = 4096;
+
+    private final SingleChronicleQueue queue;
+    private final ChronicleMap<String, TailerLag> metrics;
+    private final Map<String, LongValue> positions = new LinkedHashMap<>();
+    private final Map<String, TailerLag> latest = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    // Ring of (time, last index) samples, oldest first from head - historySize
+    private final long[] historyNanos = new long[HISTORY];
+    private final long[] historyLastIndex = new long[HISTORY];
+    private int historyHead;
+    private int historySize;
+
+    private long pauseAboveMessages = Long.MAX_VALUE;
+    private long resumeBelowMessages = Long.MAX_VALUE;
+    private volatile boolean throttled;
+    private volatile long throttleEvents;
+
+    /**
+     * @param metricsFile where the figures are published, created if missing
+     * @param tailerNames names the consumers give {@code createTailer}
+     */
+    public TailerLagMonitor(SingleChronicleQueue queue, File metricsFile, String... tailerNames) throws IOException {
+        if (tailerNames.length == 0) {
+            throw new IllegalArgumentException("No tailers to monitor");
+        }
+        this.queue = queue;
+        this.metrics = openMetrics(metricsFile, tailerNames.length,
+            Arrays.stream(tailerNames).max(Comparator.comparingInt(String::length)).get());
+        for (String name : tailerNames) {
+            positions.put(name, queue.indexForId(name));
+            latest.put(name, new TailerLag());
+        }
+    }
+
+    /**
+     * Map a metrics file published by a monitor, e.g. from another process
+     *
+     * @throws FileNotFoundException if no monitor has published to the file
+     */
+    public static ChronicleMap<String, TailerLag> openMetrics(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException("No tailer lag metrics at " + file.getAbsolutePath());
+        }
+        return openMetrics(file, 64, "consumer-0");
+    }
+
+    private static ChronicleMap<String, TailerLag> openMetrics(File file, int tailers, String sampleName)
+            throws IOException {
+        file.getParentFile().mkdirs();
+        return ChronicleMap
+                .of(String.class, TailerLag.class)
+                .name("tailer-lag")
+                .entries(tailers)
+                .averageKey(sampleName)
+                .constantValueSizeBySample(new TailerLag())
+                .createPersistedTo(file);
+    }
+
+    /**
+     * Whether any tailer in published metrics is holding producers back
+     */
+    public static boolean isThrottled(Map<String, TailerLag> metrics) {
+        return metrics.values().stream().anyMatch(TailerLag::isThrottling);
+    }
+
+    /**
+     * Hold producers back while the slowest tailer is more than {@code pauseAboveMessages} behind,
+     * until it is no more than {@code resumeBelowMessages} behind
+     */
+    public synchronized TailerLagMonitor backPressure(long pauseAboveMessages, long resumeBelowMessages) {
+        if (resumeBelowMessages > pauseAboveMessages) {
+            throw new IllegalArgumentException("Resume threshold " + resumeBelowMessages
+                + " is above the pause threshold " + pauseAboveMessages);
+        }
+        this.pauseAboveMessages = pauseAboveMessages;
+        this.resumeBelowMessages = resumeBelowMessages;
+        return this;
+    }
+
+    /**
+     * Sample periodically on a background thread
+     */
+    public synchronized TailerLagMonitor start(long interval, TimeUnit unit) {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "tailer-lag-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    sample();
+                } catch (RuntimeException e) {
+                    log.warn("Lag sample failed for {}", queue.fileAbsolutePath(), e);
+                }
+            }, 0, interval, unit);
+        }
+        return this;
+    }
+
+    /**
+     * Sample every tailer once, publish the figures and update the back-pressure state
+     */
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        long millis = System.currentTimeMillis();
+        long last = queue.lastIndex();
+        record(now, last);
+
+        String slowest = null;
+        long slowestMessages = -1;
+        // Tailers are single threaded and sample() runs on the scheduler and its callers alike,
+        // so the probe lives only for one sample, on the thread taking it
+        try (ExcerptTailer probe = queue.createTailer()) {
+            for (Map.Entry<String, LongValue> entry : positions.entrySet()) {
+                long next = nextIndex(entry.getValue());
+                long messages = messagesBetween(next, last);
+                TailerLag lag = latest.get(entry.getKey());
+                lag.setNextIndex(next);
+                lag.setMessages(messages);
+                lag.setBytes(messages == 0 ? 0 : bytesBetween(probe, next, last));
+                lag.setTimeLagNanos(messages == 0 ? 0 : now - appendedBy(next, now));
+                lag.setSampledMillis(millis);
+                lag.setThrottling(false);
+                if (messages > slowestMessages) {
+                    slowest = entry.getKey();
+                    slowestMessages = messages;
+                }
+            }
+        }
+
+        if (!throttled && slowestMessages > pauseAboveMessages) {
+            throttled = true;
+            throttleEvents++;
+            log.debug("Throttling producers of {}: {} is {} excerpts behind", queue.fileAbsolutePath(), slowest,
+                slowestMessages);
+        } else if (throttled && slowestMessages <= resumeBelowMessages) {
+            throttled = false;
+            notifyAll();
+        }
+        if (throttled) {
+            latest.get(slowest).setThrottling(true);
+        }
+        latest.forEach(metrics::put);
+    }
+
+    /**
+     * Latest published figures for a tailer, or null before the first sample
+     */
+    public TailerLag getLag(String tailerName) {
+        return metrics.get(tailerName);
+    }
+
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    /**
+     * How many times producers have been held back
+     */
+    public long getThrottleEvents() {
+        return throttleEvents;
+    }
+
+    /**
+     * Wait, if producers are being held back, until the slowest tailer has caught up enough; free when they are not
+     *
+     * @return false if the timeout expired first
+     */
+    public boolean awaitCapacity(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!throttled) {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (throttled) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    private long nextIndex(LongValue position) {
+        long next = position.getVolatileValue();
+        long first = queue.firstIndex();
+        // 0 for a tailer that has not read anything yet; older than the first index after retention
+        return next < first ? first : next;
+    }
+
+    private long messagesBetween(long next, long last) {
+        if (last < 0 || next > last) {
+            return 0;
+        }
+        RollCycle rollCycle = queue.rollCycle();
+        if (rollCycle.toCycle(next) == rollCycle.toCycle(last)) {
+            return rollCycle.toSequenceNumber(last) - rollCycle.toSequenceNumber(next) + 1;
+        }
+        return queue.countExcerpts(next, last) + 1;
+    }
+
+    private long bytesBetween(ExcerptTailer probe, long next, long last) {
+        RollCycle rollCycle = queue.rollCycle();
+        int fromCycle = rollCycle.toCycle(next);
+        int toCycle = rollCycle.toCycle(last);
+        long bytes = 0;
+        try {
+            for (long c : queue.listCyclesBetween(fromCycle, toCycle)) {
+                int cycle = (int) c;
+                long first = cycle == fromCycle ? next : rollCycle.toIndex(cycle, 0);
+                long lastInCycle = cycle == toCycle ? last : lastIndexInCycle(probe, cycle);
+                if (lastInCycle >= first) {
+                    long start = headerPosition(probe, first);
+                    long end = endPosition(probe, lastInCycle);
+                    if (start >= 0 && end >= start) {
+                        bytes += end - start;
+                    }
+                }
+            }
+        } catch (ParseException e) {
+            throw new IllegalStateException("Unable to list queue cycles", e);
+        }
+        return bytes;
+    }
+
+    /**
+     * Index of the last excerpt in a cycle that has rolled, found by probing the cycle's sequence
+     * numbers: doubling until one is missing, then halving between the last found and the missing one
+     */
+    private long lastIndexInCycle(ExcerptTailer probe, int cycle) {
+        RollCycle rollCycle = queue.rollCycle();
+        if (!probe.moveToCycle(cycle) || !probe.moveToIndex(rollCycle.toIndex(cycle, 0))) {
+            return -1;
+        }
+        long found = 0;
+        long missing = 1;
+        while (missing < rollCycle.maxMessagesPerCycle() && probe.moveToIndex(rollCycle.toIndex(cycle, missing))) {
+            found = missing;
+            missing <<= 1;
+        }
+        while (missing - found > 1) {
+            long mid = (found + missing) >>> 1;
+            if (probe.moveToIndex(rollCycle.toIndex(cycle, mid))) {
+                found = mid;
+            } else {
+                missing = mid;
+            }
+        }
+        return rollCycle.toIndex(cycle, found);
+    }
+
+    private long headerPosition(ExcerptTailer probe, long index) {
+        if (!probe.moveToIndex(index)) {
+            return -1;
+        }
+        try (DocumentContext dc = probe.readingDocument()) {
+            // The 4-byte length header sits just before the excerpt's data
+            return dc.isPresent() ? dc.wire().bytes().readPosition() - 4 : -1;
+        }
+    }
+
+    private long endPosition(ExcerptTailer probe, long index) {
+        if (!probe.moveToIndex(index)) {
+            return -1;
+        }
+        try (DocumentContext dc = probe.readingDocument()) {
+            return dc.isPresent() ? dc.wire().bytes().readLimit() : -1;
+        }
+    }
+
+    private void record(long nanos, long lastIndex) {
+        historyNanos[historyHead] = nanos;
+        historyLastIndex[historyHead] = lastIndex;
+        historyHead = (historyHead + 1) % HISTORY;
+        historySize = Math.min(historySize + 1, HISTORY);
+    }
+
+    /**
+     * Time of the first sample that saw the excerpt at {@code index}; the oldest sample if they all did
+     */
+    private long appendedBy(long index, long now) {
+        int low = 0;
+        int high = historySize - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (historyLastIndex[slot(mid)] >= index) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return historySize == 0 ? now : historyNanos[slot(low)];
+    }
+
+    private int slot(int age) {
+        return Math.floorMod(historyHead - historySize + age, HISTORY);
+    }
+
+    /**
+     * Stop sampling, release any held-back producers and close the metrics map; the queue stays open
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            throttled = false;
+            notifyAll();
+            positions.values().forEach(LongValue::close);
+            metrics.close();
+        }
+    }
+
+    /**
+     * Print the figures a monitor has published: {@code TailerLagMonitor <metrics file>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            log.info("Usage: TailerLagMonitor <metrics file>");
+            return;
+        }
+        try (ChronicleMap<String, TailerLag> published = openMetrics(new File(args[0]))) {
+            published.forEach((name, lag) -> log.info("{}: next={} {}", name, Long.toHexString(lag.getNextIndex()), lag));
+            log.info("Producers throttled: {}", isThrottled(published));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.demo.queue;
+
+import com.demo.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs many low-rate queue consumers, either each on its own virtual thread or shared out over a
+ * small pool of platform threads.
+ * <p>
+ * With {@link #virtualThreads}, every subscription gets a tailer loop on a virtual thread which,
+ * when its queue is empty, waits on the queue's wakeup strategy. That must park, e.g.
+ * {@link WaitStrategies#parkWithWakeup}, shared by the queue's producers and consumers: a parked
+ * virtual thread gives its carrier back, so thousands of idle consumers cost a few hundred bytes of
+ * heap each and no OS threads. Spinning or yielding strategies would keep every carrier busy.
+ * <p>
+ * With {@link #platformPool}, each pool thread polls its share of the subscriptions in turn and
+ * backs off with its own wait strategy once a whole pass finds nothing; a thread cannot wait on
+ * thousands of queues at once, so delivery waits for the next pass.
+ * <p>
+ * Handlers run on the consumer's thread and see each excerpt in place, positioned at its start.
+ */
+@Slf4j
+public class TailerRuntime implements Closeable {
+
+    private final String name;
+    private final ThreadFactory virtualThreadFactory;
+    private final List<PoolWorker> poolWorkers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private TailerRuntime(String name, ThreadFactory virtualThreadFactory) {
+        this.name = name;
+        this.virtualThreadFactory = virtualThreadFactory;
+    }
+
+    /**
+     * One virtual thread per subscription
+     *
+     * @throws UnsupportedOperationException before Java 21
+     */
+    public static TailerRuntime virtualThreads(String name) {
+        return new TailerRuntime(name, VirtualThreads.factory(name + "-"));
+    }
+
+    /**
+     * Subscriptions shared out over {@code threads} platform threads
+     */
+    public static TailerRuntime platformPool(String name, int threads, Supplier<WaitStrategy> waitStrategyFactory) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        TailerRuntime runtime = new TailerRuntime(name, null);
+        for (int i = 0; i < threads; i++) {
+            PoolWorker worker = runtime.new PoolWorker(waitStrategyFactory.get());
+            Thread thread = new Thread(worker, name + "-" + i);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            runtime.poolWorkers.add(worker);
+            runtime.threads.add(thread);
+            thread.start();
+        }
+        return runtime;
+    }
+
+    /**
+     * Consume a queue from the start, or from where a named tailer stopped
+     *
+     * @param tailerName name of the tailer, or null for an unnamed one
+     * @param wakeup     the queue's wait strategy, which its producers signal; virtual threads wait on it
+     */
+    public void subscribe(ChronicleQueue queue, String tailerName, WaitStrategy wakeup, Consumer<Bytes<?>> handler) {
+        Subscription subscription = new Subscription(queue, tailerName, handler);
+        if (virtualThreadFactory == null) {
+            PoolWorker worker = poolWorkers.get(Math.floorMod(nextWorker.getAndIncrement(), poolWorkers.size()));
+            worker.pending.add(subscription);
+            LockSupport.unpark(worker.thread);
+            return;
+        }
+        Thread thread = virtualThreadFactory.newThread(() -> consume(subscription, wakeup));
+        synchronized (threads) {
+            threads.add(thread);
+        }
+        thread.start();
+    }
+
+    private void consume(Subscription subscription, WaitStrategy wakeup) {
+        ExcerptTailer tailer;
+        try {
+            tailer = subscription.open();
+        } catch (RuntimeException e) {
+            log.error("Could not tail {}", subscription.queue.fileAbsolutePath(), e);
+            return;
+        }
+        try {
+            int idleCount = 0;
+            while (running) {
+                if (subscription.poll(tailer)) {
+                    idleCount = 0;
+                    wakeup.reset();
+                } else {
+                    wakeup.idle(++idleCount);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Consumer of {} failed", subscription.queue.fileAbsolutePath(), e);
+        } finally {
+            tailer.close();
+            active.decrementAndGet();
+        }
+    }
+
+    /**
+     * Subscriptions whose tailer is open
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * Excerpts handed to handlers, over all subscriptions
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Stop every consumer after its current excerpt; the queues stay open
+     */
+    @Override
+    public void close() {
+        running = false;
+        List<Thread> all;
+        synchronized (threads) {
+            all = new ArrayList<>(threads);
+        }
+        for (Thread thread : all) {
+            LockSupport.unpark(thread);
+        }
+        for (Thread thread : all) {
+            try {
+                thread.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (thread.isAlive()) {
+                log.warn("{} thread {} did not stop", name, thread.getName());
+            }
+        }
+    }
+
+    private final class Subscription {
+
+        private final ChronicleQueue queue;
+        private final String tailerName;
+        private final Consumer<Bytes<?>> handler;
+
+        private Subscription(ChronicleQueue queue, String tailerName, Consumer<Bytes<?>> handler) {
+            this.queue = queue;
+            this.tailerName = tailerName;
+            this.handler = handler;
+        }
+
+        /**
+         * Create the tailer, on the thread that will use it
+         */
+        private ExcerptTailer open() {
+            ExcerptTailer tailer = tailerName == null ? queue.createTailer() : queue.createTailer(tailerName);
+            active.incrementAndGet();
+            return tailer;
+        }
+
+        private boolean poll(ExcerptTailer tailer) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent()) {
+                    return false;
+                }
+                try {
+                    handler.accept(dc.wire().bytes());
+                } catch (RuntimeException e) {
+                    errors.increment();
+                    log.warn("Consumer of {} failed on excerpt {}", queue.fileAbsolutePath(),
+                        Long.toHexString(dc.index()), e);
+                }
+                delivered.increment();
+                return true;
+            }
+        }
+    }
+
+    private final class PoolWorker implements Runnable {
+
+        private final WaitStrategy waitStrategy;
+        private final Queue<Subscription> pending = new ConcurrentLinkedQueue<>();
+        private final List<Subscription> subscriptions = new ArrayList<>();
+        private final List<ExcerptTailer> tailers = new ArrayList<>();
+        private Thread thread;
+
+        private PoolWorker(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+        }
+
+        @Override
+        public void run() {
+            int idleCount = 0;
+            try {
+                while (running) {
+                    for (Subscription subscription; (subscription = pending.poll()) != null; ) {
+                        tailers.add(subscription.open());
+                        subscriptions.add(subscription);
+                    }
+                    boolean read = false;
+                    for (int i = 0; i < subscriptions.size(); i++) {
+                        read |= subscriptions.get(i).poll(tailers.get(i));
+                    }
+                    if (read) {
+                        idleCount = 0;
+                        waitStrategy.reset();
+                    } else {
+                        waitStrategy.idle(++idleCount);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("{} pool thread failed", name, e);
+            } finally {
+                tailers.forEach(ExcerptTailer::close);
+                active.addAndGet(-tailers.size());
+            }
+        }
+    }
+}
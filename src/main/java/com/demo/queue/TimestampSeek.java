@@ -0,0 +1,124 @@
+package com.demo.queue;
+
+import lombok.experimental.UtilityClass;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.text.ParseException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Positions a tailer at the first excerpt at or after a timestamp without reading the queue
+ * from the start.
+ * <p>
+ * Excerpts must carry a timestamp that never decreases in append order, read from the start of
+ * the excerpt by a caller-supplied function. The search first bisects the roll cycles by their
+ * first excerpt, then gallops and bisects sequence numbers within the chosen cycle. A seek reads
+ * {@code O(log cycles + log position)} timestamps and never needs the cycle's excerpt count,
+ * which is costly to compute. Moving between cycles is the expensive step, since it maps another
+ * cycle file, so a seek only visits the few cycles the bisection probes.
+ */
+@UtilityClass
+public class TimestampSeek {
+
+    /**
+     * Timestamp stored as the first long of the excerpt, as written by the demos
+     */
+    public static final ToLongFunction<Bytes<?>> LEADING_LONG = Bytes::readLong;
+
+    /**
+     * Move the tailer to the first excerpt whose timestamp is at or after {@code timestamp}
+     *
+     * @return false if every excerpt is older; the tailer is then left at the end of the queue
+     */
+    public static boolean seek(SingleChronicleQueue queue, ExcerptTailer tailer, long timestamp,
+                               ToLongFunction<Bytes<?>> timestampReader) {
+        tailer.direction(TailerDirection.FORWARD);
+        RollCycle rollCycle = queue.rollCycle();
+        int[] cycles = cycles(queue);
+        if (cycles.length == 0) {
+            tailer.toEnd();
+            return false;
+        }
+
+        // Last cycle whose first excerpt is not after the target
+        int low = 0;
+        int high = cycles.length - 1;
+        int candidate = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(tailer, rollCycle.toIndex(cycles[mid], 0), timestampReader) <= timestamp) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        // First sequence in that cycle at or after the target; sequences past the end count as later
+        int cycle = cycles[candidate];
+        long found;
+        if (timestampAt(tailer, rollCycle.toIndex(cycle, 0), timestampReader) >= timestamp) {
+            found = 0;
+        } else {
+            long bound = 1;
+            while (timestampAt(tailer, rollCycle.toIndex(cycle, bound), timestampReader) < timestamp) {
+                bound <<= 1;
+            }
+            long before = bound >>> 1;
+            found = bound;
+            while (found - before > 1) {
+                long mid = (before + found) >>> 1;
+                if (timestampAt(tailer, rollCycle.toIndex(cycle, mid), timestampReader) < timestamp) {
+                    before = mid;
+                } else {
+                    found = mid;
+                }
+            }
+        }
+
+        if (tailer.moveToIndex(rollCycle.toIndex(cycle, found))) {
+            return true;
+        }
+        // Everything in this cycle is older, so the answer is the start of the next non-empty one
+        for (int next = candidate + 1; next < cycles.length; next++) {
+            if (tailer.moveToIndex(rollCycle.toIndex(cycles[next], 0))) {
+                return true;
+            }
+        }
+        tailer.toEnd();
+        return false;
+    }
+
+    private static int[] cycles(SingleChronicleQueue queue) {
+        if (queue.firstCycle() == Integer.MAX_VALUE) {
+            return new int[0];
+        }
+        try {
+            return queue.listCyclesBetween(queue.firstCycle(), queue.lastCycle()).stream()
+                    .mapToInt(Long::intValue)
+                    .toArray();
+        } catch (ParseException e) {
+            throw new IllegalStateException("Unable to list queue cycles", e);
+        }
+    }
+
+    /**
+     * Timestamp of the excerpt at an index, or {@code Long.MAX_VALUE} if there is none
+     */
+    private static long timestampAt(ExcerptTailer tailer, long index, ToLongFunction<Bytes<?>> timestampReader) {
+        if (!tailer.moveToIndex(index)) {
+            return Long.MAX_VALUE;
+        }
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return Long.MAX_VALUE;
+            }
+            return timestampReader.applyAsLong(dc.wire().bytes());
+        }
+    }
+}
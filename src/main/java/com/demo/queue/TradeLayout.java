@@ -0,0 +1,269 @@
+package com.demo.queue;
+
+import com.demo.model.Trade;
+import com.demo.util.SymbolCodes;
+import lombok.experimental.UtilityClass;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Binary layout of a {@link Trade} excerpt with its filterable fields at fixed offsets.
+ * <p>
+ * The excerpt starts with a fixed-width header, so a consumer can look at the symbol, side or type
+ * in the mapped queue bytes with absolute reads, without moving the read position or creating
+ * anything, and only decode the excerpts it wants; see {@link FilteringTailer}. The header is
+ * followed by the variable-length order, client and exchange fields. A symbol with no code, i.e.
+ * empty, longer than {@value SymbolCodes#MAX_LENGTH} characters or not ASCII, is kept at the end of
+ * the variable-length fields instead, and filtering on it has to decode that far.
+ * <p>
+ * Price and commission keep their exact value and scale as an unscaled long and a scale byte, so
+ * {@code 100.10} decodes as {@code 100.10}. A decimal whose unscaled value does not fit a long, or
+ * whose scale is outside -126 to 127, is kept as text at the end of the variable-length fields instead.
+ * <pre>
+ *  0  symbol          long, {@link SymbolCodes symbol code}, 0 if none or it has no code
+ *  8  price           long, unscaled value
+ * 16  quantity        long
+ * 24  tradeId         long
+ * 32  timestamp       long, epoch nanos UTC
+ * 40  side            byte, ordinal or -1
+ * 41  tradeType       byte, ordinal or -1
+ * 42  priceScale      byte, -128 if none, -127 if kept as text
+ * 43  commissionScale byte, the same
+ * 44  commission      long, unscaled value
+ * 52  buyOrderId, sellOrderId, buyClientId, sellClientId, exchange: stop-bit length prefixed UTF-8
+ *     symbol, the same, null unless the symbol has no code
+ *     price, commission, the same, null unless kept as text
+ * </pre>
+ */
+@UtilityClass
+public class TradeLayout {
+
+    public static final int SYMBOL = 0;
+    public static final int PRICE = 8;
+    public static final int QUANTITY = 16;
+    public static final int TRADE_ID = 24;
+    public static final int TIMESTAMP = 32;
+    public static final int SIDE = 40;
+    public static final int TRADE_TYPE = 41;
+    public static final int PRICE_SCALE = 42;
+    public static final int COMMISSION_SCALE = 43;
+    public static final int COMMISSION = 44;
+    public static final int HEADER_SIZE = 52;
+
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    private static final byte NO_SCALE = Byte.MIN_VALUE;
+    private static final byte AS_TEXT = Byte.MIN_VALUE + 1;
+    // Variable-length fields before the symbol, price and commission kept as text
+    private static final int IDENTIFIERS = 5;
+    private static final int TEXT_SYMBOL = IDENTIFIERS;
+    private static final int TEXT_PRICE = IDENTIFIERS + 1;
+
+    // values() clones its array on every call
+    private static final Trade.Side[] SIDES = Trade.Side.values();
+    private static final Trade.TradeType[] TRADE_TYPES = Trade.TradeType.values();
+
+    public static void write(ExcerptAppender appender, Trade trade) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            write(dc.wire().bytes(), trade);
+        }
+    }
+
+    public static void write(Bytes<?> bytes, Trade trade) {
+        String symbol = trade.getSymbol();
+        boolean coded = symbol != null && SymbolCodes.canEncode(symbol);
+        bytes.writeLong(coded ? SymbolCodes.encode(symbol) : 0);
+        BigDecimal price = trade.getPrice();
+        BigDecimal commission = trade.getCommission();
+        byte priceScale = scale(price);
+        byte commissionScale = scale(commission);
+        bytes.writeLong(priceScale <= AS_TEXT ? 0 : price.unscaledValue().longValue());
+        bytes.writeLong(trade.getQuantity() == null ? NO_VALUE : trade.getQuantity());
+        bytes.writeLong(trade.getTradeId() == null ? NO_VALUE : trade.getTradeId());
+        bytes.writeLong(trade.getTimestamp() == null ? NO_VALUE : epochNanos(trade.getTimestamp()));
+        bytes.writeByte((byte) (trade.getSide() == null ? -1 : trade.getSide().ordinal()));
+        bytes.writeByte((byte) (trade.getTradeType() == null ? -1 : trade.getTradeType().ordinal()));
+        bytes.writeByte(priceScale);
+        bytes.writeByte(commissionScale);
+        bytes.writeLong(commissionScale <= AS_TEXT ? 0 : commission.unscaledValue().longValue());
+        bytes.writeUtf8(trade.getBuyOrderId());
+        bytes.writeUtf8(trade.getSellOrderId());
+        bytes.writeUtf8(trade.getBuyClientId());
+        bytes.writeUtf8(trade.getSellClientId());
+        bytes.writeUtf8(trade.getExchange());
+        bytes.writeUtf8(coded ? null : symbol);
+        bytes.writeUtf8(priceScale == AS_TEXT ? price.toString() : null);
+        bytes.writeUtf8(commissionScale == AS_TEXT ? commission.toString() : null);
+    }
+
+    /**
+     * Scale byte for a decimal: its scale, or {@link #NO_SCALE} or {@link #AS_TEXT}
+     */
+    private static byte scale(BigDecimal value) {
+        if (value == null) {
+            return NO_SCALE;
+        }
+        int scale = value.scale();
+        boolean fits = scale > AS_TEXT && scale <= Byte.MAX_VALUE && value.unscaledValue().bitLength() < Long.SIZE;
+        return fits ? (byte) scale : AS_TEXT;
+    }
+
+    private static BigDecimal decimal(long unscaled, byte scale, String text) {
+        if (scale == NO_SCALE) {
+            return null;
+        }
+        return scale == AS_TEXT ? new BigDecimal(text) : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Decode a whole excerpt, from its read position, into a reused trade
+     */
+    public static Trade read(Bytes<?> bytes, Trade trade) {
+        long symbol = bytes.readLong();
+        long price = bytes.readLong();
+        long quantity = bytes.readLong();
+        long tradeId = bytes.readLong();
+        long timestamp = bytes.readLong();
+        byte side = bytes.readByte();
+        byte tradeType = bytes.readByte();
+        byte priceScale = bytes.readByte();
+        byte commissionScale = bytes.readByte();
+        long commission = bytes.readLong();
+        trade.setQuantity(quantity == NO_VALUE ? null : quantity);
+        trade.setTradeId(tradeId == NO_VALUE ? null : tradeId);
+        trade.setTimestamp(timestamp == NO_VALUE ? null : LocalDateTime.ofEpochSecond(
+            Math.floorDiv(timestamp, 1_000_000_000L), (int) Math.floorMod(timestamp, 1_000_000_000L), ZoneOffset.UTC));
+        trade.setSide(side < 0 ? null : SIDES[side]);
+        trade.setTradeType(tradeType < 0 ? null : TRADE_TYPES[tradeType]);
+        trade.setBuyOrderId(bytes.readUtf8());
+        trade.setSellOrderId(bytes.readUtf8());
+        trade.setBuyClientId(bytes.readUtf8());
+        trade.setSellClientId(bytes.readUtf8());
+        trade.setExchange(bytes.readUtf8());
+        String uncoded = bytes.readUtf8();
+        trade.setSymbol(symbol == 0 ? uncoded : SymbolCodes.decode(symbol));
+        trade.setPrice(decimal(price, priceScale, bytes.readUtf8()));
+        trade.setCommission(decimal(commission, commissionScale, bytes.readUtf8()));
+        return trade;
+    }
+
+    /**
+     * Symbol code of the excerpt at the read position, without moving it
+     */
+    public static long symbolCode(Bytes<?> bytes) {
+        return bytes.readLong(bytes.readPosition() + SYMBOL);
+    }
+
+    /**
+     * Price of the excerpt at the read position as a double, NaN if none, without moving it
+     */
+    public static double price(Bytes<?> bytes) {
+        long start = bytes.readPosition();
+        byte scale = bytes.readByte(start + PRICE_SCALE);
+        if (scale == NO_SCALE) {
+            return Double.NaN;
+        }
+        if (scale == AS_TEXT) {
+            return Double.parseDouble(textField(bytes, TEXT_PRICE));
+        }
+        double unscaled = bytes.readLong(start + PRICE);
+        return scale >= 0 ? unscaled / Math.pow(10, scale) : unscaled * Math.pow(10, -scale);
+    }
+
+    public static long quantity(Bytes<?> bytes) {
+        return bytes.readLong(bytes.readPosition() + QUANTITY);
+    }
+
+    /**
+     * Side ordinal, or -1 if none
+     */
+    public static int side(Bytes<?> bytes) {
+        return bytes.readByte(bytes.readPosition() + SIDE);
+    }
+
+    /**
+     * Trade type ordinal, or -1 if none
+     */
+    public static int tradeType(Bytes<?> bytes) {
+        return bytes.readByte(bytes.readPosition() + TRADE_TYPE);
+    }
+
+    /**
+     * Symbol of the excerpt at the read position if it has no code, else null, without moving the
+     * read position; skips the variable-length fields before it
+     */
+    public static String uncodedSymbol(Bytes<?> bytes) {
+        return textField(bytes, TEXT_SYMBOL);
+    }
+
+    /**
+     * Variable-length field {@code index} of the excerpt at the read position, without moving it
+     */
+    private static String textField(Bytes<?> bytes, int index) {
+        long start = bytes.readPosition();
+        try {
+            bytes.readPosition(start + HEADER_SIZE);
+            for (int field = 0; field < index; field++) {
+                bytes.readUtf8();
+            }
+            return bytes.readUtf8();
+        } finally {
+            bytes.readPosition(start);
+        }
+    }
+
+    /**
+     * Excerpts whose symbol is one of these; only symbols with no code need the excerpt decoded
+     */
+    public static Predicate<Bytes<?>> symbolIn(String... symbols) {
+        LongHashSet codes = new LongHashSet(symbols.length);
+        Set<String> uncoded = new HashSet<>();
+        for (String symbol : symbols) {
+            if (SymbolCodes.canEncode(symbol)) {
+                codes.add(SymbolCodes.encode(symbol));
+            } else {
+                uncoded.add(symbol);
+            }
+        }
+        if (uncoded.isEmpty()) {
+            return bytes -> codes.contains(symbolCode(bytes));
+        }
+        return bytes -> {
+            long code = symbolCode(bytes);
+            return code == 0 ? uncoded.contains(uncodedSymbol(bytes)) : codes.contains(code);
+        };
+    }
+
+    public static Predicate<Bytes<?>> sideIs(Trade.Side side) {
+        int ordinal = side.ordinal();
+        return bytes -> side(bytes) == ordinal;
+    }
+
+    /**
+     * Excerpts whose trade type is one of these
+     */
+    public static Predicate<Bytes<?>> typeIn(Trade.TradeType first, Trade.TradeType... rest) {
+        int mask = 0;
+        for (Trade.TradeType type : EnumSet.of(first, rest)) {
+            mask |= 1 << type.ordinal();
+        }
+        int types = mask;
+        return bytes -> {
+            int type = tradeType(bytes);
+            return type >= 0 && (types & 1 << type) != 0;
+        };
+    }
+
+    private static long epochNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+}
@@ -0,0 +1,105 @@
+package com.demo.queue;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Factory for the standard {@link WaitStrategy} implementations, from lowest latency and
+ * highest CPU cost to the reverse
+ */
+@UtilityClass
+public class WaitStrategies {
+
+    /**
+     * Spin on the CPU forever; lowest latency, burns a whole core
+     */
+    public static WaitStrategy busySpin() {
+        return idleCount -> Thread.onSpinWait();
+    }
+
+    /**
+     * Spin for a number of polls, then yield the CPU on every further poll
+     */
+    public static WaitStrategy spinThenYield(int spins) {
+        return idleCount -> {
+            if (idleCount <= spins) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        };
+    }
+
+    /**
+     * Spin, then yield, then park for exponentially growing periods capped at {@code maxPark}
+     */
+    public static WaitStrategy progressiveBackoff(int spins, int yields, long maxPark, TimeUnit unit) {
+        long maxParkNanos = unit.toNanos(maxPark);
+        return idleCount -> {
+            if (idleCount <= spins) {
+                Thread.onSpinWait();
+            } else if (idleCount <= spins + yields) {
+                Thread.yield();
+            } else {
+                int parks = Math.min(idleCount - spins - yields, 20);
+                LockSupport.parkNanos(Math.min(1_000L << parks, maxParkNanos));
+            }
+        };
+    }
+
+    /**
+     * Park until a producer calls {@link WaitStrategy#signal()}, or at most {@code maxPark}
+     * so a missed signal only costs one timeout. One instance may be shared by several consumers.
+     */
+    public static WaitStrategy parkWithWakeup(long maxPark, TimeUnit unit) {
+        return new ParkWithWakeup(unit.toNanos(maxPark));
+    }
+
+    /**
+     * The previous {@code Thread.sleep(1)} behaviour, kept as a baseline
+     */
+    public static WaitStrategy sleep(long millis) {
+        return idleCount -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private static final class ParkWithWakeup implements WaitStrategy {
+
+        private final long maxParkNanos;
+        private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+
+        private ParkWithWakeup(long maxParkNanos) {
+            this.maxParkNanos = maxParkNanos;
+        }
+
+        @Override
+        public void idle(int idleCount) {
+            // Register before parking; a signal racing with registration leaves a permit behind
+            waiters.add(Thread.currentThread());
+            LockSupport.parkNanos(this, maxParkNanos);
+        }
+
+        @Override
+        public void reset() {
+            waiters.remove(Thread.currentThread());
+        }
+
+        @Override
+        public void signal() {
+            if (!waiters.isEmpty()) {
+                for (Thread waiter : waiters) {
+                    LockSupport.unpark(waiter);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.demo.queue;
+
+/**
+ * What a tailer loop does when {@code readDocument} finds nothing.
+ * <p>
+ * Loops call {@link #idle(int)} with the number of consecutive empty polls and {@link #reset()}
+ * once a message arrives. Producers may call {@link #signal()} after appending so that parking
+ * strategies wake up immediately instead of waiting out their park timeout.
+ * See {@link WaitStrategies} for the available implementations.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Back off after an empty poll
+     *
+     * @param idleCount consecutive empty polls so far, starting at 1
+     */
+    void idle(int idleCount);
+
+    /**
+     * A message was read; the next idle period starts from scratch
+     */
+    default void reset() {
+    }
+
+    /**
+     * New data is available; wake any parked consumer
+     */
+    default void signal() {
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.stream;
+
+import com.demo.util.SymbolCodes;
+import lombok.Data;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.bytes.BytesOut;
+
+/**
+ * Closed open/high/low/close/volume bar for one symbol and interval, as emitted by {@link OhlcBarStage}
+ */
+@Data
+public class OhlcBar implements BytesMarshallable {
+
+    private long symbolCode;
+    private long intervalMillis;
+    private long startMillis;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private long volume;
+    private int tickCount;
+
+    public String getSymbol() {
+        return SymbolCodes.decode(symbolCode);
+    }
+
+    @Override
+    public void readMarshallable(BytesIn<?> bytes) {
+        symbolCode = bytes.readLong();
+        intervalMillis = bytes.readLong();
+        startMillis = bytes.readLong();
+        open = bytes.readDouble();
+        high = bytes.readDouble();
+        low = bytes.readDouble();
+        close = bytes.readDouble();
+        volume = bytes.readLong();
+        tickCount = bytes.readInt();
+    }
+
+    @Override
+    public void writeMarshallable(BytesOut<?> bytes) {
+        bytes.writeLong(symbolCode);
+        bytes.writeLong(intervalMillis);
+        bytes.writeLong(startMillis);
+        bytes.writeDouble(open);
+        bytes.writeDouble(high);
+        bytes.writeDouble(low);
+        bytes.writeDouble(close);
+        bytes.writeLong(volume);
+        bytes.writeInt(tickCount);
+    }
+}
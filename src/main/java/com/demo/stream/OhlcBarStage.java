@@ -0,0 +1,346 @@
+package com.demo.stream;
+
+import com.demo.model.MarketData;
+import com.demo.util.SymbolCodes;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+import java.io.Closeable;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming stage that builds OHLCV bars per symbol from a tick queue and appends each bar to an
+ * output queue once it is closed.
+ * <p>
+ * Ticks use a fixed 32-byte layout written by {@link #writeTick}: event time in epoch millis,
+ * {@link SymbolCodes symbol code}, price and size. Bars are aligned to multiples of each interval
+ * in event time. The watermark trails the newest tick seen by {@code allowedLatenessMillis}; a bar
+ * is closed and emitted once its end is at or before the watermark, so ticks up to that much out
+ * of order still land in the right bar. A tick for a bar that has already been closed is counted
+ * as late and dropped. Intervals without ticks produce no bar.
+ * <p>
+ * Per-symbol state is a small ring of open bars per interval, sized from the allowed lateness, so
+ * the steady state allocates nothing. Instances are not thread-safe; poll from one thread.
+ */
+public class OhlcBarStage implements Closeable {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final ExcerptTailer tailer;
+    private final ExcerptAppender appender;
+    private final long allowedLatenessMillis;
+    private final long[] intervalMillis;
+    private final LongObjectHashMap<OpenBars[]> bySymbol = new LongObjectHashMap<>();
+    private final List<OpenBars[]> symbols = new ArrayList<>();
+    private final OhlcBar bar = new OhlcBar();
+
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long watermark = Long.MIN_VALUE;
+    private long nextCloseAt = Long.MIN_VALUE;
+
+    private long ticks;
+    private final long[] lateTicks;
+    private long barsEmitted;
+
+    /**
+     * @param allowedLatenessMillis how far behind the newest tick a tick may be and still count
+     * @param intervalMillis        bar intervals to build, e.g. 1 second, 1 minute and 5 minutes
+     */
+    public OhlcBarStage(ChronicleQueue input, ChronicleQueue output, long allowedLatenessMillis,
+                        long... intervalMillis) {
+        if (intervalMillis.length == 0) {
+            throw new IllegalArgumentException("At least one bar interval is required");
+        }
+        for (long interval : intervalMillis) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("Bar intervals must be positive: " + interval);
+            }
+        }
+        if (allowedLatenessMillis < 0) {
+            throw new IllegalArgumentException("allowedLatenessMillis must not be negative: " + allowedLatenessMillis);
+        }
+        this.allowedLatenessMillis = allowedLatenessMillis;
+        this.intervalMillis = intervalMillis.clone();
+        this.lateTicks = new long[intervalMillis.length];
+        this.tailer = input.createTailer();
+        this.appender = output.createAppender();
+    }
+
+    /**
+     * Append a tick in the layout this stage reads
+     */
+    public static void writeTick(ExcerptAppender appender, long timestampMillis, long symbolCode,
+                                 double price, long size) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(timestampMillis);
+            bytes.writeLong(symbolCode);
+            bytes.writeDouble(price);
+            bytes.writeLong(size);
+        }
+    }
+
+    /**
+     * Append a {@link MarketData} update as a tick of its last price and volume
+     */
+    public static void writeTick(ExcerptAppender appender, MarketData marketData) {
+        writeTick(appender, marketData.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli(),
+            SymbolCodes.encode(marketData.getSymbol()), marketData.getLastPrice().doubleValue(),
+            marketData.getVolume());
+    }
+
+    /**
+     * Read the next bar from a queue this stage writes to
+     *
+     * @return false if there was none
+     */
+    public static boolean readBar(ExcerptTailer tailer, OhlcBar bar) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return false;
+            }
+            bar.readMarshallable((BytesIn<?>) dc.wire().bytes());
+            return true;
+        }
+    }
+
+    /**
+     * Process the next tick, if any
+     *
+     * @return false if the input had nothing new
+     */
+    public boolean poll() {
+        long timestamp;
+        long symbolCode;
+        double price;
+        long size;
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return false;
+            }
+            Bytes<?> bytes = dc.wire().bytes();
+            timestamp = bytes.readLong();
+            symbolCode = bytes.readLong();
+            price = bytes.readDouble();
+            size = bytes.readLong();
+        }
+        onTick(timestamp, symbolCode, price, size);
+        return true;
+    }
+
+    /**
+     * Process ticks until the input has nothing new or {@code maxTicks} were read
+     *
+     * @return the number of ticks read
+     */
+    public int drain(int maxTicks) {
+        int read = 0;
+        while (read < maxTicks && poll()) {
+            read++;
+        }
+        return read;
+    }
+
+    /**
+     * Fold one tick into its bars; usable directly when ticks do not come from a queue
+     */
+    public void onTick(long timestamp, long symbolCode, double price, long size) {
+        ticks++;
+        if (timestamp > maxTimestamp) {
+            maxTimestamp = timestamp;
+            watermark = timestamp - allowedLatenessMillis;
+            if (watermark >= nextCloseAt) {
+                closeBars();
+            }
+        }
+
+        OpenBars[] bars = bySymbol.get(symbolCode);
+        if (bars == null) {
+            bars = new OpenBars[intervalMillis.length];
+            for (int i = 0; i < bars.length; i++) {
+                bars[i] = new OpenBars(symbolCode, intervalMillis[i], allowedLatenessMillis);
+            }
+            bySymbol.put(symbolCode, bars);
+            symbols.add(bars);
+        }
+
+        for (int i = 0; i < bars.length; i++) {
+            long interval = intervalMillis[i];
+            long start = Math.floorDiv(timestamp, interval) * interval;
+            if (start + interval <= watermark) {
+                lateTicks[i]++;
+            } else {
+                bars[i].add(start, timestamp, price, size);
+            }
+        }
+    }
+
+    /**
+     * Emit every bar that ends at or before the watermark, and work out when the next one does
+     */
+    private void closeBars() {
+        for (OpenBars[] bars : symbols) {
+            for (OpenBars open : bars) {
+                open.emitUpTo(watermark);
+            }
+        }
+        long next = Long.MAX_VALUE;
+        for (long interval : intervalMillis) {
+            next = Math.min(next, Math.floorDiv(watermark, interval) * interval + interval);
+        }
+        nextCloseAt = next;
+    }
+
+    /**
+     * Emit all open bars; call at the end of the input, as later ticks for them would be dropped
+     */
+    public void flush() {
+        for (OpenBars[] bars : symbols) {
+            for (OpenBars open : bars) {
+                open.emitUpTo(Long.MAX_VALUE);
+            }
+        }
+        watermark = Long.MAX_VALUE;
+        nextCloseAt = Long.MAX_VALUE;
+    }
+
+    private void emit(OpenBars open, int slot) {
+        bar.setSymbolCode(open.symbolCode);
+        bar.setIntervalMillis(open.interval);
+        bar.setStartMillis(open.start[slot]);
+        bar.setOpen(open.open[slot]);
+        bar.setHigh(open.high[slot]);
+        bar.setLow(open.low[slot]);
+        bar.setClose(open.close[slot]);
+        bar.setVolume(open.volume[slot]);
+        bar.setTickCount(open.tickCount[slot]);
+        try (DocumentContext dc = appender.writingDocument()) {
+            bar.writeMarshallable((BytesOut<?>) dc.wire().bytes());
+        }
+        barsEmitted++;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Ticks dropped from bars of the interval at {@code intervalIndex} because those bars were already closed
+     */
+    public long getLateTicks(int intervalIndex) {
+        return lateTicks[intervalIndex];
+    }
+
+    public long getBarsEmitted() {
+        return barsEmitted;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Release the tailer and appender; open bars are not emitted, see {@link #flush()}
+     */
+    @Override
+    public void close() {
+        tailer.close();
+        appender.close();
+    }
+
+    /**
+     * Ring of the bars still open for one symbol and interval, indexed by bar number
+     */
+    private final class OpenBars {
+
+        private final long symbolCode;
+        private final long interval;
+        private final long[] start;
+        private final long[] openTime;
+        private final long[] closeTime;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+        private final long[] volume;
+        private final int[] tickCount;
+
+        private OpenBars(long symbolCode, long interval, long allowedLateness) {
+            this.symbolCode = symbolCode;
+            this.interval = interval;
+            // Open bars span at most the lateness plus one interval
+            int slots = (int) Math.min(allowedLateness / interval + 2, 1 << 16);
+            this.start = new long[slots];
+            this.openTime = new long[slots];
+            this.closeTime = new long[slots];
+            this.open = new double[slots];
+            this.high = new double[slots];
+            this.low = new double[slots];
+            this.close = new double[slots];
+            this.volume = new long[slots];
+            this.tickCount = new int[slots];
+            Arrays.fill(start, EMPTY);
+        }
+
+        private void add(long barStart, long timestamp, double price, long size) {
+            int slot = (int) Math.floorMod(barStart / interval, (long) start.length);
+            if (start[slot] != barStart) {
+                if (start[slot] != EMPTY) {
+                    emit(this, slot);
+                }
+                start[slot] = barStart;
+                openTime[slot] = timestamp;
+                closeTime[slot] = timestamp;
+                open[slot] = price;
+                high[slot] = price;
+                low[slot] = price;
+                close[slot] = price;
+                volume[slot] = size;
+                tickCount[slot] = 1;
+                return;
+            }
+            // Ticks within the lateness can arrive out of order, so open and close follow event time
+            if (timestamp < openTime[slot]) {
+                openTime[slot] = timestamp;
+                open[slot] = price;
+            }
+            if (timestamp >= closeTime[slot]) {
+                closeTime[slot] = timestamp;
+                close[slot] = price;
+            }
+            high[slot] = Math.max(high[slot], price);
+            low[slot] = Math.min(low[slot], price);
+            volume[slot] += size;
+            tickCount[slot]++;
+        }
+
+        /**
+         * Emit, oldest first, the open bars ending at or before {@code upTo}
+         */
+        private void emitUpTo(long upTo) {
+            while (true) {
+                int oldest = -1;
+                for (int slot = 0; slot < start.length; slot++) {
+                    if (start[slot] != EMPTY && start[slot] + interval <= upTo
+                            && (oldest < 0 || start[slot] < start[oldest])) {
+                        oldest = slot;
+                    }
+                }
+                if (oldest < 0) {
+                    return;
+                }
+                emit(this, oldest);
+                start[oldest] = EMPTY;
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.demo.stream;
+
+import com.demo.queue.WaitStrategies;
+import com.demo.queue.WaitStrategy;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Chain or graph of processing stages connected by queues, each stage on its own threads.
+ * <p>
+ * A stage reads one input queue and appends to at most one output queue; stages are connected by
+ * sharing queues, so one stage's output may feed several others and several stages may write one
+ * queue. The graph is checked for cycles on {@link #start()}. Each stage thread tails the whole
+ * input with a named tailer, so a restarted pipeline resumes where it stopped, and hands its share
+ * of the excerpts to its own {@link StageHandler}. Excerpts are shared out by index, or by a key
+ * read from the excerpt when per-key order matters; the thread count of a stage must therefore stay
+ * the same across restarts.
+ * <p>
+ * An excerpt whose handler throws is logged, counted as an error rather than as processed, and
+ * skipped; it is not retried.
+ * <p>
+ * {@link #getStats()} reports throughput and lag per stage; {@link #stop()} lets every thread
+ * finish its current excerpt and releases the tailers and appenders.
+ */
+@Slf4j
+public class Pipeline implements Closeable {
+
+    private static final long NONE = -1;
+
+    private final String name;
+    private final Supplier<WaitStrategy> waitStrategyFactory;
+    private final List<Stage> stages = new ArrayList<>();
+    private boolean started;
+
+    public Pipeline(String name) {
+        this(name, () -> WaitStrategies.progressiveBackoff(100, 10, 1, TimeUnit.MILLISECONDS));
+    }
+
+    public Pipeline(String name, Supplier<WaitStrategy> waitStrategyFactory) {
+        this.name = name;
+        this.waitStrategyFactory = waitStrategyFactory;
+    }
+
+    /**
+     * Add a stage whose threads share the input by excerpt index
+     *
+     * @param output queue the handlers append to, or null for a sink
+     */
+    public Pipeline addStage(String stageName, SingleChronicleQueue input, SingleChronicleQueue output,
+                             int threads, Supplier<StageHandler> handlerFactory) {
+        return addStage(stageName, input, output, threads, null, handlerFactory);
+    }
+
+    /**
+     * Add a stage whose threads share the input by a key, so each key is always handled by the same thread
+     *
+     * @param partitionKey reads the key from the start of an excerpt; the handler still sees the whole excerpt
+     */
+    public synchronized Pipeline addStage(String stageName, SingleChronicleQueue input, SingleChronicleQueue output,
+                                          int threads, ToLongFunction<Bytes<?>> partitionKey,
+                                          Supplier<StageHandler> handlerFactory) {
+        if (started) {
+            throw new IllegalStateException("Pipeline " + name + " is already started");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        for (Stage stage : stages) {
+            if (stage.name.equals(stageName)) {
+                throw new IllegalArgumentException("Duplicate stage name: " + stageName);
+            }
+        }
+        stages.add(new Stage(stageName, input, output, threads, partitionKey, handlerFactory));
+        return this;
+    }
+
+    /**
+     * Start every stage's threads
+     */
+    public synchronized Pipeline start() {
+        if (started) {
+            return this;
+        }
+        checkAcyclic();
+        started = true;
+        for (Stage stage : stages) {
+            for (Worker worker : stage.workers) {
+                worker.thread.start();
+            }
+        }
+        log.debug("Pipeline {} started with {} stages", name, stages.size());
+        return this;
+    }
+
+    private void checkAcyclic() {
+        Map<String, List<Stage>> readers = new HashMap<>();
+        for (Stage stage : stages) {
+            readers.computeIfAbsent(stage.input.fileAbsolutePath(), k -> new ArrayList<>()).add(stage);
+        }
+        Set<Stage> done = new HashSet<>();
+        for (Stage stage : stages) {
+            visit(stage, readers, new HashSet<>(), done);
+        }
+    }
+
+    private void visit(Stage stage, Map<String, List<Stage>> readers, Set<Stage> path, Set<Stage> done) {
+        if (done.contains(stage)) {
+            return;
+        }
+        if (!path.add(stage)) {
+            throw new IllegalStateException("Pipeline " + name + " has a cycle through stage " + stage.name);
+        }
+        if (stage.output != null) {
+            for (Stage next : readers.getOrDefault(stage.output.fileAbsolutePath(), List.of())) {
+                visit(next, readers, path, done);
+            }
+        }
+        path.remove(stage);
+        done.add(stage);
+    }
+
+    /**
+     * Statistics of every stage in the order they were added; throughput covers the time since the previous call
+     */
+    public synchronized List<StageStats> getStats() {
+        long now = System.nanoTime();
+        List<StageStats> stats = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            long processed = 0;
+            long errors = 0;
+            long lag = 0;
+            for (Worker worker : stage.workers) {
+                processed += worker.processed;
+                errors += worker.errors;
+                lag = Math.max(lag, worker.lag());
+            }
+            double seconds = (now - stage.lastStatsNanos) / 1e9;
+            double throughput = seconds > 0 ? (processed - stage.lastProcessed) / seconds : 0;
+            stage.lastStatsNanos = now;
+            stage.lastProcessed = processed;
+            stats.add(StageStats.builder()
+                    .stage(stage.name)
+                    .threads(stage.workers.size())
+                    .processed(processed)
+                    .errors(errors)
+                    .throughput(throughput)
+                    .lag(lag)
+                    .build());
+        }
+        return stats;
+    }
+
+    /**
+     * Wait until every stage has processed all of its input; call once the sources stop appending
+     *
+     * @return false if the timeout expired first
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            if (!started) {
+                throw new IllegalStateException("Pipeline " + name + " is not started");
+            }
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isDrained()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return true;
+    }
+
+    private synchronized boolean isDrained() {
+        // Upstream stages first, so their last outputs are visible before their readers are checked
+        for (Stage stage : topologicalOrder()) {
+            for (Worker worker : stage.workers) {
+                if (worker.inFlight || worker.lag() > 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private List<Stage> topologicalOrder() {
+        List<Stage> order = new ArrayList<>();
+        Set<Stage> placed = new HashSet<>();
+        while (order.size() < stages.size()) {
+            for (Stage stage : stages) {
+                if (placed.contains(stage)) {
+                    continue;
+                }
+                boolean ready = true;
+                for (Stage other : stages) {
+                    if (other != stage && !placed.contains(other) && other.output != null
+                            && other.output.fileAbsolutePath().equals(stage.input.fileAbsolutePath())) {
+                        ready = false;
+                    }
+                }
+                if (ready) {
+                    placed.add(stage);
+                    order.add(stage);
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Let every thread finish its current excerpt, then stop it
+     */
+    public void stop() {
+        List<Worker> workers = new ArrayList<>();
+        synchronized (this) {
+            for (Stage stage : stages) {
+                workers.addAll(stage.workers);
+            }
+        }
+        for (Worker worker : workers) {
+            worker.running = false;
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (worker.thread.isAlive()) {
+                log.warn("Stage thread {} did not stop", worker.thread.getName());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private final class Stage {
+
+        private final String name;
+        private final SingleChronicleQueue input;
+        private final SingleChronicleQueue output;
+        private final List<Worker> workers = new ArrayList<>();
+
+        private long lastStatsNanos = System.nanoTime();
+        private long lastProcessed;
+
+        private Stage(String name, SingleChronicleQueue input, SingleChronicleQueue output, int threads,
+                      ToLongFunction<Bytes<?>> partitionKey, Supplier<StageHandler> handlerFactory) {
+            this.name = name;
+            this.input = input;
+            this.output = output;
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Worker(this, t, threads, partitionKey, handlerFactory.get()));
+            }
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final Stage stage;
+        private final int number;
+        private final int threads;
+        private final ToLongFunction<Bytes<?>> partitionKey;
+        private final StageHandler handler;
+        private final Thread thread;
+
+        private volatile boolean running = true;
+        private volatile boolean inFlight;
+        private volatile long startIndex = NONE;
+        private volatile long readIndex = NONE;
+        private volatile long processed;
+        private volatile long errors;
+
+        private Worker(Stage stage, int number, int threads, ToLongFunction<Bytes<?>> partitionKey,
+                       StageHandler handler) {
+            this.stage = stage;
+            this.number = number;
+            this.threads = threads;
+            this.partitionKey = partitionKey;
+            this.handler = handler;
+            this.thread = new Thread(this, Pipeline.this.name + "-" + stage.name + "-" + number);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            WaitStrategy waitStrategy = waitStrategyFactory.get();
+            try (ExcerptTailer tailer = stage.input.createTailer(Pipeline.this.name + "." + stage.name + "." + number);
+                 ExcerptAppender appender = stage.output == null ? null : stage.output.createAppender()) {
+                startIndex = tailer.index();
+                int idleCount = 0;
+                while (running) {
+                    if (poll(tailer, appender)) {
+                        idleCount = 0;
+                        waitStrategy.reset();
+                    } else {
+                        waitStrategy.idle(++idleCount);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Stage thread {} failed", thread.getName(), e);
+            }
+        }
+
+        private boolean poll(ExcerptTailer tailer, ExcerptAppender appender) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent()) {
+                    return false;
+                }
+                inFlight = true;
+                long index = dc.index();
+                Bytes<?> bytes = dc.wire().bytes();
+                if (owns(index, bytes)) {
+                    try {
+                        handler.onExcerpt(bytes, appender);
+                        processed++;
+                    } catch (RuntimeException e) {
+                        errors++;
+                        log.warn("Stage {} failed on excerpt {}", stage.name, Long.toHexString(index), e);
+                    }
+                }
+                readIndex = index;
+                inFlight = false;
+                return true;
+            }
+        }
+
+        private boolean owns(long index, Bytes<?> bytes) {
+            if (threads == 1) {
+                return true;
+            }
+            if (partitionKey == null) {
+                return Math.floorMod(index, threads) == number;
+            }
+            long position = bytes.readPosition();
+            long key = partitionKey.applyAsLong(bytes);
+            bytes.readPosition(position);
+            return Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), threads) == number;
+        }
+
+        /**
+         * Excerpts in the input after the last one this thread read
+         */
+        private long lag() {
+            SingleChronicleQueue queue = stage.input;
+            long last = queue.lastIndex();
+            if (last < 0) {
+                return 0;
+            }
+            long read = readIndex;
+            if (read == NONE) {
+                // Nothing read yet: everything from the tailer's starting point is outstanding
+                long from = Math.max(startIndex, queue.firstIndex());
+                return last < from ? 0 : queue.countExcerpts(from, last) + 1;
+            }
+            if (last <= read) {
+                return 0;
+            }
+            RollCycle rollCycle = queue.rollCycle();
+            if (rollCycle.toCycle(read) == rollCycle.toCycle(last)) {
+                return rollCycle.toSequenceNumber(last) - rollCycle.toSequenceNumber(read);
+            }
+            return queue.countExcerpts(read, last);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.demo.stream;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptAppender;
+
+/**
+ * Processing logic of one {@link Pipeline} stage.
+ * <p>
+ * Every stage thread gets its own handler from the stage's factory, so handlers may keep state
+ * without synchronisation. A stage partitioned by key sees every excerpt for a given key on the
+ * same thread.
+ */
+@FunctionalInterface
+public interface StageHandler {
+
+    /**
+     * Process one input excerpt
+     *
+     * @param input  the excerpt, positioned at its start
+     * @param output appender of the stage's output queue, or null for a sink stage; write any
+     *               number of excerpts with {@code writingDocument()}
+     */
+    void onExcerpt(Bytes<?> input, ExcerptAppender output);
+}
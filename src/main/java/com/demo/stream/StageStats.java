@@ -0,0 +1,29 @@
+package com.demo.stream;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Snapshot of one pipeline stage's progress
+ */
+@Data
+@Builder
+public class StageStats {
+
+    private String stage;
+    private int threads;
+    /** Excerpts handled by this stage's handlers */
+    private long processed;
+    /** Handler invocations that threw */
+    private long errors;
+    /** Processed excerpts per second since the previous snapshot */
+    private double throughput;
+    /** Excerpts in the input queue not yet read by the slowest stage thread */
+    private long lag;
+
+    @Override
+    public String toString() {
+        return String.format("%-10s threads=%d processed=%d rate=%.0f/s lag=%d errors=%d",
+            stage, threads, processed, throughput, lag, errors);
+    }
+}
@@ -0,0 +1,392 @@
+package com.demo.stream;
+
+import com.demo.model.Trade;
+import com.demo.util.DataGenerator;
+import com.demo.util.SymbolCodes;
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming demonstrations: materialized views and processing stages built on queues and maps
+ */
+@Slf4j
+public class StreamingDemo {
+
+    private static final String DATA_DIR = "chronicle-demo-data/stream";
+
+    public static void main(String[] args) {
+        log.info("Starting Chronicle Streaming Demo");
+        log.info("=================================");
+
+        StreamingDemo demo = new StreamingDemo();
+
+        try {
+            new File(DATA_DIR).mkdirs();
+
+            demo.vwapMaterializerDemo();
+            demo.ohlcBarDemo();
+            demo.pipelineDemo();
+
+        } catch (Exception e) {
+            log.error("Demo failed", e);
+        }
+
+        log.info("Chronicle Streaming Demo completed");
+    }
+
+    /**
+     * Per-symbol VWAP materialized from a trade queue, with a crash and resume part way through
+     */
+    public void vwapMaterializerDemo() throws IOException {
+        log.info("\n--- VWAP Materializer Demo ---");
+
+        File queueDir = new File(DATA_DIR, "vwap-trades");
+        File mapFile = new File(DATA_DIR, "vwap-aggregates.dat");
+        deleteDirectory(queueDir);
+        mapFile.delete();
+
+        int tradeCount = 100_000;
+        int symbolCount = 50;
+        int checkpointInterval = 1_000;
+        int crashAfter = 37_250;
+
+        // Expected totals, summed in queue order like the materializer does
+        long[] expectedTrades = new long[symbolCount];
+        long[] expectedVolume = new long[symbolCount];
+        double[] expectedNotional = new double[symbolCount];
+
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build();
+             ExcerptAppender appender = queue.createAppender()) {
+            for (int i = 0; i < tradeCount; i++) {
+                int s = i % symbolCount;
+                Trade trade = DataGenerator.generateTrade((long) i, "VWAP_" + s);
+                appender.writeDocument(trade);
+                expectedTrades[s]++;
+                expectedVolume[s] += trade.getQuantity();
+                expectedNotional[s] += trade.getPrice().doubleValue() * trade.getQuantity();
+            }
+        }
+        log.info("Wrote {} trades for {} symbols", tradeCount, symbolCount);
+
+        // First run stops without closing, as a crash would, 250 trades past its last checkpoint
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build();
+             ChronicleMap<String, SymbolAggregate> aggregates = VwapMaterializer.createMap(mapFile, symbolCount)) {
+            VwapMaterializer materializer = new VwapMaterializer(queue, aggregates, checkpointInterval);
+            long start = System.nanoTime();
+            int read = materializer.drain(crashAfter);
+            long duration = System.nanoTime() - start;
+            log.info("First run: applied {} trades in {} ms ({} trades/sec), checkpoint after trade {}, then crashed",
+                read, duration / 1_000_000, (long) (read * 1e9 / duration),
+                queue.rollCycle().toSequenceNumber(materializer.getCheckpointIndex()) + 1);
+        }
+
+        // Second run resumes from the checkpoint in the persisted map
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.single(queueDir.getPath()).build();
+             ChronicleMap<String, SymbolAggregate> aggregates = VwapMaterializer.createMap(mapFile, symbolCount);
+             VwapMaterializer materializer = new VwapMaterializer(queue, aggregates, checkpointInterval)) {
+            long start = System.nanoTime();
+            int read = materializer.drain(Integer.MAX_VALUE);
+            long duration = System.nanoTime() - start;
+            log.info("Second run: read {} trades in {} ms, applied {}, skipped {} already applied",
+                read, duration / 1_000_000, materializer.getApplied(), materializer.getSkipped());
+
+            SymbolAggregate aggregate = new SymbolAggregate();
+            int mismatches = 0;
+            long totalTrades = 0;
+            for (int s = 0; s < symbolCount; s++) {
+                aggregates.getUsing("VWAP_" + s, aggregate);
+                totalTrades += aggregate.getTradeCount();
+                if (aggregate.getTradeCount() != expectedTrades[s]
+                        || aggregate.getVolume() != expectedVolume[s]
+                        || aggregate.getNotional() != expectedNotional[s]) {
+                    mismatches++;
+                }
+            }
+
+            aggregates.getUsing("VWAP_0", aggregate);
+            log.info("VWAP_0: trades={}, volume={}, notional={}, VWAP={}, last={}",
+                aggregate.getTradeCount(), aggregate.getVolume(),
+                String.format("%.2f", aggregate.getNotional()),
+                String.format("%.4f", aggregate.getVwap()),
+                String.format("%.4f", aggregate.getLastPrice()));
+            log.info("Trades materialized: {}/{}, symbols not matching expected totals: {}",
+                totalTrades, tradeCount, mismatches);
+        }
+    }
+
+    /**
+     * 1 second, 1 minute and 5 minute bars from a tick queue with out-of-order and late ticks
+     */
+    public void ohlcBarDemo() {
+        log.info("\n--- OHLC Bar Demo ---");
+
+        File tickDir = new File(DATA_DIR, "ohlc-ticks");
+        File barDir = new File(DATA_DIR, "ohlc-bars");
+        deleteDirectory(tickDir);
+        deleteDirectory(barDir);
+
+        int tickCount = 2_000_000;
+        long allowedLatenessMillis = 500;
+        long[] intervals = {1_000, 60_000, 300_000};
+        String[] symbols = DataGenerator.getSymbols();
+        long[] symbolCodes = new long[symbols.length];
+        double[] prices = new double[symbols.length];
+        for (int s = 0; s < symbols.length; s++) {
+            symbolCodes[s] = SymbolCodes.encode(symbols[s]);
+            prices[s] = 100 + 10 * s;
+        }
+
+        try (ChronicleQueue ticks = SingleChronicleQueueBuilder.single(tickDir.getPath()).build();
+             ChronicleQueue bars = SingleChronicleQueueBuilder.single(barDir.getPath()).build()) {
+
+            // Ten ticks per millisecond of event time; 10% arrive up to 400 ms out of order, 0.05% seconds late
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long startMillis = Math.floorDiv(System.currentTimeMillis(), 300_000L) * 300_000L;
+            long totalVolume = 0;
+            try (ExcerptAppender appender = ticks.createAppender()) {
+                for (int i = 0; i < tickCount; i++) {
+                    int s = random.nextInt(symbols.length);
+                    long timestamp = startMillis + 5_000 + i / 10;
+                    double roll = random.nextDouble();
+                    if (roll < 0.0005) {
+                        timestamp -= random.nextLong(2_000, 5_000);
+                    } else if (roll < 0.1) {
+                        timestamp -= random.nextLong(0, 400);
+                    }
+                    prices[s] = Math.max(1, prices[s] + random.nextDouble(-0.05, 0.05));
+                    long size = random.nextLong(1, 1_000);
+                    totalVolume += size;
+                    OhlcBarStage.writeTick(appender, timestamp, symbolCodes[s], prices[s], size);
+                }
+            }
+            log.info("Wrote {} ticks for {} symbols covering {} s of event time",
+                tickCount, symbols.length, tickCount / 10 / 1_000);
+
+            try (OhlcBarStage stage = new OhlcBarStage(ticks, bars, allowedLatenessMillis, intervals)) {
+                long start = System.nanoTime();
+                stage.drain(Integer.MAX_VALUE);
+                long duration = System.nanoTime() - start;
+                stage.flush();
+                log.info("Aggregated {} ticks in {} ms ({} ticks/sec), {} bars emitted",
+                    stage.getTicks(), duration / 1_000_000, (long) (stage.getTicks() * 1e9 / duration),
+                    stage.getBarsEmitted());
+
+                // Every tick is either in exactly one bar of each interval or counted late for it
+                long[] barCount = new long[intervals.length];
+                long[] barTicks = new long[intervals.length];
+                long[] barVolume = new long[intervals.length];
+                OhlcBar bar = new OhlcBar();
+                try (ExcerptTailer tailer = bars.createTailer()) {
+                    while (OhlcBarStage.readBar(tailer, bar)) {
+                        int i = Arrays.binarySearch(intervals, bar.getIntervalMillis());
+                        barCount[i]++;
+                        barTicks[i] += bar.getTickCount();
+                        barVolume[i] += bar.getVolume();
+                        if (bar.getSymbolCode() == symbolCodes[0] && bar.getIntervalMillis() == 60_000) {
+                            log.info("{} 1m bar at +{} s: O={} H={} L={} C={} V={} ticks={}",
+                                bar.getSymbol(), (bar.getStartMillis() - startMillis) / 1000,
+                                String.format("%.2f", bar.getOpen()), String.format("%.2f", bar.getHigh()),
+                                String.format("%.2f", bar.getLow()), String.format("%.2f", bar.getClose()),
+                                bar.getVolume(), bar.getTickCount());
+                        }
+                    }
+                }
+                for (int i = 0; i < intervals.length; i++) {
+                    log.info("{} s bars: {}, ticks in bars {} + late {} = {}, volume in bars {}/{}",
+                        intervals[i] / 1000, barCount[i], barTicks[i], stage.getLateTicks(i),
+                        barTicks[i] + stage.getLateTicks(i), barVolume[i], totalVolume);
+                }
+            }
+        }
+    }
+
+    /**
+     * Market data to book to strategy to orders, one pipeline stage per step
+     */
+    public void pipelineDemo() throws InterruptedException {
+        log.info("\n--- Pipeline Demo ---");
+
+        File marketDataDir = new File(DATA_DIR, "pipeline-market-data");
+        File bookDir = new File(DATA_DIR, "pipeline-book");
+        File orderDir = new File(DATA_DIR, "pipeline-orders");
+        deleteDirectory(marketDataDir);
+        deleteDirectory(bookDir);
+        deleteDirectory(orderDir);
+
+        int quoteCount = 1_000_000;
+        String[] symbols = DataGenerator.getSymbols();
+        OrderGateway gateway = new OrderGateway();
+
+        try (SingleChronicleQueue marketData = SingleChronicleQueueBuilder.single(marketDataDir.getPath()).build();
+             SingleChronicleQueue book = SingleChronicleQueueBuilder.single(bookDir.getPath()).build();
+             SingleChronicleQueue orders = SingleChronicleQueueBuilder.single(orderDir.getPath()).build();
+             Pipeline pipeline = new Pipeline("trading")
+                     .addStage("book", marketData, book, 2, Bytes::readLong, BookBuilder::new)
+                     .addStage("strategy", book, orders, 1, MeanReversionStrategy::new)
+                     .addStage("orders", orders, null, 1, () -> gateway)
+                     .start()) {
+
+            // Level 1 quotes: symbol code, side (0 bid, 1 ask), price, size
+            long[] symbolCodes = new long[symbols.length];
+            double[] mids = new double[symbols.length];
+            for (int s = 0; s < symbols.length; s++) {
+                symbolCodes[s] = SymbolCodes.encode(symbols[s]);
+                mids[s] = 100 + 10 * s;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            try (ExcerptAppender appender = marketData.createAppender()) {
+                for (int i = 1; i <= quoteCount; i++) {
+                    int s = random.nextInt(symbols.length);
+                    mids[s] = Math.max(1, mids[s] + random.nextGaussian() * 0.02);
+                    int side = random.nextInt(2);
+                    try (DocumentContext dc = appender.writingDocument()) {
+                        Bytes<?> bytes = dc.wire().bytes();
+                        bytes.writeLong(symbolCodes[s]);
+                        bytes.writeInt(side);
+                        bytes.writeDouble(side == 0 ? mids[s] - 0.01 : mids[s] + 0.01);
+                        bytes.writeLong(random.nextLong(100, 10_000));
+                    }
+                    if (i % 250_000 == 0) {
+                        for (StageStats stats : pipeline.getStats()) {
+                            log.info("  {}", stats);
+                        }
+                    }
+                }
+            }
+
+            boolean drained = pipeline.awaitDrained(60, TimeUnit.SECONDS);
+            long duration = System.nanoTime() - start;
+            log.info("Pipeline {} {} quotes end to end in {} ms ({} quotes/sec)",
+                drained ? "drained" : "did not drain", quoteCount, duration / 1_000_000,
+                (long) (quoteCount * 1e9 / duration));
+            for (StageStats stats : pipeline.getStats()) {
+                log.info("  {}", stats);
+            }
+            log.info("Orders received: {} buys, {} sells, notional {}",
+                gateway.buys, gateway.sells, String.format("%.2f", gateway.notional));
+        }
+    }
+
+    /**
+     * Keeps the top of book per symbol and publishes it whenever a quote arrives
+     */
+    private static final class BookBuilder implements StageHandler {
+
+        private final LongObjectHashMap<double[]> books = new LongObjectHashMap<>();
+
+        @Override
+        public void onExcerpt(Bytes<?> input, ExcerptAppender output) {
+            long symbolCode = input.readLong();
+            int side = input.readInt();
+            double price = input.readDouble();
+            long size = input.readLong();
+
+            // bid, bid size, ask, ask size
+            double[] top = books.get(symbolCode);
+            if (top == null) {
+                top = new double[4];
+                books.put(symbolCode, top);
+            }
+            top[side * 2] = price;
+            top[side * 2 + 1] = size;
+            if (top[0] == 0 || top[2] == 0) {
+                return;
+            }
+            try (DocumentContext dc = output.writingDocument()) {
+                Bytes<?> bytes = dc.wire().bytes();
+                bytes.writeLong(symbolCode);
+                bytes.writeDouble(top[0]);
+                bytes.writeDouble(top[2]);
+            }
+        }
+    }
+
+    /**
+     * Buys when the mid falls well below its moving average and sells when it rises well above
+     */
+    private static final class MeanReversionStrategy implements StageHandler {
+
+        private final LongObjectHashMap<double[]> state = new LongObjectHashMap<>();
+
+        @Override
+        public void onExcerpt(Bytes<?> input, ExcerptAppender output) {
+            long symbolCode = input.readLong();
+            double bid = input.readDouble();
+            double ask = input.readDouble();
+            double mid = (bid + ask) / 2;
+
+            // moving average, current position (-1, 0, 1)
+            double[] symbol = state.get(symbolCode);
+            if (symbol == null) {
+                symbol = new double[] {mid, 0};
+                state.put(symbolCode, symbol);
+            }
+            symbol[0] += (mid - symbol[0]) * 0.01;
+            int signal = mid < symbol[0] * 0.998 ? 1 : mid > symbol[0] * 1.002 ? -1 : 0;
+            if (signal == 0 || signal == symbol[1]) {
+                return;
+            }
+            symbol[1] = signal;
+            try (DocumentContext dc = output.writingDocument()) {
+                Bytes<?> bytes = dc.wire().bytes();
+                bytes.writeLong(symbolCode);
+                bytes.writeInt(signal);
+                bytes.writeDouble(signal > 0 ? ask : bid);
+                bytes.writeLong(100);
+            }
+        }
+    }
+
+    /**
+     * Sink that stands in for sending orders to an exchange
+     */
+    private static final class OrderGateway implements StageHandler {
+
+        private volatile long buys;
+        private volatile long sells;
+        private volatile double notional;
+
+        @Override
+        public void onExcerpt(Bytes<?> input, ExcerptAppender output) {
+            input.readLong();
+            int side = input.readInt();
+            double price = input.readDouble();
+            long quantity = input.readLong();
+            if (side > 0) {
+                buys++;
+            } else {
+                sells++;
+            }
+            notional += price * quantity;
+        }
+    }
+
+    private void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteDirectory(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.stream;
+
+import com.demo.queue.IndexedState;
+import lombok.Data;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesMarshallable;
+import net.openhft.chronicle.bytes.BytesOut;
+
+/**
+ * Running per-symbol trade aggregate, stored in a ChronicleMap as five fixed-width fields.
+ * <p>
+ * {@code lastIndex} is the queue index of the last trade folded into this entry, which lets a
+ * materializer recognise trades it has already applied after a restart.
+ */
+@Data
+public class SymbolAggregate implements BytesMarshallable, IndexedState {
+
+    private long tradeCount;
+    private long volume;
+    private double notional;
+    private double lastPrice;
+    private long lastIndex = -1;
+
+    /**
+     * Fold one trade into the aggregate
+     */
+    public void apply(long index, double price, long quantity) {
+        tradeCount++;
+        volume += quantity;
+        notional += price * quantity;
+        lastPrice = price;
+        lastIndex = index;
+    }
+
+    /**
+     * Volume-weighted average price, or 0 before the first trade
+     */
+    public double getVwap() {
+        return volume == 0 ? 0 : notional / volume;
+    }
+
+    public void reset() {
+        tradeCount = 0;
+        volume = 0;
+        notional = 0;
+        lastPrice = 0;
+        lastIndex = -1;
+    }
+
+    @Override
+    public void readMarshallable(BytesIn<?> bytes) {
+        tradeCount = bytes.readLong();
+        volume = bytes.readLong();
+        notional = bytes.readDouble();
+        lastPrice = bytes.readDouble();
+        lastIndex = bytes.readLong();
+    }
+
+    @Override
+    public void writeMarshallable(BytesOut<?> bytes) {
+        bytes.writeLong(tradeCount);
+        bytes.writeLong(volume);
+        bytes.writeDouble(notional);
+        bytes.writeDouble(lastPrice);
+        bytes.writeLong(lastIndex);
+    }
+}
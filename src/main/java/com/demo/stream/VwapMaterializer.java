@@ -0,0 +1,49 @@
+package com.demo.stream;
+
+import com.demo.model.Trade;
+import com.demo.queue.ExactlyOnceConsumer;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.queue.ChronicleQueue;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Tails a queue of {@link Trade}s and keeps per-symbol {@link SymbolAggregate}s in a ChronicleMap.
+ * <p>
+ * Each trade is folded into its symbol's entry exactly once, as described in
+ * {@link ExactlyOnceConsumer}; the consumer's checkpoint is kept under {@link #CHECKPOINT_KEY}.
+ * Instances are not thread-safe; poll from one thread.
+ */
+public class VwapMaterializer extends ExactlyOnceConsumer<Trade, String, SymbolAggregate> {
+
+    public static final String CHECKPOINT_KEY = "__checkpoint__";
+
+    public VwapMaterializer(ChronicleQueue queue, ChronicleMap<String, SymbolAggregate> aggregates,
+                            int checkpointInterval) {
+        super(queue, aggregates, CHECKPOINT_KEY, checkpointInterval, new Trade(), new SymbolAggregate());
+    }
+
+    /**
+     * Map sized for {@code symbols} aggregates plus the checkpoint, persisted to a file
+     */
+    public static ChronicleMap<String, SymbolAggregate> createMap(File file, int symbols) throws IOException {
+        return ChronicleMap
+                .of(String.class, SymbolAggregate.class)
+                .name("vwap-aggregates")
+                .entries(symbols + 1)
+                .averageKey(CHECKPOINT_KEY)
+                .constantValueSizeBySample(new SymbolAggregate())
+                .createPersistedTo(file);
+    }
+
+    @Override
+    protected String keyOf(Trade trade) {
+        return trade.getSymbol();
+    }
+
+    @Override
+    protected void apply(Trade trade, long index, SymbolAggregate aggregate) {
+        aggregate.apply(index, trade.getPrice().doubleValue(), trade.getQuantity());
+    }
+}
@@ -170,10 +170,24 @@ public class DataGenerator {
         return SYMBOLS[ThreadLocalRandom.current().nextInt(SYMBOLS.length)];
     }
     
+    /**
+     * All predefined symbols
+     */
+    public static String[] getSymbols() {
+        return SYMBOLS.clone();
+    }
+    
     /**
      * Get random exchange from predefined list
      */
     public static String getRandomExchange() {
         return EXCHANGES[ThreadLocalRandom.current().nextInt(EXCHANGES.length)];
     }
+    
+    /**
+     * All predefined exchanges
+     */
+    public static String[] getExchanges() {
+        return EXCHANGES.clone();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.demo.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size, log-linear latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values below {@code 2^(precisionBits + 1)} are counted exactly; above that each power of two
+ * is split into {@code 2^precisionBits} buckets, so a reported value is within
+ * {@code 1 / 2^precisionBits} of the recorded one. All counters are allocated up front and
+ * recording never allocates. Instances are not thread-safe: record from one thread and
+ * {@link #add(LatencyHistogram)} per-thread histograms together for reporting.
+ */
+public class LatencyHistogram {
+
+    private final int precisionBits;
+    private final long highestTrackableValue;
+    private final long[] counts;
+
+    private long totalCount;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+    private double sum;
+
+    /**
+     * Histogram with 1% precision tracking values up to one hour in nanoseconds
+     */
+    public LatencyHistogram() {
+        this(3_600_000_000_000L, 7);
+    }
+
+    public LatencyHistogram(long highestTrackableValue, int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits must be between 1 and 16: " + precisionBits);
+        }
+        if (highestTrackableValue < 2L << precisionBits) {
+            throw new IllegalArgumentException("highestTrackableValue too small: " + highestTrackableValue);
+        }
+        this.precisionBits = precisionBits;
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new long[indexOf(highestTrackableValue) + 1];
+    }
+
+    /**
+     * Record one value; negative values count as zero and values beyond the trackable
+     * range are clamped to it
+     */
+    public void recordValue(long value) {
+        long clamped = Math.max(0, Math.min(value, highestTrackableValue));
+        counts[indexOf(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        if (clamped < minValue) {
+            minValue = clamped;
+        }
+        if (clamped > maxValue) {
+            maxValue = clamped;
+        }
+    }
+
+    /**
+     * Record a value measured by a sender that runs at a fixed rate, correcting for
+     * coordinated omission.
+     * <p>
+     * While one message was stalled for {@code value}, the sender should have sent roughly
+     * {@code value / expectedInterval} more that would each have waited a little less. Those
+     * samples are missing from the measurement, so they are back-filled here with values
+     * {@code value - expectedInterval}, {@code value - 2 * expectedInterval}, ... down to
+     * {@code expectedInterval}. Runs of missing values that share a bucket are added in one
+     * step, so a long stall costs at most one pass over the buckets rather than one record
+     * per missing sample.
+     */
+    public void recordValueWithExpectedInterval(long value, long expectedInterval) {
+        recordValue(value);
+        long top = Math.min(value, highestTrackableValue);
+        if (expectedInterval <= 0 || top < 2 * expectedInterval) {
+            return;
+        }
+
+        long lastStep = top / expectedInterval - 1;
+        long step = 1;
+        while (step <= lastStep) {
+            int index = indexOf(top - step * expectedInterval);
+            long lowest = lowestEquivalentValue(index);
+            long runEnd = Math.min(lastStep, (top - lowest) / expectedInterval);
+            long runLength = runEnd - step + 1;
+
+            counts[index] += runLength;
+            totalCount += runLength;
+            sum += runLength * (double) top - expectedInterval * (double) (step + runEnd) * runLength / 2;
+            step = runEnd + 1;
+        }
+        minValue = Math.min(minValue, top - lastStep * expectedInterval);
+    }
+
+    /**
+     * Value at or below which the given percentage of recorded values fall
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double clamped = Math.max(0.0, Math.min(100.0, percentile));
+        long countAtPercentile = Math.max(1, (long) Math.ceil(clamped / 100.0 * totalCount));
+        long running = 0;
+        for (int i = 0; i < counts.length; i++) {
+            running += counts[i];
+            if (running >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public long getMax() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : sum / totalCount;
+    }
+
+    /**
+     * Merge another histogram with the same layout into this one
+     */
+    public void add(LatencyHistogram other) {
+        if (other.precisionBits != precisionBits || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Histograms have different layouts");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        sum = 0;
+    }
+
+    /**
+     * One-line percentile summary with values in microseconds
+     */
+    public String toSummaryString() {
+        return String.format("count=%d p50=%.1fus p99=%.1fus p99.9=%.1fus p99.99=%.1fus max=%.1fus",
+            totalCount,
+            getValueAtPercentile(50.0) / 1_000.0,
+            getValueAtPercentile(99.0) / 1_000.0,
+            getValueAtPercentile(99.9) / 1_000.0,
+            getValueAtPercentile(99.99) / 1_000.0,
+            maxValue / 1_000.0);
+    }
+
+    int indexOf(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent <= precisionBits) {
+            return (int) value;
+        }
+        int shift = exponent - precisionBits;
+        long mantissa = value >>> shift; // in [2^precisionBits, 2^(precisionBits + 1))
+        return ((shift + 1) << precisionBits) + (int) (mantissa - (1L << precisionBits));
+    }
+
+    long lowestEquivalentValue(int index) {
+        int block = index >>> precisionBits;
+        if (block <= 1) {
+            return index;
+        }
+        int shift = block - 1;
+        long mantissa = (index & ((1L << precisionBits) - 1)) + (1L << precisionBits);
+        return mantissa << shift;
+    }
+
+    long highestEquivalentValue(int index) {
+        int block = index >>> precisionBits;
+        if (block <= 1) {
+            return index;
+        }
+        return lowestEquivalentValue(index) + (1L << (block - 1)) - 1;
+    }
+}
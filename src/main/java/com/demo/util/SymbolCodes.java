@@ -0,0 +1,58 @@
+package com.demo.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Packs ticker symbols of up to eight ASCII characters into a long, so hot paths can key
+ * per-symbol state by a primitive instead of a String
+ */
+@UtilityClass
+public class SymbolCodes {
+
+    public static final int MAX_LENGTH = 8;
+
+    public static long encode(CharSequence symbol) {
+        int length = symbol.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Symbol must be 1 to " + MAX_LENGTH + " characters: " + symbol);
+        }
+        long code = 0;
+        for (int i = 0; i < length; i++) {
+            char c = symbol.charAt(i);
+            if (!isAscii(c)) {
+                throw new IllegalArgumentException("Symbol must be ASCII: " + symbol);
+            }
+            code = code << 8 | c;
+        }
+        return code;
+    }
+
+    /**
+     * Whether {@link #encode} accepts the symbol
+     */
+    public static boolean canEncode(CharSequence symbol) {
+        int length = symbol.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isAscii(symbol.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(char c) {
+        return c != 0 && c <= 0x7F;
+    }
+
+    public static String decode(long code) {
+        char[] chars = new char[MAX_LENGTH];
+        int start = MAX_LENGTH;
+        for (long rest = code; rest != 0; rest >>>= 8) {
+            chars[--start] = (char) (rest & 0xFF);
+        }
+        return new String(chars, start, MAX_LENGTH - start);
+    }
+}
@@ -0,0 +1,210 @@
+package com.demo.util;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.affinity.AffinityLock;
+import net.openhft.affinity.CpuLayout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pins named hot-path threads to CPUs, configured per thread role.
+ * <p>
+ * The configuration is a comma-separated list of {@code role=placement}, usually taken from the
+ * {@value #PROPERTY} system property, e.g. {@code producer=isolated,consumer=isolated} or
+ * {@code producer=socket:0,consumer=socket:0,*=none}. Placements are:
+ * <ul>
+ *   <li>{@code none} - leave the thread to the OS scheduler</li>
+ *   <li>{@code 3} - that CPU</li>
+ *   <li>{@code isolated} - a free CPU from the kernel's isolated set ({@code isolcpus}), falling back to {@code any}</li>
+ *   <li>{@code socket:0} - a free CPU on that socket, e.g. to keep a producer and its consumer sharing a cache</li>
+ *   <li>{@code core} - a whole free core, leaving its hyperthread siblings idle</li>
+ *   <li>{@code any}, {@code last}, {@code last-1}, {@code csv:2,3} - as understood by {@link AffinityLock}</li>
+ * </ul>
+ * A role without an entry uses the {@code *} entry, if any. A thread calls {@link #acquire} for
+ * itself and closes the returned lock when it finishes, which frees its CPU for the next thread;
+ * pinning needs Linux, elsewhere the locks are no-ops. A placement that cannot be honoured, or
+ * cannot be parsed, logs a warning and leaves the thread OS scheduled.
+ */
+@Slf4j
+public class ThreadAffinity {
+
+    public static final String PROPERTY = "demo.affinity";
+
+    private static final String ANY_ROLE = "*";
+    private static final Path ISOLATED_CPUS = Paths.get("/sys/devices/system/cpu/isolated");
+
+    private final Map<String, String> placements;
+    // CPU -> lock handed out for it, null while it is being acquired
+    private final Map<Integer, AffinityLock> claims = new HashMap<>();
+
+    public ThreadAffinity(Map<String, String> placements) {
+        this.placements = new LinkedHashMap<>(placements);
+    }
+
+    /**
+     * Placements from the {@value #PROPERTY} system property; no pinning if it is not set
+     */
+    public static ThreadAffinity fromSystemProperty() {
+        return parse(System.getProperty(PROPERTY, ""));
+    }
+
+    public static ThreadAffinity parse(String config) {
+        Map<String, String> placements = new LinkedHashMap<>();
+        for (String entry : config.split(",(?![0-9])")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int equals = entry.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected role=placement in " + PROPERTY + ": " + entry);
+            }
+            placements.put(entry.substring(0, equals).trim(), entry.substring(equals + 1).trim().toLowerCase());
+        }
+        return new ThreadAffinity(placements);
+    }
+
+    /**
+     * Whether any role is pinned
+     */
+    public boolean isEnabled() {
+        return placements.values().stream().anyMatch(placement -> !placement.equals("none"));
+    }
+
+    /**
+     * Pin the calling thread as configured for its role
+     *
+     * @return the lock to close when the thread finishes, or null if the thread was not pinned
+     */
+    public AffinityLock acquire(String role) {
+        String placement = placements.getOrDefault(role, placements.get(ANY_ROLE));
+        if (placement == null || placement.equals("none")) {
+            return null;
+        }
+        AffinityLock lock;
+        try {
+            lock = lockFor(placement);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid placement '{}' for {} ({}); it stays OS scheduled", placement, role, e.getMessage());
+            return null;
+        }
+        if (lock == null) {
+            log.warn("Could not pin {} to '{}' on {}; it stays OS scheduled", role, placement, describeLayout());
+            return null;
+        }
+        if (!lock.isAllocated()) {
+            // e.g. CPU 0, which is left to the OS, or a machine with no spare CPUs
+            log.warn("Could not pin {} to '{}' on {}; it stays OS scheduled", role, placement, describeLayout());
+            return lock;
+        }
+        log.debug("Thread {} ({}) placed on CPU {} for '{}'", Thread.currentThread().getName(), role,
+            lock.cpuId(), placement);
+        return lock;
+    }
+
+    private AffinityLock lockFor(String placement) {
+        if (placement.equals("any")) {
+            return AffinityLock.acquireLock();
+        }
+        if (placement.equals("core")) {
+            return AffinityLock.acquireCore();
+        }
+        if (placement.equals("isolated")) {
+            BitSet isolated = isolatedCpus();
+            int cpu = claimNext(isolated);
+            if (cpu < 0) {
+                log.warn("No free isolated CPU (isolated set: {}), using any reserved CPU", isolated);
+                return AffinityLock.acquireLock();
+            }
+            return pin(cpu);
+        }
+        if (placement.startsWith("socket:")) {
+            int socket = Integer.parseInt(placement.substring("socket:".length()));
+            CpuLayout layout = AffinityLock.cpuLayout();
+            BitSet onSocket = new BitSet();
+            for (int cpu = 0; cpu < layout.cpus(); cpu++) {
+                if (layout.socketId(cpu) == socket && AffinityLock.BASE_AFFINITY.get(cpu)) {
+                    onSocket.set(cpu);
+                }
+            }
+            int cpu = claimNext(onSocket);
+            return cpu < 0 ? null : pin(cpu);
+        }
+        if (Character.isDigit(placement.charAt(0))) {
+            int cpu = Integer.parseInt(placement);
+            synchronized (claims) {
+                claims.put(cpu, null);
+            }
+            return pin(cpu);
+        }
+        return AffinityLock.acquireLock(placement);
+    }
+
+    /**
+     * Claim the first candidate CPU not held by a lock from this instance, or -1
+     */
+    private int claimNext(BitSet candidates) {
+        synchronized (claims) {
+            // A closed lock is no longer bound; its CPU is free again
+            claims.values().removeIf(lock -> lock != null && !lock.isBound());
+            for (int cpu = candidates.nextSetBit(0); cpu >= 0; cpu = candidates.nextSetBit(cpu + 1)) {
+                if (!claims.containsKey(cpu)) {
+                    claims.put(cpu, null);
+                    return cpu;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private AffinityLock pin(int cpu) {
+        AffinityLock lock = AffinityLock.acquireLock(cpu);
+        synchronized (claims) {
+            claims.put(cpu, lock);
+        }
+        return lock;
+    }
+
+    /**
+     * CPUs isolated from the scheduler with {@code isolcpus}, empty if none or not on Linux
+     */
+    public static BitSet isolatedCpus() {
+        BitSet cpus = new BitSet();
+        try {
+            if (Files.isReadable(ISOLATED_CPUS)) {
+                for (String range : Files.readString(ISOLATED_CPUS).trim().split(",")) {
+                    if (range.isEmpty()) {
+                        continue;
+                    }
+                    int dash = range.indexOf('-');
+                    int from = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+                    int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1));
+                    cpus.set(from, to + 1);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Could not read isolated CPUs from {}", ISOLATED_CPUS, e);
+        }
+        return cpus;
+    }
+
+    /**
+     * Sockets, cores and hyperthreads of this machine, and which CPUs are isolated
+     */
+    public static String describeLayout() {
+        CpuLayout layout = AffinityLock.cpuLayout();
+        return String.format("%d CPUs = %d sockets x %d cores x %d threads, isolated: %s",
+            layout.cpus(), layout.sockets(), layout.coresPerSocket(), layout.threadsPerCore(), isolatedCpus());
+    }
+
+    @Override
+    public String toString() {
+        return placements.isEmpty() ? "no pinning" : placements.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package com.demo.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Unit tests for the reference-counted, LRU-bounded map registry
+ */
+class MapRegistryTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("Leases of the same tenant should share one map, kept open while idle")
+    void testReferenceCounting() {
+        // Given
+        try (MapRegistry<Long, Long> registry = new MapRegistry<>(tempDir, 2, MapRegistryTest::open)) {
+
+            // When
+            ChronicleMap<Long, Long> map;
+            try (MapRegistry.Lease<Long, Long> first = registry.acquire("a");
+                 MapRegistry.Lease<Long, Long> second = registry.acquire("a")) {
+                map = first.map();
+                assertSame(map, second.map());
+                map.put(1L, 10L);
+            }
+
+            // Then
+            assertEquals(1, registry.getOpens());
+            assertEquals(1, registry.getHits());
+            assertEquals(1, registry.getOpenCount());
+            assertFalse(map.isClosed());
+            try (MapRegistry.Lease<Long, Long> again = registry.acquire("a")) {
+                assertEquals(10L, again.map().get(1L));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Over the limit, only idle maps should be closed, least recently used first")
+    void testEvictsIdleMapsOnly() {
+        // Given
+        try (MapRegistry<Long, Long> registry = new MapRegistry<>(tempDir, 2, MapRegistryTest::open)) {
+            MapRegistry.Lease<Long, Long> leased = registry.acquire("a");
+            ChronicleMap<Long, Long> b;
+            try (MapRegistry.Lease<Long, Long> lease = registry.acquire("b")) {
+                b = lease.map();
+            }
+
+            // When - "a" is the least recently used, but still leased
+            try (MapRegistry.Lease<Long, Long> lease = registry.acquire("c")) {
+                lease.map().put(1L, 1L);
+            }
+
+            // Then
+            assertEquals(1, registry.getEvictions());
+            assertTrue(b.isClosed());
+            assertFalse(leased.map().isClosed());
+            assertEquals(2, registry.getOpenCount());
+
+            // When - released, "a" is evicted in turn
+            leased.close();
+            try (MapRegistry.Lease<Long, Long> lease = registry.acquire("d")) {
+                lease.map().put(1L, 1L);
+            }
+
+            // Then
+            assertEquals(2, registry.getEvictions());
+            assertEquals(2, registry.getOpenCount());
+        }
+    }
+
+    @Test
+    @DisplayName("A failed open should leave nothing behind and allow a retry")
+    void testOpenFailureRollback() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        Function<File, ChronicleMap<Long, Long>> flaky = file -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+            return open(file);
+        };
+        try (MapRegistry<Long, Long> registry = new MapRegistry<>(tempDir, 2, flaky)) {
+
+            // When
+            assertThrows(UncheckedIOException.class, () -> registry.acquire("a"));
+
+            // Then
+            assertEquals(0, registry.getOpenCount());
+            assertEquals(0, registry.getOpens());
+            try (MapRegistry.Lease<Long, Long> lease = registry.acquire("a")) {
+                assertFalse(lease.map().isClosed());
+            }
+            assertEquals(1, registry.getOpens());
+        }
+    }
+
+    @Test
+    @DisplayName("A map opened while the registry closes should be closed and not leased")
+    void testCloseDuringOpen() throws InterruptedException {
+        // Given
+        CountDownLatch opening = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AtomicReference<ChronicleMap<Long, Long>> opened = new AtomicReference<>();
+        MapRegistry<Long, Long> registry = new MapRegistry<>(tempDir, 2, file -> {
+            opening.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            opened.set(open(file));
+            return opened.get();
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread acquirer = new Thread(() -> {
+            try {
+                registry.acquire("a").close();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        acquirer.start();
+        assertTrue(opening.await(5, TimeUnit.SECONDS));
+
+        // When
+        Thread closer = new Thread(registry::close);
+        closer.start();
+        TimeUnit.MILLISECONDS.sleep(100);
+        proceed.countDown();
+        acquirer.join(30_000);
+        closer.join(30_000);
+
+        // Then
+        assertFalse(acquirer.isAlive());
+        assertFalse(closer.isAlive());
+        assertInstanceOf(IllegalStateException.class, failure.get());
+        assertTrue(opened.get().isClosed());
+        assertEquals(0, registry.getOpenCount());
+    }
+
+    private static ChronicleMap<Long, Long> open(File file) {
+        try {
+            return ChronicleMap.of(Long.class, Long.class)
+                    .name(file.getName())
+                    .entries(100)
+                    .createPersistedTo(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.demo.map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Unit tests for the persisted off-heap Bloom filter
+ */
+class OffHeapBloomFilterTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("Added keys should always be reported as possibly present")
+    void testNoFalseNegatives() throws IOException {
+        // Given
+        try (OffHeapBloomFilter filter = OffHeapBloomFilter.createPersistedTo(
+                new File(tempDir, "bloom.dat"), 10_000, 0.01)) {
+
+            // When
+            for (long i = 0; i < 10_000; i++) {
+                filter.put(i);
+                filter.put("KEY_" + i);
+            }
+
+            // Then
+            for (long i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain(i));
+                assertTrue(filter.mightContain("KEY_" + i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("False-positive rate should stay near the configured target")
+    void testFalsePositiveRate() throws IOException {
+        // Given
+        try (OffHeapBloomFilter filter = OffHeapBloomFilter.createPersistedTo(
+                new File(tempDir, "bloom.dat"), 10_000, 0.01)) {
+            for (long i = 0; i < 10_000; i++) {
+                filter.put(i);
+            }
+
+            // When
+            int probes = 100_000;
+            int falsePositives = 0;
+            for (long i = 1_000_000; i < 1_000_000 + probes; i++) {
+                if (filter.mightContain(i)) {
+                    falsePositives++;
+                }
+            }
+
+            // Then
+            double rate = (double) falsePositives / probes;
+            assertTrue(rate < 0.02, "FP rate too high: " + rate);
+            assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+        }
+    }
+
+    @Test
+    @DisplayName("Filter contents should survive close and reopen")
+    void testPersistence() throws IOException {
+        // Given
+        File file = new File(tempDir, "bloom.dat");
+        try (OffHeapBloomFilter filter = OffHeapBloomFilter.createPersistedTo(file, 1_000, 0.01)) {
+            filter.put(42L);
+        }
+
+        // When - reopened with different sizing, the persisted geometry wins
+        try (OffHeapBloomFilter filter = OffHeapBloomFilter.createPersistedTo(file, 1_000_000, 0.001)) {
+
+            // Then
+            assertTrue(filter.mightContain(42L));
+            assertEquals(1, filter.approximateCount());
+        }
+    }
+
+    @Test
+    @DisplayName("clear should reset all bits")
+    void testClear() throws IOException {
+        // Given
+        try (OffHeapBloomFilter filter = OffHeapBloomFilter.createPersistedTo(
+                new File(tempDir, "bloom.dat"), 1_000, 0.01)) {
+            filter.put(7L);
+
+            // When
+            filter.clear();
+
+            // Then
+            assertFalse(filter.mightContain(7L));
+            assertEquals(0, filter.approximateCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid sizing should be rejected")
+    void testInvalidArguments() {
+        File file = new File(tempDir, "bloom.dat");
+        assertThrows(IllegalArgumentException.class, () -> OffHeapBloomFilter.createPersistedTo(file, 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapBloomFilter.createPersistedTo(file, 100, 1.0));
+    }
+
+    @Test
+    @DisplayName("A damaged header should be rejected on reopen")
+    void testCorruptHeader() throws IOException {
+        // Given
+        File file = new File(tempDir, "bloom.dat");
+        try (OffHeapBloomFilter filter = OffHeapBloomFilter.createPersistedTo(file, 1_000, 0.01)) {
+            filter.put(42L);
+        }
+        long numBits;
+        int numHashes;
+        try (OffHeapBloomFilter filter = OffHeapBloomFilter.createPersistedTo(file, 1_000, 0.01)) {
+            numBits = filter.getNumBits();
+            numHashes = filter.getNumHashes();
+        }
+
+        // When / Then - bit count not a power of two
+        patchHeader(file, 8, ByteBuffer.allocate(8).order(ByteOrder.nativeOrder()).putLong(0, numBits - 1));
+        assertThrows(IOException.class, () -> OffHeapBloomFilter.createPersistedTo(file, 1_000, 0.01));
+        patchHeader(file, 8, ByteBuffer.allocate(8).order(ByteOrder.nativeOrder()).putLong(0, numBits));
+
+        // When / Then - no hash functions
+        patchHeader(file, 16, ByteBuffer.allocate(4).order(ByteOrder.nativeOrder()).putInt(0, 0));
+        assertThrows(IOException.class, () -> OffHeapBloomFilter.createPersistedTo(file, 1_000, 0.01));
+        patchHeader(file, 16, ByteBuffer.allocate(4).order(ByteOrder.nativeOrder()).putInt(0, numHashes));
+
+        // When / Then - bits truncated
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(64 + numBits / 16);
+        }
+        assertThrows(IOException.class, () -> OffHeapBloomFilter.createPersistedTo(file, 1_000, 0.01));
+    }
+
+    private static void patchHeader(File file, long offset, ByteBuffer value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(value, offset);
+        }
+    }
+}
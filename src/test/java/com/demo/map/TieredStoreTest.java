@@ -0,0 +1,125 @@
+package com.demo.map;
+
+import com.demo.model.User;
+import com.demo.util.DataGenerator;
+import net.openhft.chronicle.map.ChronicleMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Duration;
+
+/**
+ * Unit tests for the hot/cold tiered store
+ */
+class TieredStoreTest {
+
+    private static final int USERS = 100;
+    private static final int MAX_HOT = 10;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("Demoted entries should read back equal and be promoted to the hot tier")
+    void testDemoteAndPromote() throws IOException {
+        // Given
+        try (ChronicleMap<Long, User> hot = newHotMap();
+             TieredStore<User> store = new TieredStore<>(hot, new File(tempDir, "cold"), User::new)) {
+            for (long id = 0; id < USERS; id++) {
+                store.put(id, DataGenerator.generateUser(id));
+            }
+            User first = hot.get(0L);
+
+            // When
+            int demoted = store.demoteTo(MAX_HOT);
+
+            // Then - the least recently used were demoted
+            assertEquals(USERS - MAX_HOT, demoted);
+            assertEquals(MAX_HOT, store.getHotCount());
+            assertEquals(USERS - MAX_HOT, store.getColdCount());
+            assertNull(hot.get(0L));
+            assertNotNull(hot.get(USERS - 1L));
+            assertTrue(store.getColdCompressedBytes() < store.getColdRawBytes());
+
+            assertEquals(first, store.get(0L));
+            assertEquals(1, store.getColdHits());
+            assertEquals(first, hot.get(0L));
+            assertEquals(USERS - MAX_HOT - 1, store.getColdCount());
+            assertNull(store.get(USERS));
+        }
+    }
+
+    @Test
+    @DisplayName("The cold index should be rebuilt from the segments on reopen")
+    void testReopen() throws IOException {
+        // Given
+        File coldDir = new File(tempDir, "cold");
+        try (ChronicleMap<Long, User> hot = newHotMap()) {
+            User user;
+            try (TieredStore<User> store = new TieredStore<>(hot, coldDir, User::new)) {
+                for (long id = 0; id < USERS; id++) {
+                    store.put(id, DataGenerator.generateUser(id));
+                }
+                user = hot.get(5L);
+                store.demoteTo(MAX_HOT);
+                store.get(1L);
+                store.remove(2L);
+            }
+
+            // When
+            try (TieredStore<User> store = new TieredStore<>(hot, coldDir, User::new)) {
+
+                // Then - promoted and removed entries stay out of the cold tier
+                assertEquals(USERS - MAX_HOT - 2, store.getColdCount());
+                assertEquals(MAX_HOT + 1, store.getHotCount());
+                assertEquals(user, store.get(5L));
+                assertNull(store.get(2L));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A cold record cut short or overwritten should fail as corrupt instead of hanging")
+    void testCorruptSegment() throws IOException {
+        // Given
+        File coldDir = new File(tempDir, "cold");
+        try (ChronicleMap<Long, User> hot = newHotMap();
+             TieredStore<User> store = new TieredStore<>(hot, coldDir, User::new)) {
+            for (long id = 0; id < USERS; id++) {
+                store.put(id, DataGenerator.generateUser(id));
+            }
+            // One at a time, so user 0 is the first record and user 1 the last
+            store.demoteTo(USERS - 1);
+            store.demoteTo(USERS - 2);
+            File segment = coldDir.listFiles((dir, name) -> name.endsWith(".cold"))[0];
+
+            // When - the first record's payload is overwritten and the last one's cut in half
+            try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+                file.seek(16);
+                file.write(new byte[32]);
+                file.setLength(file.length() - 20);
+            }
+
+            // Then
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                IllegalStateException overwritten = assertThrows(IllegalStateException.class, () -> store.get(0L));
+                assertTrue(overwritten.getMessage().startsWith("Corrupt cold record"));
+                IllegalStateException truncated = assertThrows(IllegalStateException.class, () -> store.get(1L));
+                assertTrue(truncated.getMessage().startsWith("Corrupt cold record"));
+            });
+        }
+    }
+
+    private static ChronicleMap<Long, User> newHotMap() {
+        return ChronicleMap.of(Long.class, User.class)
+                .name("tiered-hot")
+                .entries(USERS * 2)
+                .averageValueSize(256)
+                .create();
+    }
+}
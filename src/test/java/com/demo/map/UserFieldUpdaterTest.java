@@ -0,0 +1,82 @@
+package com.demo.map;
+
+import com.demo.model.User;
+import com.demo.util.DataGenerator;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Unit tests for in-place field updates of persisted users
+ */
+class UserFieldUpdaterTest {
+
+    private static final int USERS = 100;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("In-place updates should keep entry checksums valid for recovery")
+    void testRecoverAfterInPlaceUpdates() throws IOException {
+        // Given
+        File file = new File(tempDir, "users.dat");
+        LocalDateTime login = LocalDateTime.of(2024, 5, 6, 7, 8, 9);
+        try (ChronicleMap<Long, User> map = builder().createPersistedTo(file)) {
+            for (long id = 0; id < USERS; id++) {
+                User user = DataGenerator.generateUser(id);
+                user.setLastLoginAt(login.plusSeconds(id));
+                user.setAccountBalance(1000.5);
+                map.put(id, user);
+            }
+
+            // When
+            UserFieldUpdater updater = new UserFieldUpdater(map);
+            for (long id = 0; id < USERS; id++) {
+                assertTrue(updater.updateLastLoginAt(id, login.plusDays(1).plusSeconds(id)));
+                assertTrue(updater.updateAccountBalance(id, 2000.5));
+            }
+            assertEquals(2 * USERS, updater.getInPlaceUpdates());
+        }
+
+        // Then
+        try (ChronicleMap<Long, User> recovered = builder().recoverPersistedTo(file, true)) {
+            assertEquals(USERS, recovered.size());
+            for (long id = 0; id < USERS; id++) {
+                User user = recovered.get(id);
+                assertEquals(login.plusDays(1).plusSeconds(id), user.getLastLoginAt());
+                assertEquals(2000.5, user.getAccountBalance());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Timestamps should be padded to the stored width only when no digits are lost")
+    void testPadTimestamp() {
+        // Given
+        String minutes = LocalDateTime.of(2024, 1, 2, 3, 4).toString();
+        String nanos = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_789).toString();
+
+        // When / Then
+        assertEquals("2024-01-02T03:04:00", UserFieldUpdater.padTimestamp(minutes, 19));
+        assertEquals("2024-01-02T03:04:00.000000", UserFieldUpdater.padTimestamp(minutes, 26));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4),
+                LocalDateTime.parse(UserFieldUpdater.padTimestamp(minutes, 29)));
+        assertNull(UserFieldUpdater.padTimestamp(minutes, 21));
+        assertNull(UserFieldUpdater.padTimestamp(nanos, 26));
+    }
+
+    private static ChronicleMapBuilder<Long, User> builder() {
+        return ChronicleMap.of(Long.class, User.class)
+                .name("users")
+                .entries(USERS * 2)
+                .averageValueSize(256);
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.map;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for the write-behind buffer
+ */
+class WriteBehindMapTest {
+
+    private static final int KEYS = 16;
+
+    @Test
+    @DisplayName("Reads should see the latest write while flushes run concurrently")
+    void testReadYourWritesDuringFlush() {
+        // Given
+        try (ChronicleMap<Long, Long> map = newMap();
+             WriteBehindMap<Long, Long> writeBehind = new WriteBehindMap<>(map, 1, TimeUnit.MICROSECONDS, 1)) {
+
+            // When / Then - a batch size of one keeps the flush thread busy
+            for (long i = 1; i <= 200_000; i++) {
+                long key = i % KEYS;
+                writeBehind.put(key, i);
+                assertEquals(i, writeBehind.get(key), "stale read of key " + key);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Every update accepted before close should reach the map")
+    void testNoUpdateLostOnClose() throws InterruptedException {
+        // Given
+        try (ChronicleMap<Long, Long> map = newMap()) {
+            WriteBehindMap<Long, Long> writeBehind = new WriteBehindMap<>(map, 1, TimeUnit.SECONDS, 1_000_000);
+            AtomicLong lastAccepted = new AtomicLong();
+            Thread writer = new Thread(() -> {
+                for (long i = 1; ; i++) {
+                    try {
+                        writeBehind.put(i % KEYS, i);
+                    } catch (IllegalStateException closed) {
+                        return;
+                    }
+                    lastAccepted.set(i);
+                }
+            });
+            writer.start();
+            TimeUnit.MILLISECONDS.sleep(50);
+
+            // When
+            writeBehind.close();
+            writer.join();
+
+            // Then
+            long last = lastAccepted.get();
+            assertTrue(last > 0);
+            assertEquals(last, map.get(last % KEYS));
+            assertEquals(0, writeBehind.getPendingCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Repeated updates of a key should coalesce into fewer map writes")
+    void testCoalescing() {
+        // Given
+        try (ChronicleMap<Long, Long> map = newMap()) {
+            WriteBehindMap<Long, Long> writeBehind = new WriteBehindMap<>(map, 1, TimeUnit.HOURS, 1_000_000);
+
+            // When
+            for (long i = 0; i < 1_000; i++) {
+                writeBehind.put(i % KEYS, i);
+            }
+            assertNull(map.get(0L));
+            writeBehind.close();
+
+            // Then
+            assertEquals(KEYS, writeBehind.getEntriesFlushed());
+            assertEquals(1_000 - KEYS, map.get((long) (1_000 - KEYS) % KEYS));
+            assertThrows(IllegalStateException.class, () -> writeBehind.put(1L, 1L));
+        }
+    }
+
+    private static ChronicleMap<Long, Long> newMap() {
+        return ChronicleMap.of(Long.class, Long.class)
+                .name("write-behind-test")
+                .entries(KEYS * 2)
+                .create();
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.queue.rollcycles.TestRollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Unit tests for reading archived and live cycles as one queue
+ */
+class ArchiveAwareTailerTest {
+
+    private static final int PER_CYCLE = 5;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("Archived cycles should be read before live ones, and a cycle in both only once")
+    void testArchivedThenLive() throws IOException {
+        // Given - two cycles, both archived, the first one already removed from the queue
+        SetTimeProvider clock = new SetTimeProvider(1_700_000_000_000L * 1_000_000L);
+        try (SingleChronicleQueue queue = newQueue(clock);
+             ExcerptAppender appender = queue.createAppender()) {
+            for (long i = 0; i < 2 * PER_CYCLE; i++) {
+                if (i == PER_CYCLE) {
+                    clock.advanceMillis(1_000);
+                }
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().bytes().writeLong(i);
+                }
+            }
+        }
+        File[] cycles = tempDir.listFiles((dir, name) -> name.endsWith(".cq4"));
+        assertNotNull(cycles);
+        assertEquals(2, cycles.length);
+        Arrays.sort(cycles);
+        File archiveDirectory = new File(tempDir, QueueRetentionManager.ARCHIVE_DIRECTORY);
+        archiveDirectory.mkdirs();
+        for (File cycle : cycles) {
+            gzip(cycle, new File(archiveDirectory, cycle.getName() + ".gz"));
+        }
+        assertTrue(cycles[0].delete());
+
+        // When
+        List<Long> read = new ArrayList<>();
+        try (SingleChronicleQueue queue = newQueue(clock);
+             ArchiveAwareTailer tailer = new ArchiveAwareTailer(queue)) {
+            while (true) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent()) {
+                        break;
+                    }
+                    read.add(dc.wire().bytes().readLong());
+                }
+            }
+
+            // Then
+            assertEquals(PER_CYCLE, tailer.getArchivedExcerpts());
+            assertEquals(PER_CYCLE, tailer.getLiveExcerpts());
+        }
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), read);
+    }
+
+    private SingleChronicleQueue newQueue(SetTimeProvider clock) {
+        return SingleChronicleQueueBuilder.single(tempDir)
+                .rollCycle(TestRollCycles.TEST_SECONDLY)
+                .timeProvider(clock)
+                .build();
+    }
+
+    private static void gzip(File source, File target) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(target))) {
+            Files.copy(source.toPath(), out);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.demo.queue;
+
+import com.demo.model.MarketData;
+import com.demo.util.DataGenerator;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Unit tests for partitioned consumption, rebalancing and resuming from committed indexes
+ */
+class ConsumerGroupTest {
+
+    private static final int MESSAGES = 2_000;
+    private static final int PARTITIONS = 8;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("Members joining and leaving should share the partitions and process every message once")
+    void testRebalance() {
+        // Given
+        try (SingleChronicleQueue queue = filledQueue();
+             ConsumerGroup<MarketData> group = new ConsumerGroup<>(queue, "rebalance", PARTITIONS)) {
+            int[] seen = new int[MESSAGES];
+            ConsumerGroup.Member<MarketData> first = group.join("member-0", new MarketData());
+            pollUntil(List.of(first), seen, MESSAGES / 4);
+            assertEquals(PARTITIONS, first.getOwnedPartitionCount());
+
+            // When - a second member takes half the partitions mid-stream
+            ConsumerGroup.Member<MarketData> second = group.join("member-1", new MarketData());
+            pollUntil(List.of(first, second), seen, MESSAGES / 2);
+
+            // Then
+            assertEquals(PARTITIONS / 2, first.getOwnedPartitionCount());
+            assertEquals(PARTITIONS / 2, second.getOwnedPartitionCount());
+            assertTrue(second.getProcessed() > 0);
+
+            // When - the first member leaves and the second takes over the rest
+            long firstProcessed = first.getProcessed();
+            first.close();
+            pollUntil(List.of(second), seen, MESSAGES);
+
+            // Then
+            assertEquals(1, group.getMemberCount());
+            assertEquals(PARTITIONS, second.getOwnedPartitionCount());
+            assertEquals(MESSAGES, firstProcessed + second.getProcessed());
+            assertEachSeenOnce(seen);
+            second.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A restarted group should rewind to the committed indexes and resume without repeats")
+    void testResumeFromCommitted() {
+        // Given - a group that stopped part way through
+        int[] seen = new int[MESSAGES];
+        try (SingleChronicleQueue queue = filledQueue()) {
+            try (ConsumerGroup<MarketData> group = new ConsumerGroup<>(queue, "resume", PARTITIONS);
+                 ConsumerGroup.Member<MarketData> member = group.join("member-0", new MarketData())) {
+                pollUntil(List.of(member), seen, MESSAGES / 3);
+            }
+
+            // When - the same group is opened again with two members
+            try (ConsumerGroup<MarketData> group = new ConsumerGroup<>(queue, "resume", PARTITIONS)) {
+                ConsumerGroup.Member<MarketData> first = group.join("member-0", new MarketData());
+                ConsumerGroup.Member<MarketData> second = group.join("member-1", new MarketData());
+                pollUntil(List.of(first, second), seen, MESSAGES);
+
+                // Then
+                assertEquals(MESSAGES - MESSAGES / 3, first.getProcessed() + second.getProcessed());
+                assertEachSeenOnce(seen);
+                for (int p = 0; p < PARTITIONS; p++) {
+                    assertTrue(group.getCommittedIndex(p) > 0, "nothing committed for partition " + p);
+                }
+                first.close();
+                second.close();
+            }
+
+            // Then - a fresh group name starts from the beginning
+            try (ConsumerGroup<MarketData> group = new ConsumerGroup<>(queue, "other", PARTITIONS);
+                 ConsumerGroup.Member<MarketData> member = group.join("member-0", new MarketData())) {
+                int[] again = new int[MESSAGES];
+                pollUntil(List.of(member), again, MESSAGES);
+                assertEachSeenOnce(again);
+            }
+        }
+    }
+
+    private SingleChronicleQueue filledQueue() {
+        SingleChronicleQueue queue = SingleChronicleQueueBuilder.single(new File(tempDir, "group")).build();
+        if (queue.lastIndex() < 0) {
+            try (ExcerptAppender appender = queue.createAppender()) {
+                for (int i = 0; i < MESSAGES; i++) {
+                    MarketData data = DataGenerator.generateMarketData("GROUP_" + (i % 50));
+                    data.setVolume((long) i);
+                    ConsumerGroup.append(appender, data.getSymbol(), data);
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Poll the members in turn, each on this thread, until {@code target} messages have been
+     * processed in total or nothing is left to read
+     */
+    private static void pollUntil(List<ConsumerGroup.Member<MarketData>> members, int[] seen, int target) {
+        int idleRounds = 0;
+        while (count(seen) < target && idleRounds < 2) {
+            boolean progressed = false;
+            for (ConsumerGroup.Member<MarketData> member : members) {
+                progressed |= member.poll(message -> seen[message.getVolume().intValue()]++);
+            }
+            idleRounds = progressed ? 0 : idleRounds + 1;
+        }
+        assertEquals(target, count(seen));
+    }
+
+    private static int count(int[] seen) {
+        int count = 0;
+        for (int times : seen) {
+            count += times;
+        }
+        return count;
+    }
+
+    private static void assertEachSeenOnce(int[] seen) {
+        for (int i = 0; i < seen.length; i++) {
+            assertEquals(1, seen[i], "message " + i + " processed " + seen[i] + " times");
+        }
+    }
+}
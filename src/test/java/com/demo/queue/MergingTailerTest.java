@@ -0,0 +1,134 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for merging several timestamp-ordered queues into one stream
+ */
+class MergingTailerTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("Excerpts from all queues should come out whole, in timestamp order, ties to the first queue")
+    void testMergeOrder() {
+        // Given - increasing timestamps spread randomly over the queues, several sharing each value
+        int queueCount = 7;
+        int messages = 5_000;
+        List<SingleChronicleQueue> queues = openQueues(queueCount);
+        try {
+            long[] written = new long[queueCount];
+            List<ExcerptAppender> appenders = new ArrayList<>();
+            queues.forEach(queue -> appenders.add(queue.createAppender()));
+            Random random = new Random(42);
+            for (int i = 0; i < messages; i++) {
+                int q = random.nextInt(queueCount - 1);
+                append(appenders.get(q), i / 4, written[q]++);
+            }
+            appenders.forEach(ExcerptAppender::close);
+
+            // When - the last queue stays empty
+            long[] read = new long[queueCount];
+            long previous = Long.MIN_VALUE;
+            int previousSource = -1;
+            int total = 0;
+            try (MergingTailer tailer = new MergingTailer(queues, TimestampSeek.LEADING_LONG)) {
+                while (true) {
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        if (!dc.isPresent()) {
+                            break;
+                        }
+                        long timestamp = dc.wire().bytes().readLong();
+                        long sequence = dc.wire().bytes().readLong();
+                        int source = tailer.getSource();
+
+                        // Then
+                        assertTrue(timestamp >= previous, "out of order at " + total);
+                        if (timestamp == previous) {
+                            assertTrue(source >= previousSource, "tie not broken by queue at " + total);
+                        }
+                        assertEquals(read[source]++, sequence, "excerpt skipped or repeated in queue " + source);
+                        previous = timestamp;
+                        previousSource = source;
+                        total++;
+                    }
+                }
+            }
+
+            // Then
+            assertEquals(messages, total);
+            assertArrayEquals(written, read);
+        } finally {
+            queues.forEach(SingleChronicleQueue::close);
+        }
+    }
+
+    @Test
+    @DisplayName("Excerpts appended after the queues ran dry should be picked up")
+    void testPicksUpLaterAppends() {
+        // Given
+        List<SingleChronicleQueue> queues = openQueues(3);
+        try (ExcerptAppender first = queues.get(0).createAppender();
+             ExcerptAppender third = queues.get(2).createAppender();
+             MergingTailer tailer = new MergingTailer(queues, TimestampSeek.LEADING_LONG)) {
+            append(first, 1, 0);
+
+            // When / Then
+            assertEquals(1, nextTimestamp(tailer));
+            assertEquals(-1, nextTimestamp(tailer));
+            append(third, 2, 0);
+            assertEquals(2, nextTimestamp(tailer));
+            assertEquals(2, tailer.getSource());
+            append(first, 4, 1);
+            append(third, 3, 1);
+            assertEquals(3, nextTimestamp(tailer));
+            assertEquals(4, nextTimestamp(tailer));
+            assertEquals(-1, nextTimestamp(tailer));
+        } finally {
+            queues.forEach(SingleChronicleQueue::close);
+        }
+    }
+
+    @Test
+    @DisplayName("A merge needs at least one queue")
+    void testNoQueues() {
+        assertThrows(IllegalArgumentException.class, () -> new MergingTailer(List.of(), TimestampSeek.LEADING_LONG));
+    }
+
+    private List<SingleChronicleQueue> openQueues(int count) {
+        List<SingleChronicleQueue> queues = new ArrayList<>();
+        for (int q = 0; q < count; q++) {
+            queues.add(SingleChronicleQueueBuilder.single(new File(tempDir, "feed-" + q)).build());
+        }
+        return queues;
+    }
+
+    private static void append(ExcerptAppender appender, long timestamp, long sequence) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().bytes().writeLong(timestamp);
+            dc.wire().bytes().writeLong(sequence);
+        }
+    }
+
+    /**
+     * Timestamp of the next merged excerpt, or -1 if there is none
+     */
+    private static long nextTimestamp(MergingTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            return dc.isPresent() ? dc.wire().bytes().readLong() : -1;
+        }
+    }
+}
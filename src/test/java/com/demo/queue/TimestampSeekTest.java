@@ -0,0 +1,147 @@
+package com.demo.queue;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.queue.rollcycles.TestRollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+
+/**
+ * Unit tests for seeking a queue by the timestamp at the start of each excerpt
+ */
+class TimestampSeekTest {
+
+    private static final int CYCLES = 3;
+    private static final int PER_CYCLE = 100;
+    // Excerpt i carries timestamp 10 * i, so odd timestamps fall between excerpts
+    private static final long STEP = 10;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    @DisplayName("A timestamp before the first excerpt should seek to the start")
+    void testBeforeFirst() {
+        // Given
+        try (SingleChronicleQueue queue = filledQueue();
+             ExcerptTailer tailer = queue.createTailer()) {
+            // When
+            boolean found = TimestampSeek.seek(queue, tailer, -1, TimestampSeek.LEADING_LONG);
+
+            // Then
+            assertTrue(found);
+            assertEquals(0, next(tailer));
+        }
+    }
+
+    @Test
+    @DisplayName("A timestamp after the last excerpt should leave the tailer at the end")
+    void testAfterLast() {
+        // Given
+        try (SingleChronicleQueue queue = filledQueue();
+             ExcerptTailer tailer = queue.createTailer()) {
+            // When
+            boolean found = TimestampSeek.seek(queue, tailer, CYCLES * PER_CYCLE * STEP, TimestampSeek.LEADING_LONG);
+
+            // Then
+            assertFalse(found);
+            assertEquals(-1, next(tailer));
+        }
+    }
+
+    @Test
+    @DisplayName("Timestamps within a cycle should seek to the first excerpt at or after them")
+    void testWithinCycle() {
+        // Given
+        try (SingleChronicleQueue queue = filledQueue();
+             ExcerptTailer tailer = queue.createTailer()) {
+            for (long i = 0; i < CYCLES * PER_CYCLE; i += 7) {
+                // When / Then - exact and in between
+                assertTrue(TimestampSeek.seek(queue, tailer, i * STEP, TimestampSeek.LEADING_LONG));
+                assertEquals(i * STEP, next(tailer));
+                assertTrue(TimestampSeek.seek(queue, tailer, i * STEP - 1, TimestampSeek.LEADING_LONG));
+                assertEquals(i * STEP, next(tailer));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Timestamps at a cycle boundary should seek to the first excerpt of the next cycle")
+    void testCycleBoundary() {
+        // Given
+        try (SingleChronicleQueue queue = filledQueue();
+             ExcerptTailer tailer = queue.createTailer()) {
+            for (int cycle = 1; cycle < CYCLES; cycle++) {
+                long first = cycle * PER_CYCLE * STEP;
+
+                // When / Then - exactly the first excerpt of the cycle
+                assertTrue(TimestampSeek.seek(queue, tailer, first, TimestampSeek.LEADING_LONG));
+                assertEquals(queue.firstCycle() + cycle, tailer.cycle());
+                assertEquals(first, next(tailer));
+
+                // When / Then - after the last excerpt of the previous cycle
+                assertTrue(TimestampSeek.seek(queue, tailer, first - STEP + 1, TimestampSeek.LEADING_LONG));
+                assertEquals(first, next(tailer));
+
+                // When / Then - the last excerpt of the previous cycle
+                assertTrue(TimestampSeek.seek(queue, tailer, first - STEP, TimestampSeek.LEADING_LONG));
+                assertEquals(first - STEP, next(tailer));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Seeking an empty queue should find nothing")
+    void testEmptyQueue() {
+        // Given
+        try (SingleChronicleQueue queue = newQueue(new SetTimeProvider(0));
+             ExcerptTailer tailer = queue.createTailer()) {
+            // When
+            boolean found = TimestampSeek.seek(queue, tailer, 0, TimestampSeek.LEADING_LONG);
+
+            // Then
+            assertFalse(found);
+            assertEquals(-1, next(tailer));
+        }
+    }
+
+    private SingleChronicleQueue filledQueue() {
+        SetTimeProvider clock = new SetTimeProvider(1_700_000_000_000L * 1_000_000L);
+        SingleChronicleQueue queue = newQueue(clock);
+        try (ExcerptAppender appender = queue.createAppender()) {
+            for (long i = 0; i < CYCLES * PER_CYCLE; i++) {
+                if (i > 0 && i % PER_CYCLE == 0) {
+                    clock.advanceMillis(1_000);
+                }
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().bytes().writeLong(i * STEP);
+                }
+            }
+        }
+        return queue;
+    }
+
+    private SingleChronicleQueue newQueue(SetTimeProvider clock) {
+        return SingleChronicleQueueBuilder.single(tempDir)
+                .rollCycle(TestRollCycles.TEST_SECONDLY)
+                .timeProvider(clock)
+                .build();
+    }
+
+    /**
+     * Timestamp of the next excerpt, or -1 at the end of the queue
+     */
+    private static long next(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            return dc.isPresent() ? dc.wire().bytes().readLong() : -1;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.queue;
+
+import com.demo.model.Trade;
+import com.demo.util.DataGenerator;
+import net.openhft.chronicle.bytes.Bytes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Unit tests for the fixed-offset trade layout
+ */
+class TradeLayoutTest {
+
+    @Test
+    @DisplayName("A trade should decode to an equal trade, nulls included")
+    void testRoundTrip() {
+        // Given
+        Trade trade = DataGenerator.generateTrade(42L, "HFT_7");
+        Trade empty = new Trade();
+
+        // When
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        TradeLayout.write(bytes, trade);
+        TradeLayout.write(bytes, empty);
+
+        // Then
+        assertEquals(trade, TradeLayout.read(bytes, new Trade()));
+        assertEquals(empty, TradeLayout.read(bytes, new Trade()));
+    }
+
+    @Test
+    @DisplayName("Filters should read the header in place without moving the read position")
+    void testFiltersReadInPlace() {
+        // Given
+        Trade trade = DataGenerator.generateTrade(1L, "HFT_7");
+        trade.setSide(Trade.Side.SELL);
+        trade.setTradeType(Trade.TradeType.ICEBERG);
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+        TradeLayout.write(bytes, trade);
+
+        // When
+        boolean symbolMatches = TradeLayout.symbolIn("HFT_1", "HFT_7").test(bytes);
+        boolean otherSymbolMatches = TradeLayout.symbolIn("HFT_1").test(bytes);
+        boolean sideMatches = TradeLayout.sideIs(Trade.Side.SELL).test(bytes);
+        boolean typeMatches = TradeLayout.typeIn(Trade.TradeType.LIMIT, Trade.TradeType.ICEBERG).test(bytes);
+        boolean otherTypeMatches = TradeLayout.typeIn(Trade.TradeType.MARKET).test(bytes);
+
+        // Then
+        assertTrue(symbolMatches);
+        assertFalse(otherSymbolMatches);
+        assertTrue(sideMatches);
+        assertTrue(typeMatches);
+        assertFalse(otherTypeMatches);
+        assertEquals(0, bytes.readPosition());
+        assertEquals(trade.getQuantity(), TradeLayout.quantity(bytes));
+    }
+
+    @Test
+    @DisplayName("Prices and commissions should keep their exact value and scale")
+    void testExactDecimals() {
+        // Given
+        Trade trade = DataGenerator.generateTrade(3L, "HFT_3");
+        trade.setPrice(new BigDecimal("100.10"));
+        trade.setCommission(new BigDecimal("0.000012345678901234567"));
+        Trade large = DataGenerator.generateTrade(4L, "HFT_4");
+        large.setPrice(new BigDecimal("123456789012345678901234567890.5"));
+        large.setCommission(new BigDecimal("1E+200"));
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+
+        // When
+        TradeLayout.write(bytes, trade);
+        double price = TradeLayout.price(bytes);
+        Trade decoded = TradeLayout.read(bytes, new Trade());
+        TradeLayout.write(bytes, large);
+        double largePrice = TradeLayout.price(bytes);
+        Trade largeDecoded = TradeLayout.read(bytes, new Trade());
+
+        // Then
+        assertEquals(trade, decoded);
+        assertEquals("100.10", decoded.getPrice().toPlainString());
+        assertEquals(100.10, price);
+        assertEquals(large, largeDecoded);
+        assertEquals(1.234567890123456789e29, largePrice, 1e14);
+    }
+
+    @Test
+    @DisplayName("Symbols with no code should round trip and filter through the variable-length section")
+    void testUncodedSymbols() {
+        // Given
+        Trade longSymbol = DataGenerator.generateTrade(1L, "LONG_SYMBOL_9");
+        Trade emptySymbol = DataGenerator.generateTrade(2L, "");
+        Bytes<?> bytes = Bytes.allocateElasticOnHeap();
+
+        // When
+        TradeLayout.write(bytes, longSymbol);
+        boolean matches = TradeLayout.symbolIn("HFT_7", "LONG_SYMBOL_9").test(bytes);
+        boolean otherMatches = TradeLayout.symbolIn("LONG_SYMBOL_8").test(bytes);
+        long positionAfterFilters = bytes.readPosition();
+        Trade decoded = TradeLayout.read(bytes, new Trade());
+        TradeLayout.write(bytes, emptySymbol);
+
+        // Then
+        assertTrue(matches);
+        assertFalse(otherMatches);
+        assertEquals(0, positionAfterFilters);
+        assertEquals(longSymbol, decoded);
+        assertEquals(0, TradeLayout.symbolCode(bytes));
+        assertEquals(emptySymbol, TradeLayout.read(bytes, new Trade()));
+    }
+}
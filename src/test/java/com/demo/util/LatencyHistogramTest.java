@@ -0,0 +1,95 @@
+package com.demo.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the log-linear latency histogram
+ */
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Percentiles should be within the configured precision")
+    void testPercentilePrecision() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.recordValue(value * 1_000);
+        }
+
+        // Then
+        assertEquals(100_000, histogram.getTotalCount());
+        assertEquals(1_000, histogram.getMin());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_000, histogram.getValueAtPercentile(50.0), 50_000_000 / 128.0);
+        assertEquals(99_000_000, histogram.getValueAtPercentile(99.0), 99_000_000 / 128.0);
+        assertEquals(99_990_000, histogram.getValueAtPercentile(99.99), 99_990_000 / 128.0);
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    @DisplayName("Small values should be counted exactly")
+    void testSmallValuesExact() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.recordValue(3);
+        histogram.recordValue(7);
+        histogram.recordValue(200);
+
+        // Then
+        assertEquals(3, histogram.getValueAtPercentile(10.0));
+        assertEquals(7, histogram.getValueAtPercentile(50.0));
+        assertEquals(200, histogram.getValueAtPercentile(100.0));
+        assertEquals(70.0, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Coordinated omission correction should back-fill the samples a stalled sender missed")
+    void testCoordinatedOmissionCorrection() {
+        // Given
+        LatencyHistogram corrected = new LatencyHistogram();
+        LatencyHistogram expected = new LatencyHistogram();
+
+        // When
+        corrected.recordValueWithExpectedInterval(1_000_000, 1_000);
+        for (long value = 1_000_000; value >= 1_000; value -= 1_000) {
+            expected.recordValue(value);
+        }
+
+        // Then
+        assertEquals(1_000, corrected.getTotalCount());
+        assertEquals(expected.getTotalCount(), corrected.getTotalCount());
+        assertEquals(expected.getMin(), corrected.getMin());
+        assertEquals(expected.getMean(), corrected.getMean(), 1e-6);
+        for (double percentile : new double[] {1.0, 25.0, 50.0, 90.0, 99.0, 99.9}) {
+            assertEquals(expected.getValueAtPercentile(percentile), corrected.getValueAtPercentile(percentile));
+        }
+    }
+
+    @Test
+    @DisplayName("Merged histograms should report the combined distribution")
+    void testAddAndReset() {
+        // Given
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.recordValue(10);
+        second.recordValue(1_000_000);
+
+        // When
+        first.add(second);
+
+        // Then
+        assertEquals(2, first.getTotalCount());
+        assertEquals(10, first.getMin());
+        assertEquals(1_000_000, first.getMax());
+
+        first.reset();
+        assertEquals(0, first.getTotalCount());
+        assertEquals(0, first.getValueAtPercentile(99.0));
+    }
+}